@@ -0,0 +1,92 @@
+package com.example.lunch_picker.benchmark;
+
+import com.example.lunch_picker.LunchPickerApplication;
+import com.example.lunch_picker.model.LunchSession;
+import com.example.lunch_picker.model.RestaurantChoice;
+import com.example.lunch_picker.model.SessionStatus;
+import com.example.lunch_picker.repository.RestaurantRepository;
+import com.example.lunch_picker.service.SessionService;
+import jakarta.persistence.EntityManager;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots the application without a web server and seeds sessions for the service benchmarks.
+ * SQL and application logging are silenced so they do not dominate the measurements.
+ */
+final class BenchmarkContext implements AutoCloseable {
+
+    static final String CREATOR = "alice";
+
+    private final ConfigurableApplicationContext context;
+
+    private BenchmarkContext(ConfigurableApplicationContext context) {
+        this.context = context;
+    }
+
+    static BenchmarkContext start() {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(LunchPickerApplication.class)
+                .web(WebApplicationType.NONE)
+                // Passed as arguments rather than default properties so they override application.yaml
+                .run("--spring.main.banner-mode=off",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.example.lunch_picker=WARN",
+                        "--logging.level.org.springframework.batch=WARN",
+                        "--logging.level.org.hibernate.SQL=OFF",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=OFF");
+        return new BenchmarkContext(context);
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * Creates an open session already holding {@code choices} restaurants, all submitted by {@link #CREATOR}.
+     */
+    String seedSession(int choices) {
+        LunchSession session = bean(SessionService.class).createSession(CREATOR);
+        RestaurantRepository restaurantRepository = bean(RestaurantRepository.class);
+        EntityManager entityManager = bean(EntityManager.class);
+
+        bean(TransactionTemplate.class).executeWithoutResult(status -> {
+            LunchSession reference = entityManager.getReference(LunchSession.class, session.getId());
+            List<RestaurantChoice> batch = new ArrayList<>(choices);
+            for (int i = 0; i < choices; i++) {
+                batch.add(RestaurantChoice.builder()
+                        .session(reference)
+                        .restaurant("Seed Restaurant " + i)
+                        .submittedBy(CREATOR)
+                        .build());
+            }
+            restaurantRepository.saveAll(batch);
+        });
+        return session.getId();
+    }
+
+    /**
+     * Puts a session back into the OPEN state with a bulk update so the pick benchmark
+     * can close it again without reloading its choices.
+     */
+    void reopen(String sessionId) {
+        EntityManager entityManager = bean(EntityManager.class);
+        bean(TransactionTemplate.class).executeWithoutResult(status ->
+                entityManager.createQuery("update LunchSession s set s.status = :status, "
+                                + "s.chosenRestaurant = null where s.id = :id")
+                        .setParameter("status", SessionStatus.OPEN)
+                        .setParameter("id", sessionId)
+                        .executeUpdate());
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
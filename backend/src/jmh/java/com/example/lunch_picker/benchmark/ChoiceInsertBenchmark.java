@@ -0,0 +1,81 @@
+package com.example.lunch_picker.benchmark;
+
+import com.example.lunch_picker.model.LunchSession;
+import com.example.lunch_picker.model.RestaurantChoice;
+import com.example.lunch_picker.repository.RestaurantRepository;
+import com.example.lunch_picker.service.SessionService;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many restaurant choices per second JPA can insert in one transaction, with JDBC
+ * batching effectively off ({@code jdbcBatchSize = 1}, one round trip per row as with IDENTITY IDs)
+ * and at the configured batch size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChoiceInsertBenchmark {
+
+    private static final int CHOICES_PER_TRANSACTION = 1000;
+
+    @Param({"1", "50"})
+    private int jdbcBatchSize;
+
+    private BenchmarkContext context;
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+    private String sessionId;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        entityManager = context.bean(EntityManager.class);
+        transactionTemplate = context.bean(TransactionTemplate.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void newSession() {
+        sessionId = context.bean(SessionService.class).createSession(BenchmarkContext.CREATOR).getId();
+    }
+
+    @TearDown(Level.Iteration)
+    public void removeInserted() {
+        // Keep the table the same size for every iteration
+        RestaurantRepository restaurantRepository = context.bean(RestaurantRepository.class);
+        transactionTemplate.executeWithoutResult(status ->
+                restaurantRepository.deleteAllBySessionIds(List.of(sessionId)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHOICES_PER_TRANSACTION)
+    public void insertChoices() {
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(jdbcBatchSize);
+            LunchSession session = entityManager.getReference(LunchSession.class, sessionId);
+            for (int i = 0; i < CHOICES_PER_TRANSACTION; i++) {
+                entityManager.persist(RestaurantChoice.builder()
+                        .session(session)
+                        .restaurant("Insert Benchmark " + sequence++)
+                        .submittedBy(BenchmarkContext.CREATOR)
+                        .build());
+            }
+            entityManager.flush();
+            entityManager.clear();
+        });
+    }
+}
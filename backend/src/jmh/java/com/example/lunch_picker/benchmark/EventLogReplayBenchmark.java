@@ -0,0 +1,80 @@
+package com.example.lunch_picker.benchmark;
+
+import com.example.lunch_picker.eventlog.EventLogFormat;
+import com.example.lunch_picker.eventlog.EventLogWriter;
+import com.example.lunch_picker.eventlog.SessionLogState;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures how long startup replay takes to rebuild session state from log segments alone, with
+ * no snapshot to start from. Sessions get 20 choices each; every other one is closed and every
+ * fourth archived.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class EventLogReplayBenchmark {
+
+    private static final int CHOICES_PER_SESSION = 20;
+
+    @Param({"100000", "1000000"})
+    private int events;
+
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("event-log-replay");
+        EventLogWriter writer = new EventLogWriter(directory, 4096);
+        writer.start();
+        LocalDateTime now = LocalDateTime.now();
+        CompletableFuture<Long> last = null;
+        long choiceId = 0;
+        int written = 0;
+        for (int session = 0; written < events; session++) {
+            String sessionId = "session-" + session;
+            last = writer.append(EventLogFormat.sessionCreated(sessionId, "alice", now));
+            written++;
+            for (int i = 0; i < CHOICES_PER_SESSION && written < events; i++, written++) {
+                last = writer.append(EventLogFormat.restaurantSubmitted(
+                        sessionId, ++choiceId, "Restaurant " + i, "bob", i + 1));
+            }
+            if (session % 2 == 0 && written < events) {
+                last = writer.append(EventLogFormat.sessionClosed(sessionId, "Restaurant 0", now, CHOICES_PER_SESSION + 1));
+                written++;
+            }
+            if (session % 4 == 0 && written < events) {
+                last = writer.append(EventLogFormat.sessionArchived(sessionId, now));
+                written++;
+            }
+        }
+        last.join();
+        writer.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public SessionLogState replay() throws IOException {
+        return SessionLogState.load(directory);
+    }
+}
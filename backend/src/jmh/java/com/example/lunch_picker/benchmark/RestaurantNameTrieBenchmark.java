@@ -0,0 +1,50 @@
+package com.example.lunch_picker.benchmark;
+
+import com.example.lunch_picker.service.RestaurantNameTrie;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures restaurant name suggestion lookups and the per-submit trie update, isolated from the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RestaurantNameTrieBenchmark {
+
+    private static final String[] CUISINES = {"Burger", "Noodle", "Pizza", "Sushi", "Taco", "Curry", "Salad", "Ramen"};
+
+    @Param({"1000", "100000"})
+    private int names;
+
+    private RestaurantNameTrie trie;
+    private String[] prefixes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        trie = new RestaurantNameTrie(10);
+        for (int i = 0; i < names; i++) {
+            // Skewed counts, like real submissions: a few names are far more popular than the rest
+            trie.add(CUISINES[i % CUISINES.length] + " Place " + i, 1 + (long) (1000 / (1 + random.nextInt(1000))));
+        }
+        prefixes = new String[]{"b", "bur", "burger place 1", "ramen place", "sushi place 99", "x"};
+    }
+
+    @Benchmark
+    public List<RestaurantNameTrie.Suggestion> suggest() {
+        return trie.suggest(prefixes[next++ % prefixes.length], 10);
+    }
+
+    @Benchmark
+    public void add() {
+        trie.add(CUISINES[next % CUISINES.length] + " Place " + (next++ % names), 1);
+    }
+}
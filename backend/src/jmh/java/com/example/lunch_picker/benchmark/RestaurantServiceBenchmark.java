@@ -0,0 +1,88 @@
+package com.example.lunch_picker.benchmark;
+
+import com.example.lunch_picker.model.RestaurantChoice;
+import com.example.lunch_picker.repository.RestaurantRepository;
+import com.example.lunch_picker.service.RestaurantService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link RestaurantService#submit} and {@link RestaurantService#pickRandom} against
+ * sessions of increasing size. Each submitted choice is removed again outside the measured
+ * region so the session keeps its nominal size for the whole run. Per-call fixtures live in their
+ * own states, so each benchmark only pays for its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RestaurantServiceBenchmark {
+
+    @Param({"10", "1000", "50000"})
+    private int choices;
+
+    private BenchmarkContext context;
+    private RestaurantService restaurantService;
+    private RestaurantRepository restaurantRepository;
+    private String sessionId;
+
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        restaurantService = context.bean(RestaurantService.class);
+        restaurantRepository = context.bean(RestaurantRepository.class);
+        sessionId = context.seedSession(choices);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public RestaurantChoice submit(SubmitState state) {
+        RestaurantChoice choice = restaurantService.submit(sessionId, "Benchmark Restaurant " + sequence++, "bob");
+        state.lastSubmittedId = choice.getId();
+        return choice;
+    }
+
+    @Benchmark
+    public String pickRandom(PickState state) {
+        return restaurantService.pickRandom(sessionId, BenchmarkContext.CREATOR);
+    }
+
+    /**
+     * Removes each submitted choice after the call. Kept out of the shared state so only
+     * {@link #submit} pays for it.
+     */
+    @State(Scope.Thread)
+    public static class SubmitState {
+
+        private Long lastSubmittedId;
+
+        @TearDown(Level.Invocation)
+        public void removeSubmitted(RestaurantServiceBenchmark benchmark) {
+            if (lastSubmittedId != null) {
+                benchmark.restaurantRepository.deleteById(lastSubmittedId);
+                lastSubmittedId = null;
+            }
+        }
+    }
+
+    /**
+     * Reopens the session the previous pick closed, so every call measures a real pick.
+     */
+    @State(Scope.Thread)
+    public static class PickState {
+
+        @Setup(Level.Invocation)
+        public void reopen(RestaurantServiceBenchmark benchmark) {
+            benchmark.context.reopen(benchmark.sessionId);
+        }
+    }
+}
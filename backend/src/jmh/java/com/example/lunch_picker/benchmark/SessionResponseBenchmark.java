@@ -0,0 +1,56 @@
+package com.example.lunch_picker.benchmark;
+
+import com.example.lunch_picker.dto.SessionResponse;
+import com.example.lunch_picker.model.LunchSession;
+import com.example.lunch_picker.model.RestaurantChoice;
+import com.example.lunch_picker.model.SessionStatus;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the entity-to-DTO mapping done on every session read, isolated from the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SessionResponseBenchmark {
+
+    @Param({"10", "1000", "50000"})
+    private int choices;
+
+    private LunchSession session;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        session = LunchSession.builder()
+                .id("benchmark-session")
+                .createdBy(BenchmarkContext.CREATOR)
+                .status(SessionStatus.OPEN)
+                .createdAt(LocalDateTime.now())
+                .version(0L)
+                .build();
+
+        List<RestaurantChoice> restaurantChoices = new ArrayList<>(choices);
+        for (int i = 0; i < choices; i++) {
+            restaurantChoices.add(RestaurantChoice.builder()
+                    .id((long) i)
+                    .restaurant("Restaurant " + i)
+                    .submittedBy("user" + (i % 50))
+                    .session(session)
+                    .build());
+        }
+        session.setRestaurantChoices(restaurantChoices);
+    }
+
+    @Benchmark
+    public SessionResponse from() {
+        return SessionResponse.from(session);
+    }
+}
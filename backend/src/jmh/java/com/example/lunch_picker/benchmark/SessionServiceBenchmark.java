@@ -0,0 +1,48 @@
+package com.example.lunch_picker.benchmark;
+
+import com.example.lunch_picker.model.LunchSession;
+import com.example.lunch_picker.service.SessionService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures session creation and session reads for sessions of increasing size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SessionServiceBenchmark {
+
+    @Param({"10", "1000", "50000"})
+    private int choices;
+
+    private BenchmarkContext context;
+    private SessionService sessionService;
+    private String sessionId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        sessionService = context.bean(SessionService.class);
+        sessionId = context.seedSession(choices);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public LunchSession createSession() {
+        return sessionService.createSession(BenchmarkContext.CREATOR);
+    }
+
+    @Benchmark
+    public LunchSession getSession() {
+        return sessionService.getSession(sessionId);
+    }
+}
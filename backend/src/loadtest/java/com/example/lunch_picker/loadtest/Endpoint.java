@@ -0,0 +1,43 @@
+package com.example.lunch_picker.loadtest;
+
+/**
+ * The operations the load test drives, each with the status a healthy server answers with.
+ */
+enum Endpoint {
+
+    /** {@code POST /api/sessions}; only issued to replace sessions closed by a pick. */
+    CREATE("create", 201),
+    /** {@code POST /api/sessions/{id}/restaurants} with a new restaurant name. */
+    SUBMIT("submit", 201),
+    /** {@code POST /api/sessions/{id}/restaurants} with a name the session already holds. */
+    DUPLICATE("duplicate", 409),
+    /** {@code GET /api/sessions/{id}}. */
+    GET("get", 200),
+    /** {@code POST /api/sessions/{id}/pick} by the first submitter. */
+    PICK("pick", 200);
+
+    private final String key;
+    private final int expectedStatus;
+
+    Endpoint(String key, int expectedStatus) {
+        this.key = key;
+        this.expectedStatus = expectedStatus;
+    }
+
+    String key() {
+        return key;
+    }
+
+    int expectedStatus() {
+        return expectedStatus;
+    }
+
+    static Endpoint fromKey(String key) {
+        for (Endpoint endpoint : values()) {
+            if (endpoint.key.equals(key)) {
+                return endpoint;
+            }
+        }
+        throw new IllegalArgumentException("Unknown endpoint '" + key + "'");
+    }
+}
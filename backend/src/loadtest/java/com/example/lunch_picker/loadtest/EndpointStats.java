@@ -0,0 +1,35 @@
+package com.example.lunch_picker.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency and error counts for one endpoint, safe to record into from the HTTP client threads.
+ * Latencies are kept in microseconds with three significant digits.
+ */
+final class EndpointStats {
+
+    private final Recorder recorder = new Recorder(3);
+    private final LongAdder errors = new LongAdder();
+
+    void record(long latencyNanos, boolean ok) {
+        recorder.recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+        if (!ok) {
+            errors.increment();
+        }
+    }
+
+    /**
+     * Everything recorded so far; call once, after the run has drained.
+     */
+    Histogram histogram() {
+        return recorder.getIntervalHistogram();
+    }
+
+    long errors() {
+        return errors.sum();
+    }
+}
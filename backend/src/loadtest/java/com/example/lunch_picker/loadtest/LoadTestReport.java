@@ -0,0 +1,130 @@
+package com.example.lunch_picker.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Per-endpoint results of a run, plus an {@code all} row across every endpoint.
+ * Percentiles are reported in milliseconds.
+ */
+final class LoadTestReport {
+
+    static final String ALL = "all";
+
+    private static final Map<String, Double> PERCENTILES = Map.of("p50", 50.0, "p95", 95.0, "p99", 99.0, "p999", 99.9);
+
+    private final Map<String, Histogram> histograms = new LinkedHashMap<>();
+    private final Map<String, Long> errors = new LinkedHashMap<>();
+    private final double seconds;
+
+    LoadTestReport(Map<Endpoint, EndpointStats> stats, Duration measured) {
+        this.seconds = measured.toNanos() / 1e9;
+        Histogram all = new Histogram(3);
+        long allErrors = 0;
+        for (Map.Entry<Endpoint, EndpointStats> entry : stats.entrySet()) {
+            Histogram histogram = entry.getValue().histogram();
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            histograms.put(entry.getKey().key(), histogram);
+            errors.put(entry.getKey().key(), entry.getValue().errors());
+            all.add(histogram);
+            allErrors += entry.getValue().errors();
+        }
+        histograms.put(ALL, all);
+        errors.put(ALL, allErrors);
+    }
+
+    void print(PrintStream out) {
+        out.printf("%-10s %9s %9s %8s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "req/s", "errors", "p50 ms", "p95 ms", "p99 ms", "p999 ms", "max ms");
+        histograms.forEach((endpoint, histogram) -> out.printf("%-10s %9d %9.1f %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                endpoint,
+                histogram.getTotalCount(),
+                throughput(endpoint),
+                errors.get(endpoint),
+                millis(histogram.getValueAtPercentile(50.0)),
+                millis(histogram.getValueAtPercentile(95.0)),
+                millis(histogram.getValueAtPercentile(99.0)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue())));
+    }
+
+    /**
+     * Writes one {@code <endpoint>.hgrm} percentile distribution per endpoint, in milliseconds,
+     * for plotting with the HdrHistogram tooling or diffing between runs.
+     */
+    void writeHistograms(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(entry.getKey() + ".hgrm")))) {
+                entry.getValue().outputPercentileDistribution(out, 1000.0);
+            }
+        }
+    }
+
+    /**
+     * Checks the run against a threshold file and returns every violation; empty means pass.
+     * <p>
+     * Keys are {@code <endpoint>.<metric>}, where the endpoint is one of the {@link Endpoint} keys or
+     * {@code all} and the metric is {@code p50}, {@code p95}, {@code p99} or {@code p999} (maximum
+     * milliseconds), {@code error-rate} (maximum failed share) or {@code throughput} (minimum requests
+     * per second). Thresholds for an endpoint that saw no traffic fail, so a mix change cannot
+     * silently skip them.
+     */
+    List<String> violations(Properties thresholds) {
+        List<String> violations = new ArrayList<>();
+        for (String key : thresholds.stringPropertyNames().stream().sorted().toList()) {
+            int dot = key.lastIndexOf('.');
+            if (dot < 0) {
+                throw new IllegalArgumentException("Threshold keys look like 'submit.p99', got '" + key + "'");
+            }
+            String endpoint = key.substring(0, dot);
+            String metric = key.substring(dot + 1);
+            double limit = Double.parseDouble(thresholds.getProperty(key).trim());
+
+            Histogram histogram = histograms.get(endpoint);
+            if (histogram == null) {
+                violations.add(key + ": no requests were made to '" + endpoint + "'");
+                continue;
+            }
+            if (PERCENTILES.containsKey(metric)) {
+                double actual = millis(histogram.getValueAtPercentile(PERCENTILES.get(metric)));
+                if (actual > limit) {
+                    violations.add(String.format("%s: %.2f ms > %.2f ms", key, actual, limit));
+                }
+            } else if ("error-rate".equals(metric)) {
+                double actual = (double) errors.get(endpoint) / histogram.getTotalCount();
+                if (actual > limit) {
+                    violations.add(String.format("%s: %.4f > %.4f", key, actual, limit));
+                }
+            } else if ("throughput".equals(metric)) {
+                double actual = throughput(endpoint);
+                if (actual < limit) {
+                    violations.add(String.format("%s: %.1f req/s < %.1f req/s", key, actual, limit));
+                }
+            } else {
+                throw new IllegalArgumentException("Unknown threshold metric '" + metric + "' in '" + key + "'");
+            }
+        }
+        return violations;
+    }
+
+    private double throughput(String endpoint) {
+        return histograms.get(endpoint).getTotalCount() / seconds;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
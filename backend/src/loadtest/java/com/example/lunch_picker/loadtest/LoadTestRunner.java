@@ -0,0 +1,112 @@
+package com.example.lunch_picker.loadtest;
+
+import com.example.lunch_picker.LunchPickerApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Entry point for the load-test profile.
+ * Boots the application in-process on a random port against the in-memory database, drives an
+ * open-loop workload at a fixed arrival rate over real HTTP, and reports throughput and latency
+ * percentiles per endpoint. Exits non-zero when the run breaks the threshold file.
+ *
+ * <p>The workload is configured with {@code -Dloadtest.*} properties; see {@link LoadTestSettings}.
+ */
+public final class LoadTestRunner {
+
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(30);
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        Properties thresholds = loadThresholds(settings);
+
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(LunchPickerApplication.class)
+                // Passed as arguments rather than default properties so they override application.yaml
+                .run("--server.port=0",
+                        "--spring.main.banner-mode=off",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.example.lunch_picker=WARN",
+                        "--logging.level.org.springframework.batch=WARN",
+                        "--logging.level.org.hibernate.SQL=OFF",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=OFF");
+
+        List<String> violations;
+        try {
+            URI baseUri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port"));
+            Workload workload = new Workload(baseUri, settings);
+            workload.seed();
+
+            System.out.printf("Load test: %d sessions x %d participants, %d req/s, %s warmup + %s measured, mix %s%n",
+                    settings.sessions(), settings.participants(), settings.rate(),
+                    settings.warmup(), settings.duration(), settings.mix());
+            run(workload, settings);
+
+            LoadTestReport report = new LoadTestReport(workload.stats(), settings.duration());
+            report.print(System.out);
+            report.writeHistograms(settings.outputDir());
+            System.out.println("Percentile distributions written to " + settings.outputDir().toAbsolutePath());
+            violations = report.violations(thresholds);
+        } finally {
+            context.close();
+        }
+
+        if (violations.isEmpty()) {
+            System.out.println("PASS: all thresholds in " + settings.thresholds() + " met");
+            return;
+        }
+        System.out.println("FAIL: " + violations.size() + " threshold(s) in " + settings.thresholds() + " broken");
+        violations.forEach(violation -> System.out.println("  " + violation));
+        System.exit(1);
+    }
+
+    /**
+     * Fires requests on a fixed schedule, independent of how fast earlier ones complete,
+     * so server slowdowns show up as latency instead of a quietly lower request rate.
+     */
+    private static void run(Workload workload, LoadTestSettings settings) throws InterruptedException {
+        long interval = TimeUnit.SECONDS.toNanos(1) / settings.rate();
+        long start = System.nanoTime();
+        long measureFrom = start + settings.warmup().toNanos();
+        long end = measureFrom + settings.duration().toNanos();
+        workload.measureFrom(measureFrom);
+
+        for (long tick = 0; ; tick++) {
+            long intended = start + tick * interval;
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            workload.fire(intended);
+        }
+
+        if (!workload.awaitInFlight(DRAIN_TIMEOUT)) {
+            System.err.println("Requests still outstanding after " + DRAIN_TIMEOUT + "; they are not in the report");
+        }
+    }
+
+    private static Properties loadThresholds(LoadTestSettings settings) throws IOException {
+        Properties thresholds = new Properties();
+        try (InputStream in = Files.newInputStream(settings.thresholds())) {
+            thresholds.load(in);
+        }
+        return thresholds;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.lunch_picker.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Workload shape, read from {@code loadtest.*} system properties.
+ *
+ * @param sessions     open sessions kept in play at any time
+ * @param participants distinct users submitting to each session
+ * @param rate         requests per second, issued on schedule whether or not earlier ones have completed
+ * @param warmup       leading part of the run that is executed but not measured
+ * @param duration     measured part of the run
+ * @param mix          relative weight of each scheduled endpoint
+ * @param thresholds   pass/fail threshold file
+ * @param outputDir    where the HdrHistogram percentile distributions are written
+ */
+record LoadTestSettings(int sessions,
+                        int participants,
+                        int rate,
+                        Duration warmup,
+                        Duration duration,
+                        Map<Endpoint, Integer> mix,
+                        Path thresholds,
+                        Path outputDir) {
+
+    static final String DEFAULT_MIX = "submit=50,duplicate=10,get=35,pick=5";
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Integer.parseInt(property("sessions", "50")),
+                Integer.parseInt(property("participants", "8")),
+                Integer.parseInt(property("rate", "200")),
+                DurationStyle.detectAndParse(property("warmup", "10s")),
+                DurationStyle.detectAndParse(property("duration", "30s")),
+                parseMix(property("mix", DEFAULT_MIX)),
+                Path.of(property("thresholds", "src/loadtest/thresholds.properties")),
+                Path.of(property("output", "target/loadtest")));
+    }
+
+    static Map<Endpoint, Integer> parseMix(String mix) {
+        Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Mix entries look like 'submit=50', got '" + entry + "'");
+            }
+            Endpoint endpoint = Endpoint.fromKey(parts[0].trim());
+            if (endpoint == Endpoint.CREATE) {
+                throw new IllegalArgumentException("Sessions are created by the harness, not the mix");
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                weights.put(endpoint, weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("Mix has no positive weights: " + mix);
+        }
+        return weights;
+    }
+
+    private static String property(String name, String defaultValue) {
+        String value = System.getProperty("loadtest." + name);
+        return value == null || value.isBlank() ? defaultValue : value;
+    }
+}
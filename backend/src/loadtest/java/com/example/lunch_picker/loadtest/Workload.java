@@ -0,0 +1,279 @@
+package com.example.lunch_picker.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+/**
+ * Keeps {@code sessions} open sessions in play and turns each scheduled tick into one request.
+ * <p>
+ * Every session is created with a seed restaurant from its first participant, so that participant
+ * can always pick and there is always a name to resubmit as a duplicate. A pick retires its session
+ * and a replacement is created in the background; submits that were already in flight against the
+ * retired session may then see 409 Conflict, which is not counted as an error.
+ */
+final class Workload {
+
+    private static final List<String> CREATORS = List.of("alice", "bob", "charlie", "david", "eve");
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final URI baseUri;
+    private final LoadTestSettings settings;
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+    private final Endpoint[] scheduled;
+    private final int[] cumulativeWeights;
+    private final List<AtomicReference<SessionHandle>> slots;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger generation = new AtomicInteger();
+    private volatile long measureFromNanos = Long.MAX_VALUE;
+
+    Workload(URI baseUri, LoadTestSettings settings) {
+        this.baseUri = baseUri;
+        this.settings = settings;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(REQUEST_TIMEOUT)
+                .build();
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new EndpointStats());
+        }
+
+        scheduled = settings.mix().keySet().toArray(Endpoint[]::new);
+        cumulativeWeights = new int[scheduled.length];
+        int total = 0;
+        for (int i = 0; i < scheduled.length; i++) {
+            total += settings.mix().get(scheduled[i]);
+            cumulativeWeights[i] = total;
+        }
+
+        List<AtomicReference<SessionHandle>> slotList = new ArrayList<>(settings.sessions());
+        for (int i = 0; i < settings.sessions(); i++) {
+            slotList.add(new AtomicReference<>());
+        }
+        slots = Collections.unmodifiableList(slotList);
+    }
+
+    /**
+     * Creates the initial sessions; blocks until all of them are ready.
+     */
+    void seed() {
+        CompletableFuture<?>[] created = new CompletableFuture<?>[slots.size()];
+        for (int i = 0; i < slots.size(); i++) {
+            created[i] = replace(i);
+        }
+        CompletableFuture.allOf(created).join();
+    }
+
+    /**
+     * Only requests scheduled at or after this instant are recorded.
+     */
+    void measureFrom(long nanoTime) {
+        measureFromNanos = nanoTime;
+    }
+
+    Map<Endpoint, EndpointStats> stats() {
+        return stats;
+    }
+
+    /**
+     * Issues the request scheduled for {@code intendedNanos}. Latency is taken from the scheduled time
+     * rather than the send time, so a stalled server is not hidden by requests queueing in the client.
+     */
+    void fire(long intendedNanos) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Endpoint endpoint = nextEndpoint(random);
+        int slot = random.nextInt(slots.size());
+        SessionHandle session = liveSession(slot);
+        if (session == null) {
+            // Every session is being replaced; rare enough to just skip the tick
+            return;
+        }
+
+        switch (endpoint) {
+            case SUBMIT -> {
+                String restaurant = "Restaurant " + session.id.substring(0, 8) + "-" + session.sequence.incrementAndGet();
+                send(Endpoint.SUBMIT, intendedNanos, submitRequest(session.id, restaurant, participant(session, random)),
+                        response -> {
+                            if (response.statusCode() == Endpoint.SUBMIT.expectedStatus()) {
+                                session.restaurants.add(restaurant);
+                                return true;
+                            }
+                            return response.statusCode() == 409 && session.retired.get();
+                        });
+            }
+            case DUPLICATE -> {
+                String restaurant = session.anyRestaurant(random);
+                send(Endpoint.DUPLICATE, intendedNanos, submitRequest(session.id, restaurant, participant(session, random)),
+                        response -> response.statusCode() == Endpoint.DUPLICATE.expectedStatus());
+            }
+            case GET -> send(Endpoint.GET, intendedNanos,
+                    request("/api/sessions/" + session.id + "?view=summary").GET().build(),
+                    response -> response.statusCode() == Endpoint.GET.expectedStatus());
+            case PICK -> {
+                if (!session.retired.compareAndSet(false, true) || !slots.get(slot).compareAndSet(session, null)) {
+                    return;
+                }
+                send(Endpoint.PICK, intendedNanos,
+                        request("/api/sessions/" + session.id + "/pick?user=" + session.firstSubmitter)
+                                .POST(HttpRequest.BodyPublishers.noBody()).build(),
+                        response -> response.statusCode() == Endpoint.PICK.expectedStatus())
+                        .whenComplete((ok, error) -> replace(slot));
+            }
+            default -> throw new IllegalStateException("Not a scheduled endpoint: " + endpoint);
+        }
+    }
+
+    /**
+     * Waits for outstanding requests, including session replacements, to finish.
+     */
+    boolean awaitInFlight(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (inFlight.get() > 0) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    private CompletableFuture<Boolean> replace(int slot) {
+        String creator = CREATORS.get(Math.floorMod(generation.getAndIncrement(), CREATORS.size()));
+        long started = System.nanoTime();
+        inFlight.incrementAndGet();
+        return client.sendAsync(request("/api/sessions?user=" + creator)
+                        .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString())
+                .thenCompose(response -> {
+                    record(Endpoint.CREATE, started, response.statusCode() == Endpoint.CREATE.expectedStatus());
+                    SessionHandle session = new SessionHandle(sessionId(response), "user-" + slot + "-");
+                    String seed = "Seed " + session.id.substring(0, 8);
+                    return client.sendAsync(submitRequest(session.id, seed, session.firstSubmitter),
+                                    HttpResponse.BodyHandlers.discarding())
+                            .thenApply(seeded -> {
+                                if (seeded.statusCode() != Endpoint.SUBMIT.expectedStatus()) {
+                                    throw new IllegalStateException("Seeding session " + session.id
+                                            + " returned " + seeded.statusCode());
+                                }
+                                session.restaurants.add(seed);
+                                slots.get(slot).set(session);
+                                return true;
+                            });
+                })
+                .whenComplete((ok, error) -> {
+                    inFlight.decrementAndGet();
+                    if (error != null) {
+                        record(Endpoint.CREATE, started, false);
+                        System.err.println("Could not replace session in slot " + slot + ": " + error);
+                    }
+                });
+    }
+
+    private CompletableFuture<Boolean> send(Endpoint endpoint, long intendedNanos, HttpRequest request,
+                                            Predicate<HttpResponse<Void>> success) {
+        inFlight.incrementAndGet();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, error) -> {
+                    boolean ok = error == null && success.test(response);
+                    record(endpoint, intendedNanos, ok);
+                    inFlight.decrementAndGet();
+                    return ok;
+                });
+    }
+
+    private void record(Endpoint endpoint, long startNanos, boolean ok) {
+        if (startNanos >= measureFromNanos) {
+            stats.get(endpoint).record(System.nanoTime() - startNanos, ok);
+        }
+    }
+
+    private SessionHandle liveSession(int preferred) {
+        for (int i = 0; i < slots.size(); i++) {
+            SessionHandle session = slots.get((preferred + i) % slots.size()).get();
+            if (session != null) {
+                return session;
+            }
+        }
+        return null;
+    }
+
+    private Endpoint nextEndpoint(ThreadLocalRandom random) {
+        int roll = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (roll < cumulativeWeights[i]) {
+                return scheduled[i];
+            }
+        }
+        return scheduled[scheduled.length - 1];
+    }
+
+    private String participant(SessionHandle session, ThreadLocalRandom random) {
+        return session.participantPrefix + random.nextInt(settings.participants());
+    }
+
+    private HttpRequest submitRequest(String sessionId, String restaurant, String user) {
+        String body;
+        try {
+            body = objectMapper.writeValueAsString(Map.of("restaurant", restaurant, "user", user));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return request("/api/sessions/" + sessionId + "/restaurants")
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path)).timeout(REQUEST_TIMEOUT);
+    }
+
+    private String sessionId(HttpResponse<String> response) {
+        if (response.statusCode() != Endpoint.CREATE.expectedStatus()) {
+            throw new IllegalStateException("Creating a session returned " + response.statusCode() + ": " + response.body());
+        }
+        try {
+            return objectMapper.readTree(response.body()).get("id").asText();
+        } catch (Exception e) {
+            throw new IllegalStateException("Unreadable session response: " + response.body(), e);
+        }
+    }
+
+    private static final class SessionHandle {
+
+        private final String id;
+        private final String participantPrefix;
+        private final String firstSubmitter;
+        private final List<String> restaurants = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger sequence = new AtomicInteger();
+        private final AtomicBoolean retired = new AtomicBoolean();
+
+        private SessionHandle(String id, String participantPrefix) {
+            this.id = id;
+            this.participantPrefix = participantPrefix;
+            this.firstSubmitter = participantPrefix + 0;
+        }
+
+        String anyRestaurant(ThreadLocalRandom random) {
+            synchronized (restaurants) {
+                return restaurants.get(random.nextInt(restaurants.size()));
+            }
+        }
+    }
+}
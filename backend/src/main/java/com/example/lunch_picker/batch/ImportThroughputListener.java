@@ -0,0 +1,35 @@
+package com.example.lunch_picker.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Records how fast a step moved items into its execution context, so import throughput can be
+ * read back from the job repository after the run.
+ */
+@Slf4j
+public class ImportThroughputListener implements StepExecutionListener {
+
+    public static final String ITEMS_PER_SECOND = "throughput.itemsPerSecond";
+    public static final String ELAPSED_MILLIS = "throughput.elapsedMillis";
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        LocalDateTime start = stepExecution.getStartTime();
+        long elapsedMillis = start == null ? 0 : Math.max(1, Duration.between(start, LocalDateTime.now()).toMillis());
+        long items = stepExecution.getReadCount();
+        double itemsPerSecond = elapsedMillis == 0 ? 0 : items * 1000.0 / elapsedMillis;
+
+        stepExecution.getExecutionContext().putLong(ELAPSED_MILLIS, elapsedMillis);
+        stepExecution.getExecutionContext().putDouble(ITEMS_PER_SECOND, itemsPerSecond);
+        log.info("Step '{}' processed {} items ({} written, {} unchanged) in {} ms: {} items/s",
+                stepExecution.getStepName(), items, stepExecution.getWriteCount(),
+                stepExecution.getFilterCount(), elapsedMillis, Math.round(itemsPerSecond));
+        return null;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.lunch_picker.batch;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.file.LineMapper;
+import org.springframework.batch.item.support.AbstractItemStreamItemReader;
+import org.springframework.core.io.Resource;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the lines of one {@link LineRangePartitioner} byte range of a UTF-8 file.
+ * <p>
+ * The reader skips straight to its start offset instead of reading and discarding the lines before
+ * it, which a file-backed stream does with a seek. The current offset is saved with each chunk, so
+ * a restarted partition resumes where it stopped in the same way.
+ */
+public class LineRangeItemReader<T> extends AbstractItemStreamItemReader<T> {
+
+    private static final String CURRENT_OFFSET = "currentOffset";
+
+    private final Resource resource;
+    private final long startOffset;
+    private final long endOffset;
+    private final LineMapper<T> lineMapper;
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+
+    private InputStream in;
+    private long position;
+    private int lineNumber;
+
+    public LineRangeItemReader(Resource resource, long startOffset, long endOffset, LineMapper<T> lineMapper) {
+        this.resource = resource;
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+        this.lineMapper = lineMapper;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) {
+        position = executionContext.getLong(getExecutionContextKey(CURRENT_OFFSET), startOffset);
+        try {
+            in = new BufferedInputStream(resource.getInputStream(), 1 << 16);
+            in.skipNBytes(position);
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to open " + resource + " at offset " + position, e);
+        }
+    }
+
+    @Override
+    public T read() throws Exception {
+        if (position >= endOffset) {
+            return null;
+        }
+        line.reset();
+        while (position < endOffset) {
+            int b = in.read();
+            if (b == -1) {
+                // The file shrank since it was partitioned; end the range with what was read
+                position = endOffset;
+                break;
+            }
+            position++;
+            if (b == '\n') {
+                break;
+            }
+            line.write(b);
+        }
+        String text = line.toString(StandardCharsets.UTF_8);
+        if (text.endsWith("\r")) {
+            text = text.substring(0, text.length() - 1);
+        }
+        return lineMapper.mapLine(text, ++lineNumber);
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) {
+        executionContext.putLong(getExecutionContextKey(CURRENT_OFFSET), position);
+    }
+
+    @Override
+    public void close() {
+        if (in == null) {
+            return;
+        }
+        try {
+            in.close();
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to close " + resource, e);
+        } finally {
+            in = null;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.lunch_picker.batch;
+
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.core.io.Resource;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Splits a line-oriented file into contiguous byte ranges of roughly equal size, each starting at
+ * the beginning of a line. Each partition gets {@link #START_OFFSET} (inclusive) and
+ * {@link #END_OFFSET} (exclusive) in its execution context; the header lines are not in any range.
+ * <p>
+ * Only the bytes around each cut are read, so partitioning costs O(grid size) rather than a pass
+ * over the file, and a {@link LineRangeItemReader} can seek straight to its range.
+ */
+public class LineRangePartitioner implements Partitioner {
+
+    public static final String START_OFFSET = "startOffset";
+    public static final String END_OFFSET = "endOffset";
+
+    private final Resource resource;
+    private final int headerLines;
+
+    public LineRangePartitioner(Resource resource, int headerLines) {
+        this.resource = resource;
+        this.headerLines = headerLines;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        try {
+            long length = resource.contentLength();
+            long dataStart = lineStartAfter(0, headerLines, length);
+            long rangeSize = Math.max(1, (length - dataStart + gridSize - 1) / gridSize);
+
+            Map<String, ExecutionContext> contexts = new HashMap<>();
+            long start = dataStart;
+            do {
+                // Cut after the line that crosses the tentative boundary, so no line is split
+                long end = start + rangeSize >= length ? length : lineStartAfter(start + rangeSize - 1, 1, length);
+                ExecutionContext context = new ExecutionContext();
+                context.putLong(START_OFFSET, start);
+                context.putLong(END_OFFSET, end);
+                contexts.put("partition" + contexts.size(), context);
+                start = end;
+            } while (start < length);
+            return contexts;
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to partition " + resource, e);
+        }
+    }
+
+    /**
+     * Offset just past the {@code lines}-th line end found from {@code from}, or the file length.
+     */
+    private long lineStartAfter(long from, int lines, long length) throws IOException {
+        if (lines == 0) {
+            return from;
+        }
+        try (InputStream in = new BufferedInputStream(resource.getInputStream())) {
+            in.skipNBytes(from);
+            long position = from;
+            int remaining = lines;
+            int b;
+            while ((b = in.read()) != -1) {
+                position++;
+                if (b == '\n' && --remaining == 0) {
+                    return position;
+                }
+            }
+            return length;
+        }
+    }
+}
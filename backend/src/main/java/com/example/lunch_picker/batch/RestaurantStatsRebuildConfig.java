@@ -0,0 +1,174 @@
+package com.example.lunch_picker.batch;
+
+import com.example.lunch_picker.service.RestaurantStatsCollector;
+import com.example.lunch_picker.service.RestaurantStatsService;
+import com.example.lunch_picker.service.RestaurantSuggester;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+/**
+ * Recomputes the {@code restaurant_stats} summary from every live and archived session.
+ * <p>
+ * Teams are split across partitions that recount and write their own rows to a staging table in
+ * parallel; the last step swaps the staged rows in with one transaction, so the summary stays
+ * readable throughout. Flushing of live counts is paused for the whole job, and each partition sets
+ * aside its teams' live counts just before scanning, so a submit or pick is counted either by the
+ * scan or afterwards, never both. The job is launched by {@link RestaurantStatsRebuildScheduler}.
+ */
+@Slf4j
+@Configuration
+public class RestaurantStatsRebuildConfig {
+
+    @Value("${app.stats.rebuild.grid-size:4}")
+    private int gridSize;
+
+
+    @Bean
+    public Tasklet clearRestaurantStatsStagingTasklet(RestaurantStatsService statsService) {
+        return (contribution, chunkContext) -> {
+            statsService.clearStaging();
+            return RepeatStatus.FINISHED;
+        };
+    }
+
+
+    @Bean
+    @StepScope
+    public Tasklet rebuildRestaurantStatsTasklet(RestaurantStatsService statsService,
+                                                 RestaurantStatsCollector statsCollector,
+                                                 @Value("#{stepExecutionContext['" + TeamPartitioner.TEAMS + "']}") List<String> teams) {
+        return (contribution, chunkContext) -> {
+            RestaurantStatsCollector.Watermark watermark = statsCollector.hold(teams);
+            contribution.incrementWriteCount(statsService.rebuildTeams(teams, watermark));
+            return RepeatStatus.FINISHED;
+        };
+    }
+
+
+    @Bean
+    public Tasklet swapRestaurantStatsTasklet(RestaurantStatsService statsService) {
+        return (contribution, chunkContext) -> {
+            contribution.incrementWriteCount(statsService.publishStaging());
+            return RepeatStatus.FINISHED;
+        };
+    }
+
+
+    @Bean
+    public TeamPartitioner restaurantStatsPartitioner(RestaurantStatsService statsService) {
+        return new TeamPartitioner(statsService::findTeams);
+    }
+
+
+    @Bean
+    public TaskExecutor restaurantStatsRebuildExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("stats-rebuild-");
+        executor.setConcurrencyLimit(gridSize);
+        return executor;
+    }
+
+
+    @Bean
+    public Step clearRestaurantStatsStagingStep(JobRepository jobRepository,
+                                                PlatformTransactionManager transactionManager,
+                                                Tasklet clearRestaurantStatsStagingTasklet) {
+        return new StepBuilder("clearRestaurantStatsStagingStep", jobRepository)
+                .tasklet(clearRestaurantStatsStagingTasklet, transactionManager)
+                .build();
+    }
+
+
+    @Bean
+    public Step rebuildRestaurantStatsPartitionStep(JobRepository jobRepository,
+                                                    PlatformTransactionManager transactionManager,
+                                                    Tasklet rebuildRestaurantStatsTasklet) {
+        return new StepBuilder("rebuildRestaurantStatsPartitionStep", jobRepository)
+                .tasklet(rebuildRestaurantStatsTasklet, transactionManager)
+                .build();
+    }
+
+
+    @Bean
+    public Step rebuildRestaurantStatsStep(JobRepository jobRepository,
+                                           TeamPartitioner restaurantStatsPartitioner,
+                                           Step rebuildRestaurantStatsPartitionStep,
+                                           TaskExecutor restaurantStatsRebuildExecutor) {
+        return new StepBuilder("rebuildRestaurantStatsStep", jobRepository)
+                .partitioner(rebuildRestaurantStatsPartitionStep.getName(), restaurantStatsPartitioner)
+                .step(rebuildRestaurantStatsPartitionStep)
+                .gridSize(gridSize)
+                .taskExecutor(restaurantStatsRebuildExecutor)
+                .build();
+    }
+
+
+    @Bean
+    public Step swapRestaurantStatsStep(JobRepository jobRepository,
+                                        PlatformTransactionManager transactionManager,
+                                        Tasklet swapRestaurantStatsTasklet) {
+        return new StepBuilder("swapRestaurantStatsStep", jobRepository)
+                .tasklet(swapRestaurantStatsTasklet, transactionManager)
+                .build();
+    }
+
+
+    /**
+     * Holds back flushes of live counts while the summary is being rebuilt, and reloads name
+     * suggestions from the rebuilt summary.
+     */
+    @Bean
+    public JobExecutionListener restaurantStatsFlushPauser(RestaurantStatsCollector statsCollector,
+                                                           RestaurantSuggester suggester) {
+        return new JobExecutionListener() {
+            @Override
+            public void beforeJob(JobExecution jobExecution) {
+                statsCollector.pause();
+            }
+
+            @Override
+            public void afterJob(JobExecution jobExecution) {
+                boolean rebuilt = jobExecution.getStatus() == BatchStatus.COMPLETED;
+                statsCollector.resume(rebuilt);
+                if (rebuilt) {
+                    // Submissions after the scan are only in the live counts; flush them so the reload sees them
+                    statsCollector.flush();
+                    suggester.reload();
+                }
+                log.info("Restaurant stats rebuild finished with status {}", jobExecution.getStatus());
+            }
+        };
+    }
+
+
+    @Bean
+    public Job rebuildRestaurantStatsJob(JobRepository jobRepository,
+                                         Step clearRestaurantStatsStagingStep,
+                                         Step rebuildRestaurantStatsStep,
+                                         Step swapRestaurantStatsStep,
+                                         JobExecutionListener restaurantStatsFlushPauser) {
+        return new JobBuilder("rebuildRestaurantStatsJob", jobRepository)
+                .listener(restaurantStatsFlushPauser)
+                .start(clearRestaurantStatsStagingStep)
+                .next(rebuildRestaurantStatsStep)
+                .next(swapRestaurantStatsStep)
+                .build();
+    }
+}
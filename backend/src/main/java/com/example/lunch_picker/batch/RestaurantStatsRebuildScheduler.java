@@ -0,0 +1,48 @@
+package com.example.lunch_picker.batch;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Launches the restaurant stats rebuild once the application is ready, so the summary matches
+ * whatever history was loaded at startup, and then on an optional cron schedule.
+ */
+@Component
+@RequiredArgsConstructor
+public class RestaurantStatsRebuildScheduler {
+
+    private final JobLauncher jobLauncher;
+    private final Job rebuildRestaurantStatsJob;
+
+    @Value("${app.stats.rebuild.on-startup:true}")
+    private boolean onStartup;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() throws Exception {
+        if (onStartup) {
+            rebuild();
+        }
+    }
+
+    @Scheduled(cron = "${app.stats.rebuild.cron:-}")
+    public void rebuildOnSchedule() throws Exception {
+        rebuild();
+    }
+
+    /**
+     * Recomputes the summary from all live and archived sessions.
+     */
+    public JobExecution rebuild() throws Exception {
+        return jobLauncher.run(rebuildRestaurantStatsJob, new JobParametersBuilder()
+                .addLong("run.time", System.currentTimeMillis())
+                .toJobParameters());
+    }
+}
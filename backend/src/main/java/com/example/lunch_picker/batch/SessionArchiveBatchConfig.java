@@ -0,0 +1,84 @@
+package com.example.lunch_picker.batch;
+
+import com.example.lunch_picker.service.SessionArchiveService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+
+/**
+ * Moves sessions that have been closed for longer than the retention period into the
+ * archive table, so the live tables only hold recent sessions.
+ * <p>
+ * Each tasklet iteration archives one batch in its own transaction. Totals of what was moved and
+ * how much choice data it shrank to are kept in the step's execution context. The job is launched
+ * by {@link SessionArchiveScheduler}.
+ */
+@Slf4j
+@Configuration
+public class SessionArchiveBatchConfig {
+
+    public static final String CUTOFF = "cutoff";
+    public static final String ARCHIVED_SESSIONS = "archive.sessions";
+    public static final String ARCHIVED_CHOICES = "archive.choices";
+    public static final String LIVE_BYTES = "archive.liveBytes";
+    public static final String ARCHIVED_BYTES = "archive.archivedBytes";
+
+    @Value("${app.archive.batch-size:500}")
+    private int batchSize;
+
+
+    @Bean
+    @StepScope
+    public Tasklet archiveSessionsTasklet(SessionArchiveService archiveService,
+                                          @Value("#{jobParameters['" + CUTOFF + "']}") LocalDateTime cutoff) {
+        return (contribution, chunkContext) -> {
+            SessionArchiveService.ArchiveBatch batch = archiveService.archiveClosedBefore(cutoff, batchSize);
+
+            ExecutionContext context = contribution.getStepExecution().getExecutionContext();
+            context.putLong(ARCHIVED_SESSIONS, context.getLong(ARCHIVED_SESSIONS, 0) + batch.getSessions());
+            context.putLong(ARCHIVED_CHOICES, context.getLong(ARCHIVED_CHOICES, 0) + batch.getChoices());
+            context.putLong(LIVE_BYTES, context.getLong(LIVE_BYTES, 0) + batch.getLiveBytes());
+            context.putLong(ARCHIVED_BYTES, context.getLong(ARCHIVED_BYTES, 0) + batch.getArchivedBytes());
+            contribution.incrementWriteCount(batch.getSessions());
+
+            if (batch.getSessions() < batchSize) {
+                log.info("Archived {} sessions closed before {} ({} choices, {} bytes of choice data packed into {})",
+                        context.getLong(ARCHIVED_SESSIONS), cutoff, context.getLong(ARCHIVED_CHOICES),
+                        context.getLong(LIVE_BYTES), context.getLong(ARCHIVED_BYTES));
+                return RepeatStatus.FINISHED;
+            }
+            return RepeatStatus.CONTINUABLE;
+        };
+    }
+
+
+    @Bean
+    public Step archiveSessionsStep(JobRepository jobRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    Tasklet archiveSessionsTasklet) {
+        return new StepBuilder("archiveSessionsStep", jobRepository)
+                .tasklet(archiveSessionsTasklet, transactionManager)
+                .build();
+    }
+
+
+    @Bean
+    public Job archiveSessionsJob(JobRepository jobRepository, Step archiveSessionsStep) {
+        return new JobBuilder("archiveSessionsJob", jobRepository)
+                .start(archiveSessionsStep)
+                .build();
+    }
+}
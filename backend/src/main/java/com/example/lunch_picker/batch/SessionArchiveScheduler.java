@@ -0,0 +1,48 @@
+package com.example.lunch_picker.batch;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Launches the session archive job on a cron schedule.
+ */
+@Component
+@EnableScheduling
+@RequiredArgsConstructor
+public class SessionArchiveScheduler {
+
+    private final JobLauncher jobLauncher;
+    private final Job archiveSessionsJob;
+
+    @Value("${app.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.archive.retention:7d}")
+    private Duration retention;
+
+    @Scheduled(cron = "${app.archive.cron:0 0 3 * * *}")
+    public void archiveOnSchedule() throws Exception {
+        if (enabled) {
+            archiveClosedBefore(LocalDateTime.now().minus(retention));
+        }
+    }
+
+    /**
+     * Archives every session closed before {@code cutoff}.
+     */
+    public JobExecution archiveClosedBefore(LocalDateTime cutoff) throws Exception {
+        return jobLauncher.run(archiveSessionsJob, new JobParametersBuilder()
+                .addLocalDateTime(SessionArchiveBatchConfig.CUTOFF, cutoff)
+                .toJobParameters());
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.lunch_picker.batch;
+
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Deals teams out round-robin into disjoint partitions, so no two partitions ever write the same
+ * summary row. Each partition gets its teams as a list under {@link #TEAMS}.
+ */
+public class TeamPartitioner implements Partitioner {
+
+    public static final String TEAMS = "teams";
+
+    private final Supplier<List<String>> teams;
+
+    public TeamPartitioner(Supplier<List<String>> teams) {
+        this.teams = teams;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        List<String> all = teams.get().stream().sorted().toList();
+        int partitions = Math.max(1, Math.min(gridSize, all.size()));
+
+        List<ArrayList<String>> slices = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            slices.add(new ArrayList<>());
+        }
+        for (int i = 0; i < all.size(); i++) {
+            slices.get(i % partitions).add(all.get(i));
+        }
+
+        Map<String, ExecutionContext> contexts = new HashMap<>();
+        for (int i = 0; i < partitions; i++) {
+            ExecutionContext context = new ExecutionContext();
+            context.put(TEAMS, slices.get(i));
+            contexts.put("partition" + i, context);
+        }
+        return contexts;
+    }
+}
@@ -1,78 +1,273 @@
 package com.example.lunch_picker.batch;
 
 import com.example.lunch_picker.model.User;
-import jakarta.persistence.EntityManagerFactory;
+import com.example.lunch_picker.service.UserDirectory;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.Job;
-import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParametersBuilder;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.explore.JobExplorer;
 import org.springframework.batch.core.job.builder.JobBuilder;
 import org.springframework.batch.core.launch.JobLauncher;
 import org.springframework.batch.core.launch.support.RunIdIncrementer;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.core.step.builder.StepBuilder;
-import org.springframework.batch.item.database.JpaItemWriter;
-import org.springframework.batch.item.file.FlatFileItemReader;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.database.JdbcBatchItemWriter;
+import org.springframework.batch.item.database.builder.JdbcBatchItemWriterBuilder;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.ResourceUtils;
 
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Imports the pre-defined users from a CSV file (first column is the username, first line is a header).
+ * <p>
+ * The file may come from the classpath or the filesystem ({@code file:} prefix) and is named by the
+ * {@link #SOURCE} job parameter. It is split into line-aligned byte ranges that are read and written
+ * in parallel; each partition seeks straight to its range and upserts large chunks through JDBC
+ * batches. In delta mode, users already known to the {@link UserDirectory} are filtered out
+ * before they reach the database.
+ * <p>
+ * The job parameters record the file's SHA-256. At startup the import is skipped altogether when the
+ * latest import completed on a file with the same checksum; the job metadata lives in the same
+ * database as the users, so an unchanged file means the users are already there.
+ */
+@Slf4j
 @Configuration
 @RequiredArgsConstructor
 public class UserBatchConfig {
 
-    private final EntityManagerFactory emf;
+    /**
+     * Username upsert in standard SQL MERGE form; existing rows are left untouched.
+     */
+    private static final String UPSERT_USER = """
+            MERGE INTO app_user u
+            USING (VALUES (:username)) AS s(username)
+            ON u.username = s.username
+            WHEN NOT MATCHED THEN INSERT (username) VALUES (s.username)
+            """;
+
+    /**
+     * Job parameter holding the location of the file to import.
+     */
+    public static final String SOURCE = "source";
+
+    private static final String CHECKSUM = "checksum";
+
     private final JobLauncher jobLauncher;
+    private final JobExplorer jobExplorer;
+    private final ResourceLoader resourceLoader;
 
     @Value("${app.users.csv-path}")
     private String usersCsvPath;
 
+    @Value("${app.users.import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${app.users.import.grid-size:4}")
+    private int gridSize;
+
+    @Value("${app.users.import.delta:true}")
+    private boolean deltaMode;
+
+    @Value("${app.users.import.skip-unchanged:false}")
+    private boolean skipUnchanged;
+
+
+    @Bean
+    public Resource usersCsv() {
+        return resolve(usersCsvPath);
+    }
+
+
+    @Bean
+    @StepScope
+    public LineRangePartitioner userFilePartitioner(@Value("#{jobParameters['" + SOURCE + "']}") String source) {
+        return new LineRangePartitioner(resolve(source), 1);
+    }
+
 
     @Bean
-    public FlatFileItemReader<User> userReader() {
-        FlatFileItemReader<User> reader = new FlatFileItemReader<>();
-        reader.setResource(new ClassPathResource(usersCsvPath));
-        reader.setLinesToSkip(1);
-        reader.setLineMapper((line, lineNumber) -> new User(line.trim()));
+    @StepScope
+    public LineRangeItemReader<User> userReader(@Value("#{jobParameters['" + SOURCE + "']}") String source,
+                                                @Value("#{stepExecutionContext['" + LineRangePartitioner.START_OFFSET + "']}") Long startOffset,
+                                                @Value("#{stepExecutionContext['" + LineRangePartitioner.END_OFFSET + "']}") Long endOffset) {
+        LineRangeItemReader<User> reader = new LineRangeItemReader<>(resolve(source), startOffset, endOffset,
+                (line, lineNumber) -> {
+                    int comma = line.indexOf(',');
+                    return new User((comma < 0 ? line : line.substring(0, comma)).trim());
+                });
+        reader.setName("userReader");
         return reader;
     }
 
 
     @Bean
-    public JpaItemWriter<User> userWriter() {
-        JpaItemWriter<User> writer = new JpaItemWriter<>();
-        writer.setEntityManagerFactory(emf);
-        return writer;
+    public ItemProcessor<User, User> userProcessor(UserDirectory userDirectory) {
+        return user -> {
+            if (user.getUsername().isEmpty()) {
+                return null;
+            }
+            // Delta mode: a user already in the directory has nothing to change
+            if (deltaMode && userDirectory.contains(user.getUsername())) {
+                return null;
+            }
+            return user;
+        };
+    }
+
+
+    @Bean
+    public JdbcBatchItemWriter<User> userWriter(DataSource dataSource) {
+        return new JdbcBatchItemWriterBuilder<User>()
+                .dataSource(dataSource)
+                .sql(UPSERT_USER)
+                .beanMapped()
+                .assertUpdates(false)
+                .build();
+    }
+
+
+    @Bean
+    public TaskExecutor userImportExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("user-import-");
+        executor.setConcurrencyLimit(gridSize);
+        return executor;
+    }
+
+
+    @Bean
+    public ImportThroughputListener importThroughputListener() {
+        return new ImportThroughputListener();
+    }
+
+
+    @Bean
+    public Step loadUsersPartitionStep(JobRepository jobRepository,
+                                       PlatformTransactionManager transactionManager,
+                                       LineRangeItemReader<User> userReader,
+                                       ItemProcessor<User, User> userProcessor,
+                                       JdbcBatchItemWriter<User> userWriter,
+                                       ImportThroughputListener importThroughputListener) {
+        return new StepBuilder("loadUsersPartitionStep", jobRepository)
+                .<User, User>chunk(chunkSize, transactionManager)
+                .reader(userReader)
+                .processor(userProcessor)
+                .writer(userWriter)
+                .listener(importThroughputListener)
+                .build();
     }
 
 
     @Bean
     public Step loadUsersStep(JobRepository jobRepository,
-                              PlatformTransactionManager transactionManager,
-                              FlatFileItemReader<User> reader,
-                              JpaItemWriter<User> writer) {
+                              LineRangePartitioner userFilePartitioner,
+                              Step loadUsersPartitionStep,
+                              TaskExecutor userImportExecutor,
+                              ImportThroughputListener importThroughputListener) {
         return new StepBuilder("loadUsersStep", jobRepository)
-                .<User, User>chunk(10, transactionManager)
-                .reader(reader)
-                .writer(writer)
+                .partitioner(loadUsersPartitionStep.getName(), userFilePartitioner)
+                .step(loadUsersPartitionStep)
+                .gridSize(gridSize)
+                .taskExecutor(userImportExecutor)
+                .listener(importThroughputListener)
                 .build();
     }
 
 
+    /**
+     * Swaps the in-memory user directory once an import has completed.
+     */
+    @Bean
+    public JobExecutionListener userDirectoryRefresher(UserDirectory userDirectory) {
+        return new JobExecutionListener() {
+            @Override
+            public void afterJob(JobExecution jobExecution) {
+                if (jobExecution.getStatus() == BatchStatus.COMPLETED) {
+                    userDirectory.refresh();
+                }
+            }
+        };
+    }
+
+
     @Bean
     public Job loadUsersJob(JobRepository jobRepository,
-                            Step loadUsersStep) {
+                            Step loadUsersStep,
+                            JobExecutionListener userDirectoryRefresher) {
         return new JobBuilder("loadUsersJob", jobRepository)
                 .incrementer(new RunIdIncrementer())
+                .listener(userDirectoryRefresher)
                 .start(loadUsersStep)
                 .build();
     }
 
     @Bean
-    public CommandLineRunner runBatchJob(Job loadUsersJob) {
-        return args -> jobLauncher.run(loadUsersJob, new JobParameters());
+    public CommandLineRunner runBatchJob(Job loadUsersJob, Resource usersCsv, UserDirectory userDirectory) {
+        return args -> {
+            String checksum = checksum(usersCsv);
+            if (skipUnchanged && checksum.equals(lastImportedChecksum(loadUsersJob.getName()))) {
+                log.info("Users file {} is unchanged since the last import, skipping it", usersCsvPath);
+                userDirectory.refresh();
+                return;
+            }
+            jobLauncher.run(loadUsersJob, new JobParametersBuilder()
+                    .addString(SOURCE, usersCsvPath)
+                    .addString(CHECKSUM, checksum)
+                    .addLong("run.time", System.currentTimeMillis())
+                    .toJobParameters());
+        };
+    }
+
+    private Resource resolve(String location) {
+        // Bare paths keep their old meaning of a classpath resource
+        return resourceLoader.getResource(location.contains(":") ? location : ResourceUtils.CLASSPATH_URL_PREFIX + location);
+    }
+
+    /**
+     * The checksum the latest import ran with, or null if that import did not complete.
+     */
+    private String lastImportedChecksum(String jobName) {
+        JobInstance instance = jobExplorer.getLastJobInstance(jobName);
+        JobExecution execution = instance == null ? null : jobExplorer.getLastJobExecution(instance);
+        if (execution == null || execution.getStatus() != BatchStatus.COMPLETED) {
+            return null;
+        }
+        return execution.getJobParameters().getString(CHECKSUM);
+    }
+
+    private static String checksum(Resource resource) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        try (InputStream in = new DigestInputStream(resource.getInputStream(), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
     }
-}
\ No newline at end of file
+}
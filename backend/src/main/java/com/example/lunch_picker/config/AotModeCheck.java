@@ -0,0 +1,79 @@
+package com.example.lunch_picker.config;
+
+import com.example.lunch_picker.engine.PartitionedSessionEngine;
+import com.example.lunch_picker.eventlog.EventLogWriter;
+import jakarta.annotation.PostConstruct;
+import org.springframework.aot.AotDetector;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.boot.actuate.autoconfigure.web.server.ManagementPortType;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fails startup when an ahead-of-time compiled build runs with another {@code app.execution.mode},
+ * {@code app.persistence.mode} or management port layout than it was built with.
+ * <p>
+ * AOT evaluates {@code @ConditionalOnProperty} once, at build time, so the beans of the build's modes
+ * start whatever the properties say at run time; a changed mode would be silently ignored. The check
+ * compares each property with the beans that were actually generated. The same holds for
+ * {@code management.server.port}: whether actuator runs in a child context on its own port is decided
+ * at build time, and the trace profile's {@code management.server.address} fails with an obscure
+ * error when the build put actuator on the main port.
+ */
+@Component
+public class AotModeCheck {
+
+    private static final String SEPARATE_MANAGEMENT_CONTEXT = "org.springframework.boot.actuate.autoconfigure"
+            + ".web.server.ManagementContextAutoConfiguration$DifferentManagementContextConfiguration";
+
+    private final ListableBeanFactory beanFactory;
+    private final Environment environment;
+
+    public AotModeCheck(ListableBeanFactory beanFactory, Environment environment) {
+        this.beanFactory = beanFactory;
+        this.environment = environment;
+    }
+
+    @PostConstruct
+    void verifyIfAot() {
+        if (AotDetector.useGeneratedArtifacts()) {
+            verify();
+        }
+    }
+
+    /**
+     * @throws IllegalStateException if a mode property or the management port layout does not match the
+     *         beans in the context
+     */
+    public void verify() {
+        check("app.execution.mode", "direct", "partitioned", PartitionedSessionEngine.class);
+        check("app.persistence.mode", "memory", "event-log", EventLogWriter.class);
+        checkManagementPort();
+    }
+
+    private void checkManagementPort() {
+        boolean requested = ManagementPortType.get(environment) == ManagementPortType.DIFFERENT;
+        boolean built = beanFactory.containsBeanDefinition(SEPARATE_MANAGEMENT_CONTEXT);
+        if (requested != built) {
+            String profiles = environment.getActiveProfiles().length > 0
+                    ? String.join(",", environment.getActiveProfiles()) : "default";
+            throw new IllegalStateException("management.server.port " + (requested
+                    ? "is set, but this build was compiled ahead of time without a separate management port"
+                    : "is not set, but this build was compiled ahead of time with a separate management port")
+                    + ". Rebuild with -Daot.profiles=" + profiles + " (Docker: --build-arg AOT_PROFILES=" + profiles
+                    + ")");
+        }
+    }
+
+    private void check(String property, String defaultMode, String mode, Class<?> modeBean) {
+        String requested = environment.getProperty(property, defaultMode);
+        // Only bean definitions are looked at, so nothing is created early
+        String built = beanFactory.getBeanNamesForType(modeBean, false, false).length > 0 ? mode : defaultMode;
+        if (!requested.equals(built)) {
+            throw new IllegalStateException(property + " is '" + requested + "', but this build was compiled "
+                    + "ahead of time for '" + built + "'. Rebuild with -Daot." + property.substring("app.".length())
+                    + "=" + requested + " (Docker: --build-arg " + property.toUpperCase().replace('.', '_')
+                    + "=" + requested + ")");
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.lunch_picker.config;
+
+import com.example.lunch_picker.engine.PartitionedSessionEngine;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Beans that must start eagerly even when {@code spring.main.lazy-initialization} is on (the
+ * {@code fast} profile).
+ * <p>
+ * A bean with {@code @Scheduled} methods only gets its schedule once it is created, so left lazy its
+ * flushes, snapshots and nightly jobs would never run. The partitioned engine starts its partition
+ * threads on creation, which would otherwise land on the first write request. {@link AotModeCheck}
+ * has to run at startup to fail it.
+ */
+@Configuration
+public class LazyInitializationConfig {
+
+    @Bean
+    public static LazyInitializationExcludeFilter eagerBeans() {
+        return (beanName, beanDefinition, beanType) -> hasScheduledMethods(beanType)
+                || PartitionedSessionEngine.class.isAssignableFrom(beanType)
+                || AotModeCheck.class.isAssignableFrom(beanType);
+    }
+
+    private static boolean hasScheduledMethods(Class<?> beanType) {
+        return !MethodIntrospector.selectMethods(beanType, (MethodIntrospector.MetadataLookup<Scheduled>) method ->
+                AnnotatedElementUtils.findMergedAnnotation(method, Scheduled.class)).isEmpty();
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.lunch_picker.controller;
+
+import com.example.lunch_picker.dto.RestaurantStatsResponse;
+import com.example.lunch_picker.dto.RestaurantSuggestionResponse;
+import com.example.lunch_picker.model.RestaurantRanking;
+import com.example.lunch_picker.service.RestaurantStatsService;
+import com.example.lunch_picker.service.RestaurantSuggester;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@Tag(name = "Restaurant Analytics", description = "APIs for restaurant popularity across sessions")
+@RestController
+@RequestMapping("/api/restaurants")
+@RequiredArgsConstructor
+public class RestaurantController {
+
+    private final RestaurantStatsService statsService;
+    private final RestaurantSuggester suggester;
+
+    @Operation(
+            summary = "Top restaurants",
+            description = "Returns the most often submitted or most often picked restaurants, across all sessions " +
+                    "or for one team (the sessions created by one user), with each restaurant's win rate. " +
+                    "Totals are maintained as submissions and picks commit and may lag them by a few seconds."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Restaurants in ranking order",
+            content = @Content(array = @ArraySchema(schema = @Schema(implementation = RestaurantStatsResponse.class)))
+    )
+    @GetMapping("/top")
+    public List<RestaurantStatsResponse> top(
+            @Parameter(description = "Only sessions created by this user")
+            @RequestParam(required = false) String team,
+            @Parameter(description = "What to rank by")
+            @RequestParam(defaultValue = "SUBMISSIONS") RestaurantRanking by,
+            @Parameter(description = "Maximum number of restaurants to return")
+            @RequestParam(required = false) Integer limit) {
+        return statsService.top(team, by, limit);
+    }
+
+    @Operation(
+            summary = "Suggest restaurant names",
+            description = "Returns previously submitted restaurant names starting with the prefix, most often " +
+                    "submitted first. Matching ignores case and extra spaces. Served from memory, so it is " +
+                    "cheap enough to call on every keystroke."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Matching restaurants, most submitted first",
+            content = @Content(array = @ArraySchema(schema = @Schema(implementation = RestaurantSuggestionResponse.class)))
+    )
+    @GetMapping("/suggest")
+    public List<RestaurantSuggestionResponse> suggest(
+            @Parameter(description = "Start of the restaurant name; empty returns the most submitted overall")
+            @RequestParam(defaultValue = "") String prefix,
+            @Parameter(description = "Maximum number of names to return")
+            @RequestParam(required = false) Integer limit) {
+        return suggester.suggest(prefix, limit);
+    }
+}
@@ -1,25 +1,46 @@
 package com.example.lunch_picker.controller;
 
 import com.example.lunch_picker.dto.RestaurantChoiceResponse;
+import com.example.lunch_picker.dto.RestaurantPageResponse;
+import com.example.lunch_picker.dto.RestaurantSubmissionResult;
+import com.example.lunch_picker.dto.SessionCursor;
+import com.example.lunch_picker.dto.SessionPageResponse;
 import com.example.lunch_picker.dto.SessionResponse;
 import com.example.lunch_picker.dto.SubmitRestaurantRequest;
 import com.example.lunch_picker.model.LunchSession;
-import com.example.lunch_picker.model.RestaurantChoice;
+import com.example.lunch_picker.model.SessionStatus;
+import com.example.lunch_picker.repository.SessionRepositoryCustom.SessionChoiceCount;
+import com.example.lunch_picker.service.IdempotencyCache;
 import com.example.lunch_picker.service.RestaurantService;
+import com.example.lunch_picker.service.SessionEventBroadcaster;
+import com.example.lunch_picker.service.SessionResponseCache;
 import com.example.lunch_picker.service.SessionService;
+import com.example.lunch_picker.service.SessionWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 @Tag(name = "Session Management", description = "APIs for creating and managing lunch decision sessions")
@@ -28,8 +49,17 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class SessionController {
 
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     private final SessionService sessionService;
     private final RestaurantService restaurantService;
+    private final SessionEventBroadcaster eventBroadcaster;
+    private final IdempotencyCache idempotencyCache;
+    private final SessionWriter sessionWriter;
+    private final SessionResponseCache responseCache;
+
+    @Value("${app.restaurants.batch.max-size:500}")
+    private int maxBatchSize;
 
     @Operation(
             summary = "Create a new lunch session",
@@ -55,9 +85,44 @@ public class SessionController {
         return ResponseEntity.status(HttpStatus.CREATED).body(SessionResponse.from(session));
     }
 
+    @Operation(
+            summary = "List sessions",
+            description = "Lists sessions newest first, without their choices, one page at a time. Filter by creator, " +
+                    "status and creation time in any combination, and pass the previous page's 'nextAfter' as " +
+                    "'after' to continue. Archived sessions are not listed."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "One page of sessions",
+                    content = @Content(schema = @Schema(implementation = SessionPageResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid status, time or cursor",
+                    content = @Content(schema = @Schema(implementation = Map.class))
+            )
+    })
+    @GetMapping
+    public ResponseEntity<SessionPageResponse> listSessions(
+            @Parameter(description = "Only sessions created by this user")
+            @RequestParam(required = false) String createdBy,
+            @Parameter(description = "Only sessions in this status")
+            @RequestParam(required = false) SessionStatus status,
+            @Parameter(description = "Only sessions created at or after this time (ISO-8601, e.g. 2024-01-31T12:00:00)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @Parameter(description = "Opaque cursor from the previous page's 'nextAfter'", schema = @Schema(type = "string"))
+            @RequestParam(required = false) SessionCursor after,
+            @Parameter(description = "Maximum number of sessions to return")
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(sessionService.listSessions(createdBy, status, since, after, limit));
+    }
+
     @Operation(
             summary = "Get session details",
-            description = "Retrieves session information including all submitted restaurant choices"
+            description = "Retrieves session information including all submitted restaurant choices. " +
+                    "The response carries the session version as a strong ETag; send it back in If-None-Match " +
+                    "to get a 304 when nothing has changed."
     )
     @ApiResponses({
             @ApiResponse(
@@ -65,6 +130,10 @@ public class SessionController {
                     description = "Session found",
                     content = @Content(schema = @Schema(implementation = SessionResponse.class))
             ),
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Session unchanged since the version given in If-None-Match"
+            ),
             @ApiResponse(
                     responseCode = "404",
                     description = "Session not found",
@@ -72,16 +141,103 @@ public class SessionController {
             )
     })
     @GetMapping("/{id}")
-    public ResponseEntity<SessionResponse> getSession(
+    public ResponseEntity<byte[]> getSession(
             @Parameter(description = "Unique session identifier (UUID)", required = true)
+            @PathVariable String id,
+            @Parameter(description = "'full' (default) includes every choice; 'summary' returns only the choice count")
+            @RequestParam(defaultValue = "full") String view,
+            WebRequest request,
+            HttpServletResponse response) {
+        // Answer unchanged-state refreshes from the version alone, before loading any choices
+        Long version = sessionService.getVersion(id);
+        if (request.checkNotModified(etag(version))) {
+            return null;
+        }
+
+        // Bodies are cached already serialized, so a repeat read skips both the choice load and Jackson
+        boolean summary = "summary".equalsIgnoreCase(view);
+        SessionResponseCache.Rendered rendered = responseCache.get(id, summary ? "summary" : "full", version, () -> {
+            if (summary) {
+                SessionChoiceCount counted = sessionService.getSessionWithChoiceCount(id);
+                return new SessionResponseCache.Versioned(
+                        SessionResponse.summary(counted.session(), counted.choiceCount()), counted.session().getVersion());
+            }
+            LunchSession session = sessionService.getSession(id);
+            return new SessionResponseCache.Versioned(SessionResponse.from(session), session.getVersion());
+        });
+        // The check above already set an ETag for the version it read; the body may be newer
+        response.setHeader(HttpHeaders.ETAG, etag(rendered.version()));
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(rendered.json());
+    }
+
+    @Operation(
+            summary = "List a session's restaurant choices",
+            description = "Returns choices ordered by ID, one keyset page at a time. Pass the returned nextAfter " +
+                    "as 'after' to get the next page; nextAfter is null on the last page."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Page of choices",
+                    content = @Content(schema = @Schema(implementation = RestaurantPageResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Session not found",
+                    content = @Content(schema = @Schema(implementation = Map.class))
+            )
+    })
+    @GetMapping("/{id}/restaurants")
+    public ResponseEntity<RestaurantPageResponse> listRestaurants(
+            @Parameter(description = "Session ID", required = true)
+            @PathVariable String id,
+            @Parameter(description = "Return choices with an ID greater than this")
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "Maximum number of choices to return")
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(restaurantService.listChoices(id, after, limit));
+    }
+
+    @Operation(
+            summary = "Stream live session updates",
+            description = "Opens a Server-Sent Events stream for the session. Emits 'choice-added' with each new " +
+                    "restaurant and a final 'session-closed' with the chosen restaurant, after which the stream ends. " +
+                    "Clients that fall too far behind are disconnected and should re-fetch the session on reconnect."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Event stream opened",
+                    content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE)
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Session not found",
+                    content = @Content(schema = @Schema(implementation = Map.class))
+            )
+    })
+    @GetMapping(path = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(
+            @Parameter(description = "Session ID", required = true)
             @PathVariable String id) {
-        LunchSession session = sessionService.getSession(id);
-        return ResponseEntity.ok(SessionResponse.from(session));
+        if (sessionService.getStatus(id) == SessionStatus.CLOSED) {
+            return eventBroadcaster.closedSession(sessionService.getSession(id).getChosenRestaurant());
+        }
+        SseEmitter emitter = eventBroadcaster.subscribe(id);
+        // A pick that committed before the subscription was registered was broadcast without it
+        if (sessionService.getStatus(id) == SessionStatus.CLOSED) {
+            eventBroadcaster.sessionClosed(id, emitter, sessionService.getSession(id).getChosenRestaurant());
+        }
+        return emitter;
     }
 
     @Operation(
             summary = "Submit a restaurant choice",
-            description = "Submits a restaurant to the session. Any user (including guests) can submit. Duplicate restaurants are rejected."
+            description = "Submits a restaurant to the session. Any user (including guests) can submit. Duplicate restaurants are rejected. " +
+                    "Retries that repeat the Idempotency-Key of a successful submission get the original response back."
     )
     @ApiResponses({
             @ApiResponse(
@@ -101,7 +257,7 @@ public class SessionController {
             ),
             @ApiResponse(
                     responseCode = "409",
-                    description = "Session is closed or restaurant already submitted",
+                    description = "Session is closed, restaurant already submitted, or Idempotency-Key reused for a different request",
                     content = @Content(schema = @Schema(implementation = Map.class))
             )
     })
@@ -110,15 +266,63 @@ public class SessionController {
             @Parameter(description = "Session ID", required = true)
             @PathVariable String id,
             @Parameter(description = "Restaurant submission details", required = true)
-            @Valid @RequestBody SubmitRestaurantRequest request) {
-        RestaurantChoice choice = restaurantService.submit(id, request.getRestaurant(), request.getUser());
-        return ResponseEntity.status(HttpStatus.CREATED).body(RestaurantChoiceResponse.from(choice));
+            @Valid @RequestBody SubmitRestaurantRequest request,
+            @Parameter(description = "Client-chosen key that makes retries of this request safe")
+            @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        RestaurantChoiceResponse choice = idempotencyCache.execute("submit:" + id, idempotencyKey,
+                request.getRestaurant() + '\n' + request.getUser(),
+                () -> RestaurantChoiceResponse.from(
+                        sessionWriter.submit(id, request.getRestaurant(), request.getUser())));
+        return ResponseEntity.status(HttpStatus.CREATED).body(choice);
+    }
+
+    @Operation(
+            summary = "Submit several restaurant choices",
+            description = "Submits a list of restaurants to the session in one transaction. Each item is validated " +
+                    "and de-duplicated on its own and reported as CREATED, DUPLICATE or INVALID; a bad item does " +
+                    "not fail the rest of the batch."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Per-item results, in request order",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = RestaurantSubmissionResult.class)))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "More restaurants than app.restaurants.batch.max-size",
+                    content = @Content(schema = @Schema(implementation = Map.class))
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Session not found",
+                    content = @Content(schema = @Schema(implementation = Map.class))
+            ),
+            @ApiResponse(
+                    responseCode = "409",
+                    description = "Session is closed",
+                    content = @Content(schema = @Schema(implementation = Map.class))
+            )
+    })
+    @PostMapping("/{id}/restaurants:batch")
+    public ResponseEntity<List<RestaurantSubmissionResult>> submitRestaurants(
+            @Parameter(description = "Session ID", required = true)
+            @PathVariable String id,
+            @Parameter(description = "Restaurant submissions", required = true)
+            @RequestBody List<SubmitRestaurantRequest> requests) {
+        if (requests.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "A batch can hold at most " + maxBatchSize + " restaurants");
+        }
+        return ResponseEntity.ok(sessionWriter.submitAll(id, requests));
     }
 
     @Operation(
             summary = "Pick a random restaurant",
             description = "Randomly selects a restaurant from submitted choices and closes the session. " +
-                    "Only the user who submitted the FIRST restaurant can trigger this action (Stretch Goal 1)."
+                    "Only the user who submitted the FIRST restaurant can trigger this action (Stretch Goal 1). " +
+                    "Simultaneous picks for a session share one result, and write conflicts are retried on the server. " +
+                    "Retries that repeat the Idempotency-Key of a successful pick get the original response back."
     )
     @ApiResponses({
             @ApiResponse(
@@ -138,7 +342,7 @@ public class SessionController {
             ),
             @ApiResponse(
                     responseCode = "409",
-                    description = "No restaurants submitted yet",
+                    description = "No restaurants submitted yet, or Idempotency-Key reused for a different request",
                     content = @Content(schema = @Schema(implementation = Map.class))
             )
     })
@@ -147,8 +351,15 @@ public class SessionController {
             @Parameter(description = "Session ID", required = true)
             @PathVariable String id,
             @Parameter(description = "Username requesting the pick (must be first submitter)", required = true)
-            @RequestParam String user) {
-        String chosen = restaurantService.pickRandom(id, user);
+            @RequestParam String user,
+            @Parameter(description = "Client-chosen key that makes retries of this request safe")
+            @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        String chosen = idempotencyCache.execute("pick:" + id, idempotencyKey, user,
+                () -> sessionWriter.pick(id, user));
         return ResponseEntity.ok(Map.of("chosenRestaurant", chosen));
     }
+
+    private static String etag(Long version) {
+        return "\"" + version + "\"";
+    }
 }
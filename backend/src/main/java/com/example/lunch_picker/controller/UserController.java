@@ -1,7 +1,7 @@
 package com.example.lunch_picker.controller;
 
 import com.example.lunch_picker.model.User;
-import com.example.lunch_picker.repository.UserRepository;
+import com.example.lunch_picker.service.UserDirectory;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -20,7 +20,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class UserController {
 
-    private final UserRepository userRepository;
+    private final UserDirectory userDirectory;
 
     @Operation(
             summary = "List all pre-defined users",
@@ -34,6 +34,8 @@ public class UserController {
     )
     @GetMapping
     public List<User> getAllUsers() {
-        return userRepository.findAll();
+        return userDirectory.usernames().stream()
+                .map(User::new)
+                .toList();
     }
 }
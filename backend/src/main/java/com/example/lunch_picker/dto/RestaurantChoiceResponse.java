@@ -1,6 +1,7 @@
 package com.example.lunch_picker.dto;
 
 import com.example.lunch_picker.model.RestaurantChoice;
+import com.example.lunch_picker.repository.RestaurantChoiceView;
 import lombok.Builder;
 import lombok.Data;
 
@@ -18,4 +19,12 @@ public class RestaurantChoiceResponse {
                 .submittedBy(choice.getSubmittedBy())
                 .build();
     }
+
+    public static RestaurantChoiceResponse from(RestaurantChoiceView choice) {
+        return RestaurantChoiceResponse.builder()
+                .id(choice.getId())
+                .restaurant(choice.getRestaurant())
+                .submittedBy(choice.getSubmittedBy())
+                .build();
+    }
 }
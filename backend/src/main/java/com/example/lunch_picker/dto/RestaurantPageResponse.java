@@ -0,0 +1,17 @@
+package com.example.lunch_picker.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One keyset page of a session's restaurant choices.
+ * Pass {@code nextAfter} as the {@code after} parameter to fetch the next page; it is null on the last page.
+ */
+@Data
+@Builder
+public class RestaurantPageResponse {
+    private List<RestaurantChoiceResponse> items;
+    private Long nextAfter;
+}
@@ -0,0 +1,27 @@
+package com.example.lunch_picker.dto;
+
+import com.example.lunch_picker.model.RestaurantStats;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class RestaurantStatsResponse {
+    private String restaurant;
+    private long submissions;
+    private long picks;
+
+    /**
+     * Share of the sessions this restaurant was submitted to that ended up picking it.
+     */
+    private double winRate;
+
+    public static RestaurantStatsResponse from(RestaurantStats stats) {
+        return RestaurantStatsResponse.builder()
+                .restaurant(stats.getRestaurant())
+                .submissions(stats.getSubmissions())
+                .picks(stats.getPicks())
+                .winRate(stats.getSubmissions() == 0 ? 0 : (double) stats.getPicks() / stats.getSubmissions())
+                .build();
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.lunch_picker.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Outcome of one item in a batch restaurant submission.
+ */
+@Data
+@Builder
+public class RestaurantSubmissionResult {
+
+    public enum Outcome {
+        CREATED,
+        DUPLICATE,
+        INVALID
+    }
+
+    private int index;
+    private Outcome outcome;
+    private String message;
+    private RestaurantChoiceResponse choice;
+
+    public static RestaurantSubmissionResult of(int index, Outcome outcome, String message,
+                                                RestaurantChoiceResponse choice) {
+        return RestaurantSubmissionResult.builder()
+                .index(index)
+                .outcome(outcome)
+                .message(message)
+                .choice(choice)
+                .build();
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.lunch_picker.dto;
+
+import com.example.lunch_picker.service.RestaurantNameTrie;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class RestaurantSuggestionResponse {
+    private String restaurant;
+
+    /**
+     * Times this restaurant has been submitted across all sessions.
+     */
+    private long submissions;
+
+    public static RestaurantSuggestionResponse from(RestaurantNameTrie.Suggestion suggestion) {
+        return RestaurantSuggestionResponse.builder()
+                .restaurant(suggestion.restaurant())
+                .submissions(suggestion.count())
+                .build();
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.lunch_picker.dto;
+
+import com.example.lunch_picker.repository.SessionSummaryView;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a session listing: the creation time and ID of the last session returned.
+ * Clients see it only as an opaque URL-safe token, so its contents can change without breaking them.
+ */
+public record SessionCursor(LocalDateTime createdAt, String id) {
+
+    public static SessionCursor of(SessionSummaryView session) {
+        return new SessionCursor(session.getCreatedAt(), session.getId());
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}; used by Spring to bind the {@code after} request parameter.
+     *
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static SessionCursor valueOf(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + token);
+            }
+            return new SessionCursor(LocalDateTime.parse(decoded.substring(0, separator)),
+                    decoded.substring(separator + 1));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((createdAt + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,7 +1,7 @@
 package com.example.lunch_picker.dto;
 
 import com.example.lunch_picker.model.LunchSession;
-import com.example.lunch_picker.model.RestaurantChoice;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 import lombok.Data;
 
@@ -16,20 +16,42 @@ public class SessionResponse {
     private String status;
     private String chosenRestaurant;
     private LocalDateTime createdAt;
+    private long choiceCount;
+
+    /**
+     * Omitted in the summary form; page through choices with the restaurants endpoint instead.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<RestaurantChoiceResponse> restaurants;
 
     public static SessionResponse from(LunchSession session) {
+        List<RestaurantChoiceResponse> restaurants = session.getRestaurantChoices() != null
+                ? session.getRestaurantChoices().stream()
+                    .map(RestaurantChoiceResponse::from)
+                    .toList()
+                : List.of();
+        return SessionResponse.builder()
+                .id(session.getId())
+                .createdBy(session.getCreatedBy())
+                .status(session.getStatus().name())
+                .chosenRestaurant(session.getChosenRestaurant())
+                .createdAt(session.getCreatedAt())
+                .choiceCount(restaurants.size())
+                .restaurants(restaurants)
+                .build();
+    }
+
+    /**
+     * Summary form: session fields and the number of choices, without the choices themselves.
+     */
+    public static SessionResponse summary(LunchSession session, long choiceCount) {
         return SessionResponse.builder()
                 .id(session.getId())
                 .createdBy(session.getCreatedBy())
                 .status(session.getStatus().name())
                 .chosenRestaurant(session.getChosenRestaurant())
                 .createdAt(session.getCreatedAt())
-                .restaurants(session.getRestaurantChoices() != null
-                        ? session.getRestaurantChoices().stream()
-                            .map(RestaurantChoiceResponse::from)
-                            .toList()
-                        : List.of())
+                .choiceCount(choiceCount)
                 .build();
     }
 }
@@ -0,0 +1,32 @@
+package com.example.lunch_picker.dto;
+
+import com.example.lunch_picker.repository.SessionSummaryView;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * A session as it appears in a listing: its own fields only, without choices.
+ */
+@Data
+@Builder
+public class SessionSummaryResponse {
+    private String id;
+    private String createdBy;
+    private String status;
+    private String chosenRestaurant;
+    private LocalDateTime createdAt;
+    private LocalDateTime closedAt;
+
+    public static SessionSummaryResponse from(SessionSummaryView session) {
+        return SessionSummaryResponse.builder()
+                .id(session.getId())
+                .createdBy(session.getCreatedBy())
+                .status(session.getStatus().name())
+                .chosenRestaurant(session.getChosenRestaurant())
+                .createdAt(session.getCreatedAt())
+                .closedAt(session.getClosedAt())
+                .build();
+    }
+}
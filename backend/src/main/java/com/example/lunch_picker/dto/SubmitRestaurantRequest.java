@@ -1,11 +1,13 @@
 package com.example.lunch_picker.dto;
 
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 import lombok.Data;
 
 @Data
 public class SubmitRestaurantRequest {
     @NotBlank(message = "Restaurant name is required")
+    @Size(max = 255, message = "Restaurant name must be at most 255 characters")
     private String restaurant;
 
     @NotBlank(message = "User name is required")
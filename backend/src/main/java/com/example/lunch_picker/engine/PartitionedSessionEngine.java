@@ -0,0 +1,250 @@
+package com.example.lunch_picker.engine;
+
+import com.example.lunch_picker.dto.RestaurantChoiceResponse;
+import com.example.lunch_picker.dto.RestaurantSubmissionResult;
+import com.example.lunch_picker.dto.RestaurantSubmissionResult.Outcome;
+import com.example.lunch_picker.dto.SubmitRestaurantRequest;
+import com.example.lunch_picker.metrics.SessionMetrics;
+import com.example.lunch_picker.model.RestaurantChoice;
+import com.example.lunch_picker.service.RestaurantService;
+import com.example.lunch_picker.service.SessionWriter;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Partitioned execution mode: every session belongs to one of a fixed set of partitions, picked by
+ * hashing its ID, and each partition applies its sessions' writes on a single thread.
+ * <p>
+ * Writes to one session are therefore applied strictly one after another against in-memory state,
+ * without row locks or optimistic-lock retries, while different partitions run in parallel. See
+ * {@link SessionPartition} for how changes are batched to the database. Reads are unaffected and
+ * still go to the database, which a write's caller only hears back from after its batch commits.
+ * <p>
+ * All writes must go through the partitions while this mode is on; a row changed behind a partition's
+ * back fails that partition's next batch for the session, which is then reloaded.
+ * <p>
+ * Writes are timed and logged under the same names as in direct mode, so dashboards and log
+ * queries work in either mode.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.execution.mode", havingValue = "partitioned")
+public class PartitionedSessionEngine implements SessionWriter {
+
+    private static final String NOTHING_SUBMITTED = "No restaurants have been submitted yet";
+
+    private final SessionPartition[] partitions;
+    private final Thread[] threads;
+    private final Validator validator;
+    private final SessionMetrics metrics;
+
+    public PartitionedSessionEngine(SessionStateStore store,
+                                    Validator validator,
+                                    SessionMetrics metrics,
+                                    MeterRegistry registry,
+                                    @Value("${app.execution.partitioned.partitions:0}") int partitions,
+                                    @Value("${app.execution.partitioned.queue-capacity:10000}") int queueCapacity,
+                                    @Value("${app.execution.partitioned.max-batch:256}") int maxBatch,
+                                    @Value("${app.execution.partitioned.max-sessions:10000}") int maxSessions) {
+        this.validator = validator;
+        this.metrics = metrics;
+        int count = partitions > 0 ? partitions : Runtime.getRuntime().availableProcessors();
+        this.partitions = new SessionPartition[count];
+        this.threads = new Thread[count];
+        for (int i = 0; i < count; i++) {
+            this.partitions[i] = new SessionPartition(i, store, queueCapacity, maxBatch, maxSessions);
+            this.threads[i] = new Thread(this.partitions[i], "session-partition-" + i);
+            this.threads[i].setDaemon(true);
+            Gauge.builder("lunch.partition.queue.depth", this.partitions[i], SessionPartition::queued)
+                    .description("Session writes waiting for their partition thread")
+                    .tag("partition", String.valueOf(i))
+                    .register(registry);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        log.info("Partitioned session writer started with {} partitions", partitions.length);
+    }
+
+    /**
+     * Stops taking writes, lets each partition finish what is already queued, and waits for it.
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        for (SessionPartition partition : partitions) {
+            partition.stop();
+        }
+        for (Thread thread : threads) {
+            thread.join(10_000);
+        }
+    }
+
+    @Override
+    @Timed(value = "lunch.submit", histogram = true)
+    public RestaurantChoice submit(String sessionId, String restaurant, String user) {
+        String trimmedRestaurant = restaurant.trim();
+        return await(partitionOf(sessionId).execute(sessionId, (state, batch) -> {
+            rejectUnlessOpen(state);
+            if (trimmedRestaurant.isEmpty()) {
+                throw new IllegalArgumentException("Restaurant name cannot be empty");
+            }
+            if (state.contains(trimmedRestaurant)) {
+                metrics.duplicateRejected();
+                throw new IllegalStateException(RestaurantService.DUPLICATE_MESSAGE);
+            }
+            String similar = state.findSimilar(trimmedRestaurant);
+            if (similar != null) {
+                metrics.nearDuplicateRejected();
+                throw new IllegalStateException(RestaurantService.similarMessage(similar));
+            }
+            RestaurantChoice choice = RestaurantChoice.builder()
+                    .restaurant(trimmedRestaurant)
+                    .submittedBy(user)
+                    .build();
+            batch.insert(state, choice);
+            return () -> {
+                log.atInfo()
+                        .setMessage("Restaurant submitted")
+                        .addKeyValue("sessionId", sessionId)
+                        .addKeyValue("choiceId", choice.getId())
+                        .addKeyValue("restaurant", trimmedRestaurant)
+                        .addKeyValue("user", user)
+                        .log();
+                return choice;
+            };
+        }));
+    }
+
+    @Override
+    public List<RestaurantSubmissionResult> submitAll(String sessionId, List<SubmitRestaurantRequest> requests) {
+        // Validation and in-request duplicates do not need the session, so they stay on the caller's thread
+        RestaurantSubmissionResult[] results = new RestaurantSubmissionResult[requests.size()];
+        Map<String, Integer> candidates = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            SubmitRestaurantRequest request = requests.get(i);
+            String violation = RestaurantService.validationMessage(validator, request);
+            if (violation != null) {
+                results[i] = RestaurantSubmissionResult.of(i, Outcome.INVALID, violation, null);
+            } else if (candidates.putIfAbsent(RestaurantChoice.normalize(request.getRestaurant()), i) != null) {
+                metrics.duplicateRejected();
+                results[i] = RestaurantSubmissionResult.of(i, Outcome.DUPLICATE,
+                        RestaurantService.DUPLICATE_MESSAGE, null);
+            }
+        }
+
+        return await(partitionOf(sessionId).execute(sessionId, (state, batch) -> {
+            rejectUnlessOpen(state);
+            Map<Integer, RestaurantChoice> created = new LinkedHashMap<>();
+            candidates.values().forEach(index -> {
+                SubmitRestaurantRequest request = requests.get(index);
+                if (state.contains(request.getRestaurant())) {
+                    metrics.duplicateRejected();
+                    results[index] = RestaurantSubmissionResult.of(index, Outcome.DUPLICATE,
+                            RestaurantService.DUPLICATE_MESSAGE, null);
+                    return;
+                }
+                String restaurant = request.getRestaurant().trim();
+                String similar = state.findSimilar(restaurant);
+                if (similar != null) {
+                    metrics.nearDuplicateRejected();
+                    results[index] = RestaurantSubmissionResult.of(index, Outcome.DUPLICATE,
+                            RestaurantService.similarMessage(similar), null);
+                    return;
+                }
+                RestaurantChoice choice = RestaurantChoice.builder()
+                        .restaurant(restaurant)
+                        .submittedBy(request.getUser())
+                        .build();
+                batch.insert(state, choice);
+                created.put(index, choice);
+            });
+            return () -> {
+                created.forEach((index, choice) -> results[index] = RestaurantSubmissionResult.of(index,
+                        Outcome.CREATED, null, RestaurantChoiceResponse.from(choice)));
+                if (!created.isEmpty()) {
+                    log.atInfo()
+                            .setMessage("Restaurants submitted")
+                            .addKeyValue("sessionId", sessionId)
+                            .addKeyValue("created", created.size())
+                            .addKeyValue("requested", requests.size())
+                            .log();
+                }
+                return List.of(results);
+            };
+        }));
+    }
+
+    @Override
+    @Timed(value = "lunch.pick", histogram = true)
+    public String pick(String sessionId, String user) {
+        return await(partitionOf(sessionId).execute(sessionId, (state, batch) -> {
+            if (state.isClosed()) {
+                String chosen = state.chosenRestaurant;
+                return () -> chosen;
+            }
+            if (state.restaurants.isEmpty()) {
+                throw new IllegalStateException(NOTHING_SUBMITTED);
+            }
+            if (!state.firstSubmitter.equals(user)) {
+                metrics.firstSubmitterDenied();
+                throw new SecurityException(
+                        "Only the first submitter (" + state.firstSubmitter + ") can pick the random restaurant");
+            }
+
+            int choiceCount = state.restaurants.size();
+            String chosen = state.restaurants.get(ThreadLocalRandom.current().nextInt(choiceCount));
+            batch.close(state, chosen);
+            return () -> {
+                metrics.sessionPicked(choiceCount);
+                log.atInfo()
+                        .setMessage("Restaurant picked")
+                        .addKeyValue("sessionId", sessionId)
+                        .addKeyValue("restaurant", chosen)
+                        .addKeyValue("user", user)
+                        .addKeyValue("choices", choiceCount)
+                        .log();
+                return chosen;
+            };
+        }));
+    }
+
+    private SessionPartition partitionOf(String sessionId) {
+        // Spread the hash so similar IDs do not crowd into neighbouring partitions
+        int hash = sessionId.hashCode() * 0x9E3779B9;
+        return partitions[Math.floorMod(hash ^ (hash >>> 16), partitions.length)];
+    }
+
+    private void rejectUnlessOpen(SessionState state) {
+        if (state.isClosed()) {
+            metrics.closedSessionRejected();
+            throw new IllegalStateException(RestaurantService.CLOSED_MESSAGE);
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.example.lunch_picker.engine;
+
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * One writer thread and the sessions hashed to it.
+ * <p>
+ * The thread takes whatever commands are queued (up to {@code maxBatch}), applies them one by one to
+ * the in-memory session states, persists all resulting changes in one transaction, and only then
+ * completes the callers' futures. Commands never wait on each other's locks, and a burst of writes
+ * costs one commit instead of one per request. Each command runs with its caller's logging MDC.
+ * <p>
+ * If the batch cannot be persisted, each session it touched is reloaded and its commands are applied
+ * and persisted again on their own, so one bad write does not fail its neighbours.
+ */
+@Slf4j
+final class SessionPartition implements Runnable {
+
+    /**
+     * A write against one session. Runs on the partition thread and must check everything before
+     * recording changes in the batch. The returned supplier produces the caller's result once the
+     * batch is persisted, when generated IDs are known.
+     */
+    @FunctionalInterface
+    interface Command<T> {
+        Supplier<T> apply(SessionState state, WriteBatch batch);
+    }
+
+    private final int index;
+    private final SessionStateStore store;
+    private final BlockingQueue<Task<?>> queue;
+    private final int maxBatch;
+    private final int maxSessions;
+    // Access-ordered, so trimming drops the least recently written sessions
+    private final Map<String, SessionState> sessions = new LinkedHashMap<>(256, 0.75f, true);
+    private volatile boolean running = true;
+    // Set once the thread has stopped taking tasks; whatever is still queued then is failed
+    private volatile boolean finished;
+
+    SessionPartition(int index, SessionStateStore store, int queueCapacity, int maxBatch, int maxSessions) {
+        this.index = index;
+        this.store = store;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatch = maxBatch;
+        this.maxSessions = maxSessions;
+    }
+
+    /**
+     * Queues a command, blocking while the queue is full so a flood of writes slows callers down
+     * instead of growing without bound. The returned future always completes: a command queued as
+     * the partition stops is either still run or failed.
+     */
+    <T> CompletableFuture<T> execute(String sessionId, Command<T> command) {
+        Task<T> task = new Task<>(sessionId, command);
+        try {
+            // Waits in slices rather than in put(), so a caller stuck behind a full queue sees the stop
+            do {
+                if (!running) {
+                    throw shuttingDown();
+                }
+            } while (!queue.offer(task, 100, TimeUnit.MILLISECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing a session write", e);
+        }
+        // The thread may have finished after the check above; if it has not taken the task, nothing will
+        if (finished && queue.remove(task)) {
+            throw shuttingDown();
+        }
+        return task.future;
+    }
+
+    int queued() {
+        return queue.size();
+    }
+
+    void stop() {
+        running = false;
+    }
+
+    @Override
+    public void run() {
+        List<Task<?>> tasks = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Task<?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                tasks.add(first);
+                queue.drainTo(tasks, maxBatch - 1);
+                process(tasks);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                // process() fails its own tasks; anything reaching here is a bug, but must not kill the thread
+                log.error("Session partition {} failed a batch", index, e);
+                tasks.forEach(task -> task.future.completeExceptionally(e));
+            } finally {
+                tasks.clear();
+            }
+        }
+        running = false;
+        finished = true;
+        Task<?> leftover;
+        while ((leftover = queue.poll()) != null) {
+            leftover.future.completeExceptionally(shuttingDown());
+        }
+    }
+
+    private void process(List<Task<?>> tasks) {
+        WriteBatch batch = apply(tasks);
+        if (!batch.isEmpty()) {
+            try {
+                store.persist(batch);
+            } catch (RuntimeException e) {
+                Set<String> touched = discard(batch);
+                log.warn("Session partition {} could not persist {} commands; retrying their {} sessions one by one",
+                        index, tasks.size(), touched.size(), e);
+                // Commands on sessions the batch never changed neither wrote nor saw rolled-back state, so
+                // their results still hold. Commands rejected on the way keep their rejection.
+                Map<String, List<Task<?>>> retries = new LinkedHashMap<>();
+                for (Task<?> task : tasks) {
+                    if (task.error == null && touched.contains(task.sessionId)) {
+                        retries.computeIfAbsent(task.sessionId, id -> new ArrayList<>()).add(task);
+                    }
+                }
+                retries.values().forEach(this::persistAlone);
+            }
+        }
+
+        tasks.forEach(task -> task.withCallerContext(task::complete));
+        trim();
+    }
+
+    private WriteBatch apply(List<Task<?>> tasks) {
+        WriteBatch batch = new WriteBatch();
+        for (Task<?> task : tasks) {
+            task.withCallerContext(() -> {
+                try {
+                    task.apply(state(task.sessionId), batch);
+                } catch (RuntimeException e) {
+                    task.error = e;
+                }
+            });
+        }
+        return batch;
+    }
+
+    /**
+     * Re-applies one session's commands to its reloaded state and persists them on their own, so a
+     * failure only fails that session's commands.
+     */
+    private void persistAlone(List<Task<?>> tasks) {
+        WriteBatch batch = apply(tasks);
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            store.persist(batch);
+        } catch (RuntimeException e) {
+            log.warn("Session partition {} could not persist {} commands on session {}",
+                    index, tasks.size(), tasks.get(0).sessionId, e);
+            discard(batch);
+            // Only a row changed behind the partition's back is worth retrying; anything else is passed on
+            RuntimeException failure = e instanceof OptimisticLockingFailureException
+                    ? new IllegalStateException("Session was modified by another request. Please try again.", e)
+                    : e;
+            for (Task<?> task : tasks) {
+                if (task.error == null) {
+                    task.error = failure;
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops the in-memory states a failed batch changed; they are reloaded on their next command.
+     */
+    private Set<String> discard(WriteBatch batch) {
+        Set<String> discarded = new HashSet<>();
+        batch.sessions().forEach(changes -> discarded.add(changes.state.id));
+        discarded.forEach(sessions::remove);
+        return discarded;
+    }
+
+    private SessionState state(String sessionId) {
+        SessionState state = sessions.get(sessionId);
+        if (state == null) {
+            state = store.load(sessionId);
+            sessions.put(sessionId, state);
+        }
+        return state;
+    }
+
+    private void trim() {
+        Iterator<SessionState> eldest = sessions.values().iterator();
+        while (sessions.size() > maxSessions && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    private static IllegalStateException shuttingDown() {
+        return new IllegalStateException("Session writer is shutting down");
+    }
+
+    private static final class Task<T> {
+
+        private final String sessionId;
+        private final Command<T> command;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final Map<String, String> callerContext = MDC.getCopyOfContextMap();
+        private Supplier<T> result;
+        private RuntimeException error;
+
+        private Task(String sessionId, Command<T> command) {
+            this.sessionId = sessionId;
+            this.command = command;
+        }
+
+        /**
+         * Runs {@code action} with the caller's MDC, so log lines carry its session ID and session
+         * tracing applies on this thread too.
+         */
+        void withCallerContext(Runnable action) {
+            if (callerContext == null) {
+                action.run();
+                return;
+            }
+            MDC.setContextMap(callerContext);
+            try {
+                action.run();
+            } finally {
+                MDC.clear();
+            }
+        }
+
+        void apply(SessionState state, WriteBatch batch) {
+            result = command.apply(state, batch);
+        }
+
+        void complete() {
+            if (error != null) {
+                future.completeExceptionally(error);
+                return;
+            }
+            try {
+                future.complete(result.get());
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+}
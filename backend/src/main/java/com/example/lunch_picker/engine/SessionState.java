@@ -0,0 +1,72 @@
+package com.example.lunch_picker.engine;
+
+import com.example.lunch_picker.model.RestaurantChoice;
+import com.example.lunch_picker.model.SessionStatus;
+import com.example.lunch_picker.service.NearDuplicateIndex;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * What a partition needs to know about one session to apply writes to it without asking the database.
+ * Only ever touched by the session's partition thread, so nothing here is synchronized.
+ */
+final class SessionState {
+
+    final String id;
+    SessionStatus status;
+    String firstSubmitter;
+    String chosenRestaurant;
+    long version;
+
+    /**
+     * Restaurant names in submission order; what the pick draws from. Cleared once the session closes.
+     */
+    final List<String> restaurants;
+
+    /**
+     * Normalized names, for the duplicate check. Cleared once the session closes.
+     */
+    final Set<String> normalizedNames;
+
+    /**
+     * Index for the near-duplicate check; null when that check is off or the session is closed.
+     */
+    NearDuplicateIndex similarNames;
+
+    SessionState(String id, SessionStatus status, String firstSubmitter, String chosenRestaurant, long version,
+                 List<String> restaurants, NearDuplicateIndex similarNames) {
+        this.id = id;
+        this.status = status;
+        this.firstSubmitter = firstSubmitter;
+        this.chosenRestaurant = chosenRestaurant;
+        this.version = version;
+        this.similarNames = similarNames;
+        this.restaurants = new ArrayList<>(restaurants);
+        this.normalizedNames = new HashSet<>(restaurants.size() * 2);
+        for (String restaurant : restaurants) {
+            normalizedNames.add(RestaurantChoice.normalize(restaurant));
+        }
+    }
+
+    static SessionState closed(String id, String chosenRestaurant, long version) {
+        return new SessionState(id, SessionStatus.CLOSED, null, chosenRestaurant, version, List.of(), null);
+    }
+
+    boolean isClosed() {
+        return status == SessionStatus.CLOSED;
+    }
+
+    boolean contains(String restaurant) {
+        return normalizedNames.contains(RestaurantChoice.normalize(restaurant));
+    }
+
+    /**
+     * @return the session's name that {@code restaurant} is a near-duplicate of, or null
+     */
+    String findSimilar(String restaurant) {
+        return similarNames == null ? null : similarNames.findSimilar(restaurant);
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.lunch_picker.engine;
+
+import com.example.lunch_picker.eventlog.EventLogRecorder;
+import com.example.lunch_picker.model.LunchSession;
+import com.example.lunch_picker.model.RestaurantChoice;
+import com.example.lunch_picker.model.SessionStatus;
+import com.example.lunch_picker.repository.ArchivedSessionRepository;
+import com.example.lunch_picker.repository.RestaurantRepository;
+import com.example.lunch_picker.repository.SessionRepository;
+import com.example.lunch_picker.service.NearDuplicateDetector;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Loads sessions into partition memory and writes a partition's batched changes back.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.execution.mode", havingValue = "partitioned")
+public class SessionStateStore {
+
+    /**
+     * Writes the final state of the row. The version guard catches a write that bypassed the
+     * partition, which would otherwise be silently overwritten.
+     */
+    private static final String UPDATE_SESSION = """
+            UPDATE lunch_session
+            SET version = :version,
+                choice_count = choice_count + :addedChoices,
+                first_submitter = :firstSubmitter,
+                status = :status,
+                chosen_restaurant = :chosenRestaurant,
+                closed_at = COALESCE(:closedAt, closed_at)
+            WHERE id = :id
+              AND version = :expectedVersion
+            """;
+
+    private final SessionRepository sessionRepository;
+    private final RestaurantRepository restaurantRepository;
+    private final ArchivedSessionRepository archivedSessionRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final NearDuplicateDetector nearDuplicates;
+    private final ObjectProvider<EventLogRecorder> eventLogRecorder;
+
+    /**
+     * Reads a session's row and choice names. Archived sessions load as closed.
+     *
+     * @throws IllegalArgumentException if session not found
+     */
+    SessionState load(String sessionId) {
+        return transactionTemplate.execute(status -> {
+            LunchSession session = sessionRepository.findById(sessionId).orElse(null);
+            if (session == null) {
+                return archivedSessionRepository.findChosenRestaurantById(sessionId)
+                        .map(chosen -> SessionState.closed(sessionId, chosen,
+                                archivedSessionRepository.findVersionById(sessionId).orElse(0L)))
+                        .orElseThrow(() -> new IllegalArgumentException("Session not found"));
+            }
+
+            long version = session.getVersion() == null ? 0L : session.getVersion();
+            if (session.getStatus() == SessionStatus.CLOSED) {
+                return SessionState.closed(sessionId, session.getChosenRestaurant(), version);
+            }
+            List<String> restaurants = restaurantRepository.findRestaurantNames(sessionId, Pageable.unpaged());
+            String firstSubmitter = session.getFirstSubmitter();
+            if (firstSubmitter == null && !restaurants.isEmpty()) {
+                // Choices seeded outside the submit paths do not record the first submitter
+                firstSubmitter = restaurantRepository.findFirstBySessionIdOrderByIdAsc(sessionId)
+                        .map(RestaurantChoice::getSubmittedBy)
+                        .orElse(null);
+            }
+            return new SessionState(sessionId, session.getStatus(), firstSubmitter,
+                    session.getChosenRestaurant(), version, restaurants,
+                    nearDuplicates.isEnabled() ? nearDuplicates.newIndex(restaurants) : null);
+        });
+    }
+
+    /**
+     * Writes a batch in one transaction: new choices as JDBC batches, one row update per session,
+     * then the batch's events in command order, so after-commit listeners see them as usual. With
+     * the event log on, the batch waits for one log sync rather than one per event.
+     *
+     * @throws OptimisticLockingFailureException if a session row was changed outside its partition
+     */
+    void persist(WriteBatch batch) {
+        EventLogRecorder recorder = eventLogRecorder.getIfAvailable();
+        if (recorder == null) {
+            write(batch);
+        } else {
+            recorder.recordBatch(() -> write(batch));
+        }
+    }
+
+    private void write(WriteBatch batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<SqlParameterSource> rows = new ArrayList<>(batch.sessions().size());
+            for (WriteBatch.SessionChanges changes : batch.sessions()) {
+                if (!changes.inserts.isEmpty()) {
+                    List<Long> ids = restaurantRepository.insertAll(changes.state.id, changes.inserts);
+                    for (int i = 0; i < ids.size(); i++) {
+                        changes.inserts.get(i).setId(ids.get(i));
+                    }
+                }
+                rows.add(new MapSqlParameterSource()
+                        .addValue("id", changes.state.id)
+                        .addValue("version", changes.state.version)
+                        .addValue("expectedVersion", changes.expectedVersion)
+                        .addValue("addedChoices", changes.inserts.size())
+                        .addValue("firstSubmitter", changes.state.firstSubmitter)
+                        .addValue("status", changes.state.status.name())
+                        .addValue("chosenRestaurant", changes.state.chosenRestaurant)
+                        .addValue("closedAt", changes.closedAt));
+            }
+
+            int[] updated = jdbcTemplate.batchUpdate(UPDATE_SESSION, rows.toArray(SqlParameterSource[]::new));
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] == 0) {
+                    throw new OptimisticLockingFailureException(
+                            "Session " + rows.get(i).getValue("id") + " was modified outside its partition");
+                }
+            }
+
+            for (Supplier<Object> event : batch.events()) {
+                eventPublisher.publishEvent(event.get());
+            }
+        });
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.lunch_picker.engine;
+
+import com.example.lunch_picker.event.RestaurantSubmittedEvent;
+import com.example.lunch_picker.event.SessionClosedEvent;
+import com.example.lunch_picker.model.RestaurantChoice;
+import com.example.lunch_picker.model.SessionStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Changes made by one round of a partition's commands, waiting to be persisted together.
+ * Recording a change also applies it to the in-memory {@link SessionState}, so later commands in
+ * the same round see it; if persisting fails, the partition throws those states away.
+ */
+final class WriteBatch {
+
+    private final Map<String, SessionChanges> changes = new LinkedHashMap<>();
+    // Built at publish time: choice IDs are only drawn when the batch is persisted, and every event
+    // then carries the version the batch leaves its session at
+    private final List<Supplier<Object>> events = new ArrayList<>();
+
+    void insert(SessionState state, RestaurantChoice choice) {
+        changesFor(state).inserts.add(choice);
+        state.restaurants.add(choice.getRestaurant());
+        state.normalizedNames.add(RestaurantChoice.normalize(choice.getRestaurant()));
+        if (state.similarNames != null) {
+            state.similarNames.add(choice.getRestaurant());
+        }
+        if (state.firstSubmitter == null) {
+            state.firstSubmitter = choice.getSubmittedBy();
+        }
+        state.version++;
+        events.add(() -> new RestaurantSubmittedEvent(
+                state.id, choice.getId(), choice.getRestaurant(), choice.getSubmittedBy(), state.version));
+    }
+
+    void close(SessionState state, String chosenRestaurant) {
+        SessionChanges sessionChanges = changesFor(state);
+        LocalDateTime closedAt = LocalDateTime.now();
+        sessionChanges.closedAt = closedAt;
+        state.status = SessionStatus.CLOSED;
+        state.chosenRestaurant = chosenRestaurant;
+        state.version++;
+        // A closed session takes no more writes, so its names are no longer needed
+        state.restaurants.clear();
+        state.normalizedNames.clear();
+        state.similarNames = null;
+        events.add(() -> new SessionClosedEvent(state.id, chosenRestaurant, closedAt, state.version));
+    }
+
+    boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    Collection<SessionChanges> sessions() {
+        return changes.values();
+    }
+
+    List<Supplier<Object>> events() {
+        return events;
+    }
+
+    private SessionChanges changesFor(SessionState state) {
+        return changes.computeIfAbsent(state.id, id -> new SessionChanges(state, state.version));
+    }
+
+    /**
+     * Everything one session needs written: new choices and the final state of its row.
+     */
+    static final class SessionChanges {
+
+        final SessionState state;
+        /** Version the row had before this batch; guards the row update. */
+        final long expectedVersion;
+        final List<RestaurantChoice> inserts = new ArrayList<>();
+        LocalDateTime closedAt;
+
+        private SessionChanges(SessionState state, long expectedVersion) {
+            this.state = state;
+            this.expectedVersion = expectedVersion;
+        }
+    }
+}
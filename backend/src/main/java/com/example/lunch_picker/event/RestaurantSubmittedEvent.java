@@ -0,0 +1,18 @@
+package com.example.lunch_picker.event;
+
+import lombok.Value;
+
+/**
+ * Published inside the submitting transaction when a restaurant choice is added to a session.
+ */
+@Value
+public class RestaurantSubmittedEvent {
+    String sessionId;
+    Long choiceId;
+    String restaurant;
+    String submittedBy;
+    /**
+     * Session version once the submitting transaction commits; all choices of one batch share it.
+     */
+    long version;
+}
@@ -0,0 +1,14 @@
+package com.example.lunch_picker.event;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published inside the archiving transaction when a closed session is moved to the archive.
+ */
+@Value
+public class SessionArchivedEvent {
+    String sessionId;
+    LocalDateTime archivedAt;
+}
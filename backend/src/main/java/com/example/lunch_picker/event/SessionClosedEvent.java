@@ -0,0 +1,19 @@
+package com.example.lunch_picker.event;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published inside the picking transaction when a session is closed with its chosen restaurant.
+ */
+@Value
+public class SessionClosedEvent {
+    String sessionId;
+    String chosenRestaurant;
+    LocalDateTime closedAt;
+    /**
+     * Session version once the picking transaction commits.
+     */
+    long version;
+}
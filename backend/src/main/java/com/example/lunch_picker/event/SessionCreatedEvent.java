@@ -0,0 +1,15 @@
+package com.example.lunch_picker.event;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published inside the creating transaction when a new session is opened.
+ */
+@Value
+public class SessionCreatedEvent {
+    String sessionId;
+    String createdBy;
+    LocalDateTime createdAt;
+}
@@ -0,0 +1,140 @@
+package com.example.lunch_picker.eventlog;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * On-disk layout shared by the event log writer, the snapshotter and replay.
+ * <p>
+ * A log segment is a sequence of frames: payload length, CRC32 of the payload, payload. A payload
+ * starts with its record type and timestamp. Records that change a session end with the version the
+ * change left it at, so replay restores the versions (and ETags) clients have already seen. A snapshot is a GZIP stream of tagged rows ending with
+ * {@link #ROW_END}, preceded by the number of the first log segment it does not cover.
+ */
+public final class EventLogFormat {
+
+    public static final byte SESSION_CREATED = 1;
+    public static final byte RESTAURANT_SUBMITTED = 2;
+    public static final byte SESSION_CLOSED = 3;
+    public static final byte SESSION_ARCHIVED = 4;
+
+    static final int SNAPSHOT_MAGIC = 0x4C50534E;
+    static final byte ROW_END = 0;
+    static final byte ROW_SESSION = 1;
+    static final byte ROW_CHOICE = 2;
+    static final byte ROW_ARCHIVE = 3;
+
+    static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final String SEGMENT_PREFIX = "events-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private EventLogFormat() {
+    }
+
+    public static byte[] sessionCreated(String sessionId, String createdBy, LocalDateTime createdAt) {
+        return record(SESSION_CREATED, createdAt, out -> {
+            out.writeUTF(sessionId);
+            out.writeUTF(createdBy);
+        });
+    }
+
+    public static byte[] restaurantSubmitted(String sessionId, long choiceId, String restaurant, String submittedBy,
+                                             long version) {
+        return record(RESTAURANT_SUBMITTED, LocalDateTime.now(), out -> {
+            out.writeUTF(sessionId);
+            out.writeLong(choiceId);
+            out.writeUTF(restaurant);
+            out.writeUTF(submittedBy);
+            out.writeLong(version);
+        });
+    }
+
+    public static byte[] sessionClosed(String sessionId, String chosenRestaurant, LocalDateTime closedAt, long version) {
+        return record(SESSION_CLOSED, closedAt, out -> {
+            out.writeUTF(sessionId);
+            out.writeUTF(chosenRestaurant);
+            out.writeLong(version);
+        });
+    }
+
+    public static byte[] sessionArchived(String sessionId, LocalDateTime archivedAt) {
+        return record(SESSION_ARCHIVED, archivedAt, out -> out.writeUTF(sessionId));
+    }
+
+    static String segmentName(long segment) {
+        return String.format("%s%012d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX);
+    }
+
+    static long segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Log segments in a directory, oldest first.
+     */
+    static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    static void writeTime(DataOutput out, LocalDateTime time) throws IOException {
+        out.writeBoolean(time != null);
+        if (time != null) {
+            out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(time.getNano());
+        }
+    }
+
+    static LocalDateTime readTime(DataInput in) throws IOException {
+        return in.readBoolean() ? LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC) : null;
+    }
+
+    static void writeNullable(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    static String readNullable(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static byte[] record(byte type, LocalDateTime time, Fields fields) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(type);
+            writeTime(out, time);
+            fields.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @FunctionalInterface
+    private interface Fields {
+        void write(DataOutput out) throws IOException;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.lunch_picker.eventlog;
+
+import com.example.lunch_picker.event.RestaurantSubmittedEvent;
+import com.example.lunch_picker.event.SessionArchivedEvent;
+import com.example.lunch_picker.event.SessionClosedEvent;
+import com.example.lunch_picker.event.SessionCreatedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Appends committed session changes to the event log.
+ * <p>
+ * By default the request thread waits for its record's group sync, so a change the client has
+ * seen acknowledged survives a restart. A caller committing many changes at once wraps them in
+ * {@link #recordBatch} to wait once, for the last record, instead of once per record.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.persistence.mode", havingValue = "event-log")
+public class EventLogRecorder {
+
+    private static final CompletableFuture<Long> NOTHING_WRITTEN = CompletableFuture.completedFuture(0L);
+
+    private final EventLogWriter writer;
+    private final boolean awaitSync;
+    private final Duration syncTimeout;
+    // Latest record appended inside recordBatch on this thread; unset outside it
+    private final ThreadLocal<CompletableFuture<Long>> batchTail = new ThreadLocal<>();
+
+    public EventLogRecorder(EventLogWriter writer,
+                            @Value("${app.persistence.event-log.await-fsync:true}") boolean awaitSync,
+                            @Value("${app.persistence.event-log.fsync-timeout:5s}") Duration syncTimeout) {
+        this.writer = writer;
+        this.awaitSync = awaitSync;
+        this.syncTimeout = syncTimeout;
+    }
+
+    @TransactionalEventListener
+    public void onSessionCreated(SessionCreatedEvent event) {
+        append(EventLogFormat.sessionCreated(event.getSessionId(), event.getCreatedBy(), event.getCreatedAt()));
+    }
+
+    @TransactionalEventListener
+    public void onRestaurantSubmitted(RestaurantSubmittedEvent event) {
+        append(EventLogFormat.restaurantSubmitted(
+                event.getSessionId(), event.getChoiceId(), event.getRestaurant(), event.getSubmittedBy(),
+                event.getVersion()));
+    }
+
+    @TransactionalEventListener
+    public void onSessionClosed(SessionClosedEvent event) {
+        append(EventLogFormat.sessionClosed(
+                event.getSessionId(), event.getChosenRestaurant(), event.getClosedAt(), event.getVersion()));
+    }
+
+    @TransactionalEventListener
+    public void onSessionArchived(SessionArchivedEvent event) {
+        append(EventLogFormat.sessionArchived(event.getSessionId(), event.getArchivedAt()));
+    }
+
+    /**
+     * Runs {@code work}, appending the records of the changes it commits without waiting for each,
+     * then waits for the last one. Records are synced in order, so once the last is durable all are.
+     */
+    public void recordBatch(Runnable work) {
+        if (!awaitSync || batchTail.get() != null) {
+            work.run();
+            return;
+        }
+        batchTail.set(NOTHING_WRITTEN);
+        try {
+            work.run();
+        } finally {
+            CompletableFuture<Long> last = batchTail.get();
+            batchTail.remove();
+            await(last);
+        }
+    }
+
+    private void append(byte[] record) {
+        CompletableFuture<Long> written = writer.append(record);
+        if (!awaitSync) {
+            return;
+        }
+        if (batchTail.get() != null) {
+            batchTail.set(written);
+            return;
+        }
+        await(written);
+    }
+
+    private void await(CompletableFuture<Long> written) {
+        try {
+            written.get(syncTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // The change is already committed; all we can do is report that it may not survive a restart
+            log.error("Event log write was not confirmed", e);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.lunch_picker.eventlog;
+
+import com.example.lunch_picker.model.ArchivedSession;
+import com.example.lunch_picker.model.LunchSession;
+import com.example.lunch_picker.model.RestaurantChoice;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerFactoryInfo;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Restores sessions from the event log before the application starts serving requests.
+ * <p>
+ * State is rebuilt in memory from the snapshot and the newer log segments, then written to the
+ * empty tables with JDBC batches in key order, keeping the original IDs. Each batch commits on its
+ * own: a failed replay fails startup, so there is no partial state to roll back to, and one huge
+ * transaction only makes the commit slower.
+ * <p>
+ * The tables are created by Hibernate. When JPA bootstraps in the background (the {@code fast}
+ * profile), the replay waits for it to finish first.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.persistence.mode", havingValue = "event-log")
+public class EventLogReplayer implements SmartInitializingSingleton {
+
+    private static final String INSERT_SESSION = """
+            INSERT INTO lunch_session (id, created_by, status, chosen_restaurant, created_at, closed_at, version,
+                                       first_submitter, choice_count)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+    private static final String INSERT_CHOICE = """
+            INSERT INTO restaurant_choice (id, session_id, restaurant, normalized_restaurant, submitted_by)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+    private static final String INSERT_ARCHIVE = """
+            INSERT INTO archived_session (id, created_by, first_submitter, chosen_restaurant, created_at, closed_at,
+                                          version, choice_count, choices, archived_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final Path directory;
+    private final int batchSize;
+
+    public EventLogReplayer(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory,
+                            @Value("${app.persistence.event-log.directory:data/event-log}") Path directory,
+                            @Value("${app.persistence.event-log.replay-batch-size:5000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.directory = directory;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        // With a bootstrap executor the bean is a proxy; the native factory blocks until the schema exists
+        if (entityManagerFactory instanceof EntityManagerFactoryInfo info) {
+            info.getNativeEntityManagerFactory();
+        }
+        Long existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM lunch_session", Long.class);
+        if (existing != null && existing > 0) {
+            log.warn("Skipping event log replay: the database already holds {} sessions", existing);
+            return;
+        }
+
+        long start = System.nanoTime();
+        SessionLogState state;
+        try {
+            state = SessionLogState.load(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read event log in " + directory, e);
+        }
+        Collection<LunchSession> sessions = state.sessions();
+        Collection<RestaurantChoice> choices = state.choices();
+        insertSessions(sessions, choices);
+        insertChoices(choices);
+        insertArchives(state.archives());
+        // Rows keep their original IDs; move the sequence past them, archived ones included, so none is reused
+        jdbcTemplate.execute("ALTER SEQUENCE restaurant_choice_seq RESTART WITH " + (state.maxChoiceId() + 1));
+        log.info("Replayed {} events into {} sessions, {} choices and {} archived sessions in {} ms",
+                state.getReplayedEvents(), sessions.size(), choices.size(), state.archives().size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void insertSessions(Collection<LunchSession> sessions, Collection<RestaurantChoice> choices) {
+        Map<String, Long> choiceCounts = choices.stream()
+                .collect(Collectors.groupingBy(choice -> choice.getSession().getId(), Collectors.counting()));
+        jdbcTemplate.batchUpdate(INSERT_SESSION, sessions, batchSize, (ps, session) -> {
+            ps.setString(1, session.getId());
+            ps.setString(2, session.getCreatedBy());
+            ps.setString(3, session.getStatus().name());
+            ps.setString(4, session.getChosenRestaurant());
+            ps.setTimestamp(5, toTimestamp(session.getCreatedAt()));
+            ps.setTimestamp(6, toTimestamp(session.getClosedAt()));
+            ps.setLong(7, session.getVersion());
+            ps.setString(8, session.getFirstSubmitter());
+            ps.setLong(9, choiceCounts.getOrDefault(session.getId(), 0L));
+        });
+    }
+
+    private void insertChoices(Collection<RestaurantChoice> choices) {
+        jdbcTemplate.batchUpdate(INSERT_CHOICE, choices, batchSize, (ps, choice) -> {
+            ps.setLong(1, choice.getId());
+            ps.setString(2, choice.getSession().getId());
+            ps.setString(3, choice.getRestaurant());
+            ps.setString(4, choice.getNormalizedRestaurant());
+            ps.setString(5, choice.getSubmittedBy());
+        });
+    }
+
+    private void insertArchives(Collection<ArchivedSession> archives) {
+        jdbcTemplate.batchUpdate(INSERT_ARCHIVE, archives, batchSize, (ps, archive) -> {
+            ps.setString(1, archive.getId());
+            ps.setString(2, archive.getCreatedBy());
+            ps.setString(3, archive.getFirstSubmitter());
+            ps.setString(4, archive.getChosenRestaurant());
+            ps.setTimestamp(5, toTimestamp(archive.getCreatedAt()));
+            ps.setTimestamp(6, toTimestamp(archive.getClosedAt()));
+            ps.setObject(7, archive.getVersion());
+            ps.setInt(8, archive.getChoiceCount());
+            ps.setBytes(9, archive.getChoices());
+            ps.setTimestamp(10, toTimestamp(archive.getArchivedAt()));
+        });
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime time) {
+        return time == null ? null : Timestamp.valueOf(time);
+    }
+}
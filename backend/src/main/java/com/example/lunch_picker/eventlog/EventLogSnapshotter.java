@@ -0,0 +1,151 @@
+package com.example.lunch_picker.eventlog;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Periodically writes the whole session state to a compact snapshot, so replay only has to read
+ * the log written since, and deletes the segments the snapshot covers.
+ * <p>
+ * The log is rotated first and the tables are read afterwards. Every change missing from the
+ * snapshot therefore committed after the rotation and is in a newer segment; changes that land in
+ * both are harmless because replay is idempotent.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.persistence.mode", havingValue = "event-log")
+public class EventLogSnapshotter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String SESSIONS = """
+            SELECT id, created_by, status, chosen_restaurant, created_at, closed_at, version, first_submitter
+            FROM lunch_session
+            """;
+    private static final String CHOICES = "SELECT id, session_id, restaurant, submitted_by FROM restaurant_choice";
+    private static final String ARCHIVES = """
+            SELECT id, created_by, first_submitter, chosen_restaurant, created_at, closed_at, version,
+                   choice_count, choices, archived_at
+            FROM archived_session
+            """;
+
+    private final EventLogWriter writer;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Path directory;
+
+    public EventLogSnapshotter(EventLogWriter writer,
+                               JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.persistence.event-log.directory:data/event-log}") Path directory) {
+        this.writer = writer;
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.directory = directory;
+    }
+
+    @Scheduled(initialDelayString = "${app.persistence.event-log.snapshot-interval:10m}",
+            fixedDelayString = "${app.persistence.event-log.snapshot-interval:10m}")
+    public synchronized void snapshot() throws IOException {
+        long start = System.nanoTime();
+        long firstUncovered = writer.rotate().join();
+
+        Path temp = directory.resolve(EventLogFormat.SNAPSHOT_FILE + ".tmp");
+        long rows;
+        try (FileOutputStream file = new FileOutputStream(temp.toFile())) {
+            GZIPOutputStream gzip = new GZIPOutputStream(file, BUFFER_SIZE);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(gzip, BUFFER_SIZE));
+            out.writeInt(EventLogFormat.SNAPSHOT_MAGIC);
+            out.writeLong(firstUncovered);
+            rows = readOnlyTransaction.execute(status -> writeRows(out));
+            out.writeByte(EventLogFormat.ROW_END);
+            out.flush();
+            gzip.finish();
+            file.getChannel().force(true);
+        }
+        Files.move(temp, directory.resolve(EventLogFormat.SNAPSHOT_FILE),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        for (Path segment : EventLogFormat.segments(directory)) {
+            if (EventLogFormat.segmentNumber(segment) < firstUncovered) {
+                Files.delete(segment);
+            }
+        }
+        log.info("Wrote event log snapshot of {} rows in {} ms", rows, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private long writeRows(DataOutputStream out) {
+        long[] rows = new long[1];
+        jdbcTemplate.query(SESSIONS, (RowCallbackHandler) rs -> write(() -> {
+            out.writeByte(EventLogFormat.ROW_SESSION);
+            out.writeUTF(rs.getString("id"));
+            out.writeUTF(rs.getString("created_by"));
+            out.writeUTF(rs.getString("status"));
+            EventLogFormat.writeNullable(out, rs.getString("chosen_restaurant"));
+            EventLogFormat.writeTime(out, toLocalDateTime(rs.getTimestamp("created_at")));
+            EventLogFormat.writeTime(out, toLocalDateTime(rs.getTimestamp("closed_at")));
+            out.writeLong(rs.getLong("version"));
+            EventLogFormat.writeNullable(out, rs.getString("first_submitter"));
+            rows[0]++;
+        }));
+        jdbcTemplate.query(CHOICES, (RowCallbackHandler) rs -> write(() -> {
+            out.writeByte(EventLogFormat.ROW_CHOICE);
+            out.writeLong(rs.getLong("id"));
+            out.writeUTF(rs.getString("session_id"));
+            out.writeUTF(rs.getString("restaurant"));
+            out.writeUTF(rs.getString("submitted_by"));
+            rows[0]++;
+        }));
+        jdbcTemplate.query(ARCHIVES, (RowCallbackHandler) rs -> write(() -> {
+            out.writeByte(EventLogFormat.ROW_ARCHIVE);
+            out.writeUTF(rs.getString("id"));
+            out.writeUTF(rs.getString("created_by"));
+            EventLogFormat.writeNullable(out, rs.getString("first_submitter"));
+            EventLogFormat.writeNullable(out, rs.getString("chosen_restaurant"));
+            EventLogFormat.writeTime(out, toLocalDateTime(rs.getTimestamp("created_at")));
+            EventLogFormat.writeTime(out, toLocalDateTime(rs.getTimestamp("closed_at")));
+            out.writeLong(rs.getLong("version"));
+            out.writeInt(rs.getInt("choice_count"));
+            byte[] choices = rs.getBytes("choices");
+            out.writeInt(choices.length);
+            out.write(choices);
+            EventLogFormat.writeTime(out, toLocalDateTime(rs.getTimestamp("archived_at")));
+            rows[0]++;
+        }));
+        return rows[0];
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+
+    private static void write(RowWriter writer) throws SQLException {
+        try {
+            writer.write();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write() throws IOException, SQLException;
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.lunch_picker.eventlog;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Appends records to the event log from a single writer thread.
+ * <p>
+ * Whatever has queued up while the previous write was being synced goes out as one group: the
+ * records are written, the segment is fsynced once, and then every record in the group is
+ * acknowledged. Under load this turns many small syncs into a few large ones.
+ * <p>
+ * A group that fails to write may leave a partial record behind, and replay stops reading a segment
+ * at its first bad record. The writer therefore moves on to a new segment after a failure, so later
+ * groups are never appended behind the damage.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.persistence.mode", havingValue = "event-log")
+public class EventLogWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final int maxBatch;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread writerThread;
+    private volatile boolean running;
+
+    private long segment;
+    private FileOutputStream file;
+    private DataOutputStream out;
+
+    public EventLogWriter(@Value("${app.persistence.event-log.directory:data/event-log}") Path directory,
+                          @Value("${app.persistence.event-log.max-batch:1024}") int maxBatch) {
+        this.directory = directory;
+        this.maxBatch = maxBatch;
+        this.writerThread = new Thread(this::run, "event-log-writer");
+    }
+
+    /**
+     * Opens a fresh segment after the newest existing one and starts the writer thread.
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> existing = EventLogFormat.segments(directory);
+        open(existing.isEmpty() ? 1 : EventLogFormat.segmentNumber(existing.get(existing.size() - 1)) + 1);
+        running = true;
+        writerThread.start();
+    }
+
+    /**
+     * Queues a record; the future completes once it has been fsynced.
+     */
+    public CompletableFuture<Long> append(byte[] record) {
+        return enqueue(new Pending(record, new CompletableFuture<>()));
+    }
+
+    /**
+     * Closes the current segment once everything queued before it is durable and starts a new one.
+     * The future completes with the new segment's number.
+     */
+    public CompletableFuture<Long> rotate() {
+        return enqueue(new Pending(null, new CompletableFuture<>()));
+    }
+
+    private CompletableFuture<Long> enqueue(Pending pending) {
+        if (!running) {
+            pending.done.completeExceptionally(new IllegalStateException("Event log is closed"));
+        } else {
+            queue.add(pending);
+        }
+        return pending.done;
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException, IOException {
+        running = false;
+        writerThread.join();
+        if (out != null) {
+            sync();
+            out.close();
+        }
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                log.error("Failed to write {} event log records", batch.size(), e);
+                batch.forEach(pending -> pending.done.completeExceptionally(e));
+                abandonSegment();
+            }
+            batch.clear();
+        }
+    }
+
+    private void abandonSegment() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            log.debug("Failed to close event log segment {}", segment, e);
+        }
+        try {
+            open(segment + 1);
+        } catch (IOException e) {
+            // The next group fails on the closed stream and tries again
+            log.error("Failed to open event log segment {}", segment, e);
+        }
+    }
+
+    private void write(List<Pending> batch) throws IOException {
+        CRC32 crc = new CRC32();
+        int acknowledged = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            Pending pending = batch.get(i);
+            if (pending.record != null) {
+                crc.reset();
+                crc.update(pending.record);
+                out.writeInt(pending.record.length);
+                out.writeInt((int) crc.getValue());
+                out.write(pending.record);
+            } else {
+                sync();
+                acknowledge(batch, acknowledged, i);
+                out.close();
+                open(segment + 1);
+                pending.done.complete(segment);
+                acknowledged = i + 1;
+            }
+        }
+        sync();
+        acknowledge(batch, acknowledged, batch.size());
+    }
+
+    private void acknowledge(List<Pending> batch, int from, int to) {
+        for (int i = from; i < to; i++) {
+            batch.get(i).done.complete(segment);
+        }
+    }
+
+    private void sync() throws IOException {
+        out.flush();
+        file.getChannel().force(false);
+    }
+
+    private void open(long number) throws IOException {
+        segment = number;
+        file = new FileOutputStream(directory.resolve(EventLogFormat.segmentName(number)).toFile(), true);
+        out = new DataOutputStream(new BufferedOutputStream(file, BUFFER_SIZE));
+        log.debug("Writing event log segment {}", number);
+    }
+
+    private record Pending(byte[] record, CompletableFuture<Long> done) {
+    }
+}
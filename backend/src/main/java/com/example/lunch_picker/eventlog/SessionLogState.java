@@ -0,0 +1,291 @@
+package com.example.lunch_picker.eventlog;
+
+import com.example.lunch_picker.model.ArchivedSession;
+import com.example.lunch_picker.model.LunchSession;
+import com.example.lunch_picker.model.RestaurantChoice;
+import com.example.lunch_picker.model.SessionStatus;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Session state rebuilt from the latest snapshot plus the log segments written after it.
+ * <p>
+ * Applying a record is idempotent and does not depend on record order between sessions, because
+ * records are appended after their transactions commit and may land in the log in a slightly
+ * different order, or be covered by the snapshot as well.
+ */
+@Slf4j
+public class SessionLogState {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Map<String, LunchSession> sessions = new HashMap<>();
+    private final Map<Long, RestaurantChoice> choices = new HashMap<>();
+    private final Map<String, ArchivedSession> archives = new HashMap<>();
+    private final Map<String, LocalDateTime> archivedSince = new HashMap<>();
+    @Getter
+    private long replayedEvents;
+
+    /**
+     * Loads the snapshot in {@code directory}, if any, and replays the segments it does not cover.
+     */
+    public static SessionLogState load(Path directory) throws IOException {
+        SessionLogState state = new SessionLogState();
+        long firstSegment = 0;
+        Path snapshot = directory.resolve(EventLogFormat.SNAPSHOT_FILE);
+        if (Files.exists(snapshot)) {
+            firstSegment = state.readSnapshot(snapshot);
+        }
+        for (Path segment : EventLogFormat.segments(directory)) {
+            if (EventLogFormat.segmentNumber(segment) >= firstSegment) {
+                state.readSegment(segment);
+            }
+        }
+        state.resolveSessions();
+        state.resolveFirstSubmitters();
+        state.resolveArchives();
+        return state;
+    }
+
+    /**
+     * Live sessions, i.e. those not archived since they were logged, in ID order.
+     */
+    public List<LunchSession> sessions() {
+        return sessions.values().stream()
+                .filter(session -> !archives.containsKey(session.getId()))
+                .sorted(Comparator.comparing(LunchSession::getId))
+                .toList();
+    }
+
+    /**
+     * Choices of live sessions in ID order; they refer to their session through
+     * {@link RestaurantChoice#getSession()}.
+     */
+    public List<RestaurantChoice> choices() {
+        return choices.values().stream()
+                .filter(choice -> choice.getSession() != null && !archives.containsKey(choice.getSession().getId()))
+                .sorted(Comparator.comparing(RestaurantChoice::getId))
+                .toList();
+    }
+
+    public Collection<ArchivedSession> archives() {
+        return archives.values();
+    }
+
+    /**
+     * Highest choice ID in the log, whether its session is live or archived, or 0 if there is none.
+     */
+    public long maxChoiceId() {
+        long max = 0;
+        for (Long id : choices.keySet()) {
+            max = Math.max(max, id);
+        }
+        for (ArchivedSession archive : archives.values()) {
+            max = Math.max(max, archive.maxChoiceId());
+        }
+        return max;
+    }
+
+    private long readSnapshot(Path snapshot) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(snapshot), BUFFER_SIZE), BUFFER_SIZE))) {
+            if (in.readInt() != EventLogFormat.SNAPSHOT_MAGIC) {
+                throw new IOException("Not an event log snapshot: " + snapshot);
+            }
+            long firstSegment = in.readLong();
+            for (byte row = in.readByte(); row != EventLogFormat.ROW_END; row = in.readByte()) {
+                switch (row) {
+                    case EventLogFormat.ROW_SESSION -> {
+                        LunchSession session = LunchSession.builder()
+                                .id(in.readUTF())
+                                .createdBy(in.readUTF())
+                                .status(SessionStatus.valueOf(in.readUTF()))
+                                .chosenRestaurant(EventLogFormat.readNullable(in))
+                                .createdAt(EventLogFormat.readTime(in))
+                                .closedAt(EventLogFormat.readTime(in))
+                                .version(in.readLong())
+                                .firstSubmitter(EventLogFormat.readNullable(in))
+                                .build();
+                        sessions.put(session.getId(), session);
+                    }
+                    case EventLogFormat.ROW_CHOICE -> addChoice(in.readLong(), in.readUTF(), in.readUTF(), in.readUTF());
+                    case EventLogFormat.ROW_ARCHIVE -> {
+                        ArchivedSession archive = ArchivedSession.builder()
+                                .id(in.readUTF())
+                                .createdBy(in.readUTF())
+                                .firstSubmitter(EventLogFormat.readNullable(in))
+                                .chosenRestaurant(EventLogFormat.readNullable(in))
+                                .createdAt(EventLogFormat.readTime(in))
+                                .closedAt(EventLogFormat.readTime(in))
+                                .version(in.readLong())
+                                .choiceCount(in.readInt())
+                                .choices(in.readNBytes(in.readInt()))
+                                .archivedAt(EventLogFormat.readTime(in))
+                                .build();
+                        archives.put(archive.getId(), archive);
+                    }
+                    default -> throw new IOException("Unknown snapshot row type " + row);
+                }
+            }
+            return firstSegment;
+        }
+    }
+
+    private void readSegment(Path segment) throws IOException {
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment), BUFFER_SIZE))) {
+            while (true) {
+                byte[] record;
+                int checksum;
+                try {
+                    int length = in.readInt();
+                    checksum = in.readInt();
+                    record = in.readNBytes(length);
+                    if (record.length < length) {
+                        throw new EOFException();
+                    }
+                } catch (EOFException e) {
+                    return;
+                }
+                crc.reset();
+                crc.update(record);
+                if ((int) crc.getValue() != checksum) {
+                    // A torn write from a crash; nothing after it in this segment was acknowledged
+                    log.warn("Ignoring corrupt tail of event log segment {}", segment.getFileName());
+                    return;
+                }
+                apply(new DataInputStream(new ByteArrayInputStream(record)));
+            }
+        }
+    }
+
+    private void apply(DataInput in) throws IOException {
+        byte type = in.readByte();
+        LocalDateTime time = EventLogFormat.readTime(in);
+        String sessionId = in.readUTF();
+        switch (type) {
+            case EventLogFormat.SESSION_CREATED -> {
+                String createdBy = in.readUTF();
+                sessions.computeIfAbsent(sessionId, id -> LunchSession.builder()
+                        .id(id)
+                        .createdBy(createdBy)
+                        .status(SessionStatus.OPEN)
+                        .createdAt(time)
+                        .version(0L)
+                        .build());
+            }
+            case EventLogFormat.RESTAURANT_SUBMITTED -> {
+                addChoice(in.readLong(), sessionId, in.readUTF(), in.readUTF());
+                advanceVersion(sessionId, in.readLong());
+            }
+            case EventLogFormat.SESSION_CLOSED -> {
+                String chosen = in.readUTF();
+                LunchSession session = sessions.get(sessionId);
+                if (session != null && session.getStatus() != SessionStatus.CLOSED) {
+                    session.setStatus(SessionStatus.CLOSED);
+                    session.setChosenRestaurant(chosen);
+                    session.setClosedAt(time);
+                }
+                advanceVersion(sessionId, in.readLong());
+            }
+            case EventLogFormat.SESSION_ARCHIVED -> archivedSince.put(sessionId, time);
+            default -> throw new IOException("Unknown event log record type " + type);
+        }
+        replayedEvents++;
+    }
+
+    /**
+     * Adds a choice unless it is already known. Its session may not have been read yet, so until
+     * {@link #resolveSessions()} the choice only points at a placeholder carrying the session ID.
+     */
+    private void addChoice(long id, String sessionId, String restaurant, String submittedBy) {
+        if (choices.containsKey(id)) {
+            return;
+        }
+        LunchSession session = sessions.get(sessionId);
+        choices.put(id, RestaurantChoice.builder()
+                .id(id)
+                .restaurant(restaurant)
+                .normalizedRestaurant(RestaurantChoice.normalize(restaurant))
+                .submittedBy(submittedBy)
+                .session(session != null ? session : LunchSession.builder().id(sessionId).build())
+                .build());
+    }
+
+    /**
+     * Points every choice at its rebuilt session; choices of unknown sessions are left without one.
+     */
+    private void resolveSessions() {
+        for (RestaurantChoice choice : choices.values()) {
+            choice.setSession(sessions.get(choice.getSession().getId()));
+        }
+    }
+
+    /**
+     * Moves a session to the version a record left it at. Versions only grow, so a record that
+     * arrives late, or that the snapshot already covers, leaves the session as it is.
+     */
+    private void advanceVersion(String sessionId, long version) {
+        LunchSession session = sessions.get(sessionId);
+        if (session != null && session.getVersion() < version) {
+            session.setVersion(version);
+        }
+    }
+
+    /**
+     * Sessions whose first submitter was not captured in a snapshot take it from their lowest-ID
+     * choice, which is the one inserted while the first submitter held the session lock.
+     */
+    private void resolveFirstSubmitters() {
+        Map<String, RestaurantChoice> firstChoices = new HashMap<>();
+        for (RestaurantChoice choice : choices.values()) {
+            if (choice.getSession() != null && choice.getSession().getFirstSubmitter() == null) {
+                firstChoices.merge(choice.getSession().getId(), choice,
+                        (a, b) -> a.getId() < b.getId() ? a : b);
+            }
+        }
+        firstChoices.forEach((sessionId, choice) -> sessions.get(sessionId).setFirstSubmitter(choice.getSubmittedBy()));
+    }
+
+    /**
+     * Packs sessions archived after the snapshot into archive records, the way the archive job
+     * did, and drops them and their choices from the live state.
+     */
+    private void resolveArchives() {
+        if (archivedSince.isEmpty()) {
+            return;
+        }
+        Map<String, List<RestaurantChoice>> archivedChoices = new HashMap<>();
+        for (RestaurantChoice choice : choices.values()) {
+            if (choice.getSession() != null && archivedSince.containsKey(choice.getSession().getId())) {
+                archivedChoices.computeIfAbsent(choice.getSession().getId(), id -> new ArrayList<>()).add(choice);
+            }
+        }
+        archivedSince.forEach((sessionId, archivedAt) -> {
+            LunchSession session = sessions.remove(sessionId);
+            if (session == null) {
+                // Already archived in the snapshot, or never logged
+                return;
+            }
+            List<RestaurantChoice> sessionChoices = archivedChoices.getOrDefault(sessionId, List.of());
+            sessionChoices.sort(Comparator.comparing(RestaurantChoice::getId));
+            sessionChoices.forEach(choice -> choices.remove(choice.getId()));
+            ArchivedSession archive = ArchivedSession.of(session, sessionChoices);
+            archive.setArchivedAt(archivedAt);
+            archives.putIfAbsent(sessionId, archive);
+        });
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.lunch_picker.logging;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Puts the session ID of {@code /api/sessions/{id}/...} requests into the logging MDC, so every log
+ * line written while serving the request carries it and {@link SessionTraceFilter} can act on it.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SessionMdcFilter extends OncePerRequestFilter {
+
+    public static final String SESSION_ID = "sessionId";
+
+    private static final String SESSIONS_PATH = "/api/sessions/";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String sessionId = sessionIdOf(request.getRequestURI());
+        if (sessionId == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        MDC.put(SESSION_ID, sessionId);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            MDC.remove(SESSION_ID);
+        }
+    }
+
+    static String sessionIdOf(String uri) {
+        int start = uri.indexOf(SESSIONS_PATH);
+        if (start < 0) {
+            return null;
+        }
+        start += SESSIONS_PATH.length();
+        int end = start;
+        // Stops at the next path segment or at a custom method such as ":batch"
+        while (end < uri.length() && uri.charAt(end) != '/' && uri.charAt(end) != ':') {
+            end++;
+        }
+        return end > start ? uri.substring(start, end) : null;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.lunch_picker.logging;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * {@code /actuator/sessiontrace}: switches full logging on and off for a single session at runtime.
+ * <ul>
+ *   <li>{@code GET} lists the traced sessions and the sampling rate</li>
+ *   <li>{@code POST /{sessionId}} with an optional {@code {"ttl": "30m"}} body starts tracing</li>
+ *   <li>{@code DELETE /{sessionId}} stops it</li>
+ * </ul>
+ * Only exposed with the {@code trace} profile, which moves actuator to a loopback-only port.
+ */
+@Component
+@Endpoint(id = "sessiontrace")
+@RequiredArgsConstructor
+public class SessionTraceEndpoint {
+
+    private final SessionTraceFilter traceFilter;
+
+    @ReadOperation
+    public Map<String, Object> traces() {
+        return Map.of(
+                "sampleRate", traceFilter.getSampleRate(),
+                "sessions", traceFilter.traced());
+    }
+
+    /**
+     * @param ttl How long to trace for, as "30m" or ISO-8601; a String rather than a Duration, which
+     *            the OpenAPI docs cannot describe as an actuator request body
+     */
+    @WriteOperation
+    public Map<String, Object> trace(@Selector String sessionId, @Nullable String ttl) {
+        try {
+            Instant expiresAt = traceFilter.trace(sessionId, parseTtl(ttl));
+            return Map.of("sessionId", sessionId, "expiresAt", expiresAt);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+    }
+
+    @DeleteOperation
+    public Map<String, Object> untrace(@Selector String sessionId) {
+        return Map.of("sessionId", sessionId, "traced", traceFilter.untrace(sessionId));
+    }
+
+    private static Duration parseTtl(String ttl) {
+        if (ttl == null || ttl.isBlank()) {
+            return null;
+        }
+        try {
+            return DurationStyle.detectAndParse(ttl);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException("Invalid ttl '" + ttl + "'", "Invalid ttl");
+        }
+    }
+}
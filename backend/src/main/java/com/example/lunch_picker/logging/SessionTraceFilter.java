@@ -0,0 +1,179 @@
+package com.example.lunch_picker.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lets debug logging through for some sessions while the configured levels keep it off for the rest.
+ * <p>
+ * Two mechanisms, both keyed on the {@code sessionId} MDC entry set by {@link SessionMdcFilter}:
+ * <ul>
+ *   <li><b>Sampling</b>: a fixed share of sessions ({@code app.logging.trace.sample-rate}) get the
+ *   application's debug logging. The decision is a hash of the session ID, so a sampled session is
+ *   traced on every request rather than on scattered ones.</li>
+ *   <li><b>Tracing</b>: a session switched on at runtime through the {@code sessiontrace} actuator
+ *   endpoint gets every logger at every level, SQL statements included, until it is switched off or
+ *   its trace expires. Traces are capped in number and lifetime ({@code app.logging.trace.max-sessions},
+ *   {@code max-ttl}), and bind-value loggers stay at their configured level so traces never log
+ *   the data bound into SQL.</li>
+ * </ul>
+ * Logback consults turbo filters before the level check, so this costs one MDC lookup per log call
+ * and nothing at all while no session is traced and sampling is off.
+ */
+@Component
+public class SessionTraceFilter extends TurboFilter {
+
+    private static final String APPLICATION_LOGGERS = "com.example.lunch_picker";
+    // Hibernate 6 logs bind values under the first, older versions under the second
+    private static final List<String> BIND_VALUE_LOGGERS = List.of("org.hibernate.orm.jdbc.bind", "org.hibernate.type");
+    private static final int SAMPLE_BUCKETS = 10_000;
+
+    private final int sampledBuckets;
+    private final Duration defaultTtl;
+    private final Duration maxTtl;
+    private final int maxSessions;
+    private final Clock clock;
+    private final Map<String, Instant> traced = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SessionTraceFilter(@Value("${app.logging.trace.sample-rate:0}") double sampleRate,
+                              @Value("${app.logging.trace.ttl:15m}") Duration defaultTtl,
+                              @Value("${app.logging.trace.max-ttl:1h}") Duration maxTtl,
+                              @Value("${app.logging.trace.max-sessions:10}") int maxSessions) {
+        this(sampleRate, defaultTtl, maxTtl, maxSessions, Clock.systemUTC());
+    }
+
+    SessionTraceFilter(double sampleRate, Duration defaultTtl, Duration maxTtl, int maxSessions, Clock clock) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("app.logging.trace.sample-rate must be between 0 and 1");
+        }
+        this.sampledBuckets = (int) Math.round(sampleRate * SAMPLE_BUCKETS);
+        this.defaultTtl = defaultTtl;
+        this.maxTtl = maxTtl;
+        this.maxSessions = maxSessions;
+        this.clock = clock;
+        setName("session-trace");
+    }
+
+    @PostConstruct
+    void register() {
+        if (LoggerFactory.getILoggerFactory() instanceof LoggerContext context) {
+            setContext(context);
+            start();
+            context.addTurboFilter(this);
+        }
+    }
+
+    @PreDestroy
+    void unregister() {
+        if (getContext() instanceof LoggerContext context) {
+            context.getTurboFilterList().remove(this);
+        }
+        stop();
+    }
+
+    /**
+     * Logs everything for a session until {@code ttl} (or the configured default) has passed.
+     *
+     * @return when the trace expires
+     * @throws IllegalArgumentException if {@code ttl} is not positive or longer than the maximum
+     * @throws IllegalStateException    if the maximum number of sessions is already traced
+     */
+    public synchronized Instant trace(String sessionId, Duration ttl) {
+        Duration lifetime = ttl != null ? ttl : defaultTtl;
+        if (lifetime.isNegative() || lifetime.isZero() || lifetime.compareTo(maxTtl) > 0) {
+            throw new IllegalArgumentException("A trace must last more than zero and at most " + maxTtl);
+        }
+        Instant now = clock.instant();
+        traced.values().removeIf(now::isAfter);
+        if (!traced.containsKey(sessionId) && traced.size() >= maxSessions) {
+            throw new IllegalStateException("At most " + maxSessions + " sessions can be traced at once");
+        }
+        Instant expiresAt = now.plus(lifetime);
+        traced.put(sessionId, expiresAt);
+        return expiresAt;
+    }
+
+    public boolean untrace(String sessionId) {
+        return traced.remove(sessionId) != null;
+    }
+
+    /**
+     * Sessions currently traced, with the instant each trace expires.
+     */
+    public Map<String, Instant> traced() {
+        Instant now = clock.instant();
+        traced.values().removeIf(now::isAfter);
+        return new TreeMap<>(traced);
+    }
+
+    public double getSampleRate() {
+        return (double) sampledBuckets / SAMPLE_BUCKETS;
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (traced.isEmpty() && sampledBuckets == 0) {
+            return FilterReply.NEUTRAL;
+        }
+        String sessionId = MDC.get(SessionMdcFilter.SESSION_ID);
+        if (sessionId == null) {
+            return FilterReply.NEUTRAL;
+        }
+        if (isTraced(sessionId)) {
+            return isBindValueLogger(logger) ? FilterReply.NEUTRAL : FilterReply.ACCEPT;
+        }
+        if (level != null && level.levelInt <= Level.DEBUG_INT
+                && logger.getName().startsWith(APPLICATION_LOGGERS)
+                && isSampled(sessionId)) {
+            return FilterReply.ACCEPT;
+        }
+        return FilterReply.NEUTRAL;
+    }
+
+    boolean isSampled(String sessionId) {
+        // Spread the hash before bucketing; UUID string hashes cluster in the low bits
+        int hash = sessionId.hashCode() * 0x9E3779B9;
+        return Math.floorMod(hash ^ (hash >>> 16), SAMPLE_BUCKETS) < sampledBuckets;
+    }
+
+    private static boolean isBindValueLogger(Logger logger) {
+        for (String prefix : BIND_VALUE_LOGGERS) {
+            if (logger.getName().startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isTraced(String sessionId) {
+        Instant expiresAt = traced.get(sessionId);
+        if (expiresAt == null) {
+            return false;
+        }
+        if (clock.instant().isAfter(expiresAt)) {
+            traced.remove(sessionId, expiresAt);
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.lunch_picker.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records how long after JVM start the first HTTP request was answered, as the
+ * {@code lunch.startup.first.request} gauge. Unlike Spring Boot's {@code application.ready.time},
+ * this includes JVM startup and whatever was deferred until the first request, so it shows the
+ * whole effect of lazy initialization, AOT and class data sharing. Reads NaN until then.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class FirstRequestTimer extends OncePerRequestFilter {
+
+    private static final long NOT_YET = -1;
+
+    private final AtomicLong firstRequestMillis = new AtomicLong(NOT_YET);
+
+    public FirstRequestTimer(MeterRegistry registry) {
+        TimeGauge.builder("lunch.startup.first.request", firstRequestMillis, TimeUnit.MILLISECONDS,
+                        millis -> millis.get() == NOT_YET ? Double.NaN : millis.get())
+                .description("Time from JVM start until the first HTTP request was answered")
+                .register(registry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            // A plain read keeps the check off the write path once the first request has been timed
+            if (firstRequestMillis.get() == NOT_YET) {
+                long millis = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+                if (firstRequestMillis.compareAndSet(NOT_YET, millis)) {
+                    log.info("First request answered {} ms after JVM start", millis);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.lunch_picker.metrics;
+
+import com.example.lunch_picker.model.SessionStatus;
+import com.example.lunch_picker.repository.SessionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Domain meters for the session lifecycle. Operation latencies are recorded with {@code @Timed}
+ * on the service methods; this class holds the rejection counters and session-size meters.
+ */
+@Component
+public class SessionMetrics {
+
+    private final Counter duplicateRejections;
+    private final Counter nearDuplicateRejections;
+    private final Counter closedSessionRejections;
+    private final Counter firstSubmitterDenials;
+    private final Counter optimisticLockRetries;
+    private final DistributionSummary choicesPerSession;
+
+    public SessionMetrics(MeterRegistry registry, SessionRepository sessionRepository) {
+        this.duplicateRejections = Counter.builder("lunch.submit.rejections")
+                .description("Submissions rejected because the restaurant was already in the session")
+                .tag("reason", "duplicate")
+                .register(registry);
+        this.nearDuplicateRejections = Counter.builder("lunch.submit.rejections")
+                .description("Submissions rejected because a similarly spelled restaurant was already in the session")
+                .tag("reason", "near-duplicate")
+                .register(registry);
+        this.closedSessionRejections = Counter.builder("lunch.submit.rejections")
+                .description("Submissions rejected because the session was closed")
+                .tag("reason", "closed")
+                .register(registry);
+        this.firstSubmitterDenials = Counter.builder("lunch.pick.denials")
+                .description("Pick requests from someone other than the first submitter")
+                .register(registry);
+        this.optimisticLockRetries = Counter.builder("lunch.optimistic.lock.retries")
+                .description("Writes that hit an OptimisticLockingFailureException and had to be retried")
+                .register(registry);
+        // Per-session gauges would create one time series per session; a histogram of choice counts
+        // at pick time describes the same distribution with bounded cardinality.
+        this.choicesPerSession = DistributionSummary.builder("lunch.session.choices")
+                .description("Number of restaurant choices in a session when it is picked")
+                .publishPercentileHistogram()
+                .register(registry);
+
+        Gauge.builder("lunch.sessions.open", sessionRepository, repository -> repository.countByStatus(SessionStatus.OPEN))
+                .description("Sessions currently accepting submissions")
+                .register(registry);
+    }
+
+    public void duplicateRejected() {
+        duplicateRejections.increment();
+    }
+
+    public void nearDuplicateRejected() {
+        nearDuplicateRejections.increment();
+    }
+
+    public void closedSessionRejected() {
+        closedSessionRejections.increment();
+    }
+
+    public void firstSubmitterDenied() {
+        firstSubmitterDenials.increment();
+    }
+
+    public void optimisticLockRetried() {
+        optimisticLockRetries.increment();
+    }
+
+    public void sessionPicked(long choiceCount) {
+        choicesPerSession.record(choiceCount);
+    }
+}
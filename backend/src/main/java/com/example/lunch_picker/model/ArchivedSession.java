@@ -0,0 +1,139 @@
+package com.example.lunch_picker.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compact, read-only copy of a closed session that has been moved out of the live tables.
+ * All of the session's choices are packed into one GZIP-compressed blob instead of one row each.
+ */
+@Entity
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString(exclude = "choices")
+@EqualsAndHashCode(of = "id")
+public class ArchivedSession {
+
+    @Id
+    private String id;
+
+    @Column(nullable = false)
+    private String createdBy;
+
+    private String firstSubmitter;
+
+    private String chosenRestaurant;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime closedAt;
+
+    private Long version;
+
+    @Column(nullable = false)
+    private int choiceCount;
+
+    /**
+     * Choices encoded by {@link #encodeChoices(List)}.
+     */
+    @Lob
+    @Column(nullable = false)
+    private byte[] choices;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+
+    /**
+     * Builds an archive record from a live session and its choices (in ID order).
+     */
+    public static ArchivedSession of(LunchSession session, List<RestaurantChoice> choices) {
+        return ArchivedSession.builder()
+                .id(session.getId())
+                .createdBy(session.getCreatedBy())
+                .firstSubmitter(session.getFirstSubmitter())
+                .chosenRestaurant(session.getChosenRestaurant())
+                .createdAt(session.getCreatedAt())
+                .closedAt(session.getClosedAt())
+                .version(session.getVersion())
+                .choiceCount(choices.size())
+                .choices(encodeChoices(choices))
+                .archivedAt(LocalDateTime.now())
+                .build();
+    }
+
+    /**
+     * Highest ID among the archived choices, or 0 if there are none.
+     */
+    public long maxChoiceId() {
+        long max = 0;
+        for (RestaurantChoice choice : decodeChoices(choices)) {
+            max = Math.max(max, choice.getId());
+        }
+        return max;
+    }
+
+    /**
+     * Rebuilds a detached, closed {@link LunchSession} with its choices, so archived sessions can be
+     * served by the same read paths as live ones.
+     */
+    public LunchSession toLunchSession() {
+        LunchSession session = LunchSession.builder()
+                .id(id)
+                .createdBy(createdBy)
+                .firstSubmitter(firstSubmitter)
+                .status(SessionStatus.CLOSED)
+                .chosenRestaurant(chosenRestaurant)
+                .createdAt(createdAt)
+                .closedAt(closedAt)
+                .version(version)
+                .build();
+        for (RestaurantChoice choice : decodeChoices(choices)) {
+            choice.setSession(session);
+            session.getRestaurantChoices().add(choice);
+        }
+        return session;
+    }
+
+    static byte[] encodeChoices(List<RestaurantChoice> choices) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            out.writeInt(choices.size());
+            for (RestaurantChoice choice : choices) {
+                out.writeLong(choice.getId());
+                out.writeUTF(choice.getRestaurant());
+                out.writeUTF(choice.getSubmittedBy());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode archived choices", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static List<RestaurantChoice> decodeChoices(byte[] encoded) {
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(encoded)))) {
+            int count = in.readInt();
+            List<RestaurantChoice> choices = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                choices.add(RestaurantChoice.builder()
+                        .id(in.readLong())
+                        .restaurant(in.readUTF())
+                        .submittedBy(in.readUTF())
+                        .build());
+            }
+            return choices;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decode archived choices", e);
+        }
+    }
+}
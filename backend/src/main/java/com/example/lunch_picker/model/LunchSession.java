@@ -13,6 +13,13 @@ import java.util.List;
  * Uses optimistic locking to prevent race conditions in distributed systems.
  */
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_lunch_session_status_closed_at", columnList = "status, closed_at"),
+        // Session listing: by creator (and status), by status alone, and unfiltered, all newest first
+        @Index(name = "idx_lunch_session_created_by_status_created_at", columnList = "created_by, status, created_at"),
+        @Index(name = "idx_lunch_session_status_created_at", columnList = "status, created_at"),
+        @Index(name = "idx_lunch_session_created_at", columnList = "created_at")
+})
 @Getter
 @Setter
 @Builder
@@ -34,9 +41,20 @@ public class LunchSession {
 
     private String chosenRestaurant;
 
+    /**
+     * User who submitted the session's first restaurant; only they may trigger the pick.
+     * Recorded when the first choice is inserted, so the pick does not have to read the choices.
+     */
+    private String firstSubmitter;
+
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
+    /**
+     * When the pick closed the session; drives archival of old sessions.
+     */
+    private LocalDateTime closedAt;
+
     /**
      * Optimistic locking version field.
      * Prevents race conditions when multiple users try to pick simultaneously.
@@ -45,8 +63,20 @@ public class LunchSession {
     @Version
     private Long version;
 
+    /**
+     * Number of choices, raised by the same statement that bumps {@code version} for them, so a
+     * read of the row never pairs a count with another version. JPA never writes it after insert.
+     */
+    @Column(nullable = false, updatable = false)
+    private long choiceCount;
+
+    /**
+     * Loaded lazily: most operations only need the session row. Use
+     * {@code SessionRepository.findWithRestaurantChoicesById} when the full list is required.
+     */
     @Builder.Default
-    @OneToMany(mappedBy = "session", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "session", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @OrderBy("id ASC")
     private List<RestaurantChoice> restaurantChoices = new ArrayList<>();
 
     @PrePersist
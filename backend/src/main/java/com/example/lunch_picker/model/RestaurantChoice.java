@@ -4,7 +4,15 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import lombok.*;
 
+import java.util.Locale;
+import java.util.regex.Pattern;
+
 @Entity
+@Table(
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_restaurant_choice_session_normalized",
+                columnNames = {"session_id", "normalized_restaurant"}),
+        indexes = @Index(name = "idx_restaurant_choice_session_id", columnList = "session_id, id"))
 @Getter
 @Setter
 @Builder
@@ -14,14 +22,28 @@ import lombok.*;
 @EqualsAndHashCode(of = "id")
 public class RestaurantChoice {
 
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /**
+     * Drawn from a pooled sequence in blocks of 50, so inserts can be batched. Within one
+     * application instance IDs still increase in insertion order.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "restaurant_choice_seq")
+    @SequenceGenerator(name = "restaurant_choice_seq", sequenceName = "restaurant_choice_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank
     @Column(nullable = false)
     private String restaurant;
 
+    /**
+     * Case-folded, whitespace-collapsed form of {@link #restaurant}.
+     * Backs the unique (session_id, normalized_restaurant) index used for duplicate detection.
+     */
+    @Column(nullable = false)
+    private String normalizedRestaurant;
+
     @NotBlank
     @Column(nullable = false)
     private String submittedBy;
@@ -29,4 +51,19 @@ public class RestaurantChoice {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "session_id", nullable = false)
     private LunchSession session;
-}
\ No newline at end of file
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        normalizedRestaurant = normalize(restaurant);
+    }
+
+    /**
+     * Normalizes a restaurant name for duplicate detection: trims, collapses runs of whitespace
+     * to a single space and case-folds (upper then lower, so e.g. "ß" and "SS" compare equal).
+     */
+    public static String normalize(String restaurant) {
+        String collapsed = WHITESPACE.matcher(restaurant.trim()).replaceAll(" ");
+        return collapsed.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+    }
+}
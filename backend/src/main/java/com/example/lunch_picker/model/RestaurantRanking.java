@@ -0,0 +1,11 @@
+package com.example.lunch_picker.model;
+
+/**
+ * Orderings for restaurant analytics.
+ */
+public enum RestaurantRanking {
+    /** Most often submitted first */
+    SUBMISSIONS,
+    /** Most often picked first */
+    PICKS
+}
@@ -0,0 +1,58 @@
+package com.example.lunch_picker.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * Running submission and pick totals for one restaurant within one team, where a team is everyone
+ * using the sessions a given user created. Maintained incrementally as submits and picks commit,
+ * so analytics never aggregate over the choice table.
+ */
+@Entity
+@IdClass(RestaurantStats.Key.class)
+@Table(indexes = {
+        @Index(name = "idx_restaurant_stats_team_submissions", columnList = "team, submissions"),
+        @Index(name = "idx_restaurant_stats_team_picks", columnList = "team, picks")
+})
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = {"team", "restaurantKey"})
+public class RestaurantStats {
+
+    /**
+     * Creator of the sessions these totals come from.
+     */
+    @Id
+    private String team;
+
+    /**
+     * Restaurant name as returned by {@link RestaurantChoice#normalize(String)}.
+     */
+    @Id
+    private String restaurantKey;
+
+    /**
+     * Restaurant name as first submitted, for display.
+     */
+    @Column(nullable = false)
+    private String restaurant;
+
+    @Column(nullable = false)
+    private long submissions;
+
+    @Column(nullable = false)
+    private long picks;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String team;
+        private String restaurantKey;
+    }
+}
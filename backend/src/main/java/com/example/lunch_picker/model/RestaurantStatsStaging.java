@@ -0,0 +1,31 @@
+package com.example.lunch_picker.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Where a rebuild writes its recounted {@link RestaurantStats} rows. They replace the live summary
+ * in one transaction once every team is recounted, so readers never see it empty or half rebuilt.
+ */
+@Entity
+@IdClass(RestaurantStats.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+public class RestaurantStatsStaging {
+
+    @Id
+    private String team;
+
+    @Id
+    private String restaurantKey;
+
+    @Column(nullable = false)
+    private String restaurant;
+
+    @Column(nullable = false)
+    private long submissions;
+
+    @Column(nullable = false)
+    private long picks;
+}
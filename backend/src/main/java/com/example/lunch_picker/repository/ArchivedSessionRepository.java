@@ -0,0 +1,17 @@
+package com.example.lunch_picker.repository;
+
+import com.example.lunch_picker.model.ArchivedSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface ArchivedSessionRepository extends JpaRepository<ArchivedSession, String> {
+
+    @Query("select a.version from ArchivedSession a where a.id = :id")
+    Optional<Long> findVersionById(@Param("id") String id);
+
+    @Query("select a.chosenRestaurant from ArchivedSession a where a.id = :id")
+    Optional<String> findChosenRestaurantById(@Param("id") String id);
+}
@@ -0,0 +1,12 @@
+package com.example.lunch_picker.repository;
+
+/**
+ * Read-only projection of a restaurant choice, without the owning session.
+ */
+public interface RestaurantChoiceView {
+    Long getId();
+
+    String getRestaurant();
+
+    String getSubmittedBy();
+}
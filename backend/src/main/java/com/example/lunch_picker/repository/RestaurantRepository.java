@@ -1,12 +1,48 @@
 package com.example.lunch_picker.repository;
 
 import com.example.lunch_picker.model.RestaurantChoice;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 public interface RestaurantRepository
-        extends JpaRepository<RestaurantChoice, Long> {
-    List<RestaurantChoice> findBySessionIdOrderByIdAsc(String sessionId);
-    boolean existsBySessionIdAndRestaurantIgnoreCase(String sessionId, String restaurant);
+        extends JpaRepository<RestaurantChoice, Long>, RestaurantRepositoryCustom {
+    Optional<RestaurantChoice> findFirstBySessionIdOrderByIdAsc(String sessionId);
+
+    long countBySessionId(String sessionId);
+
+    @Query("select c from RestaurantChoice c where c.session.id in :sessionIds order by c.id")
+    List<RestaurantChoice> findAllBySessionIds(@Param("sessionIds") Collection<String> sessionIds);
+
+    @Modifying
+    @Query("delete from RestaurantChoice c where c.session.id in :sessionIds")
+    int deleteAllBySessionIds(@Param("sessionIds") Collection<String> sessionIds);
+
+    /**
+     * Restaurant names of a session in ID order; used with a one-row page to fetch the n-th choice.
+     */
+    @Query("select c.restaurant from RestaurantChoice c where c.session.id = :sessionId order by c.id")
+    List<String> findRestaurantNames(@Param("sessionId") String sessionId, Pageable pageable);
+
+    /**
+     * Keyset page of a session's choices, ordered by ID, read as a projection rather than entities.
+     */
+    @Query("select c.id as id, c.restaurant as restaurant, c.submittedBy as submittedBy "
+            + "from RestaurantChoice c where c.session.id = :sessionId and c.id > :after order by c.id")
+    List<RestaurantChoiceView> findPage(@Param("sessionId") String sessionId,
+                                        @Param("after") long after,
+                                        Limit limit);
+
+    @Query("select c.normalizedRestaurant from RestaurantChoice c "
+            + "where c.session.id = :sessionId and c.normalizedRestaurant in :names")
+    Set<String> findExistingNormalizedNames(@Param("sessionId") String sessionId,
+                                            @Param("names") Collection<String> names);
 }
@@ -0,0 +1,47 @@
+package com.example.lunch_picker.repository;
+
+import com.example.lunch_picker.model.RestaurantChoice;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Hand-written statements for the restaurant submission hot path.
+ */
+public interface RestaurantRepositoryCustom {
+
+    /**
+     * Inserts a choice only if no restaurant with the same normalized name exists in the session yet,
+     * without loading the session's choices. Callers must hold the session's lock from
+     * {@link #lockOpenSession(String, String, int)}, and roll back when nothing was inserted.
+     *
+     * @return the generated choice ID, or empty if nothing was inserted
+     * @throws org.springframework.dao.DuplicateKeyException if a concurrent insert of the same name won
+     */
+    Optional<Long> insertIfAbsent(String sessionId, String restaurant, String submittedBy);
+
+    /**
+     * Bumps the version of an OPEN session and takes its row lock for the rest of the transaction.
+     * Records {@code submittedBy} as the session's first submitter if it has none yet, so callers
+     * must insert that user's choice first in the same transaction.
+     *
+     * @param choices number of choices the transaction inserts, added to the session's choice count
+     * @return the session's new version, or empty if the session does not exist or is closed
+     */
+    Optional<Long> lockOpenSession(String sessionId, String submittedBy, int choices);
+
+    /**
+     * Takes the row lock of an OPEN session for the rest of the transaction without changing it, for
+     * callers that only know after checking their input whether they will write.
+     *
+     * @return false if the session does not exist or is closed
+     */
+    boolean lockIfOpen(String sessionId);
+
+    /**
+     * Inserts choices into a session as one JDBC batch. Duplicate checks are the caller's job.
+     *
+     * @return the generated IDs, in the same order as {@code choices}
+     */
+    List<Long> insertAll(String sessionId, List<RestaurantChoice> choices);
+}
@@ -0,0 +1,128 @@
+package com.example.lunch_picker.repository;
+
+import com.example.lunch_picker.model.RestaurantChoice;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+class RestaurantRepositoryImpl implements RestaurantRepositoryCustom {
+
+    /**
+     * Bumps the session version and choice count so conditional reads see the new choices, and
+     * records the first submitter if there is none yet. It also takes the session's row lock, which serializes
+     * concurrent submits to the same session. Sessions whose choices predate the first_submitter
+     * column take it from their earliest choice, not from this submit.
+     */
+    private static final String BUMP_VERSION_IF_OPEN = """
+            UPDATE lunch_session
+            SET version = version + 1,
+                choice_count = choice_count + :choices,
+                first_submitter = COALESCE(first_submitter,
+                                           (SELECT c.submitted_by FROM restaurant_choice c
+                                            WHERE c.session_id = :sessionId
+                                            ORDER BY c.id
+                                            LIMIT 1),
+                                           :submittedBy)
+            WHERE id = :sessionId
+              AND status = 'OPEN'
+            """;
+
+    private static final String SELECT_VERSION = "SELECT version FROM lunch_session WHERE id = :sessionId";
+
+    private static final String LOCK_IF_OPEN =
+            "SELECT id FROM lunch_session WHERE id = :sessionId AND status = 'OPEN' FOR UPDATE";
+
+    private static final String INSERT_IF_ABSENT = """
+            INSERT INTO restaurant_choice (id, restaurant, normalized_restaurant, submitted_by, session_id)
+            SELECT :id, :restaurant, :normalizedRestaurant, :submittedBy, :sessionId
+            WHERE NOT EXISTS (
+                SELECT 1 FROM restaurant_choice c
+                WHERE c.session_id = :sessionId
+                  AND c.normalized_restaurant = :normalizedRestaurant)
+            """;
+
+    private static final String INSERT = """
+            INSERT INTO restaurant_choice (id, restaurant, normalized_restaurant, submitted_by, session_id)
+            VALUES (:id, :restaurant, :normalizedRestaurant, :submittedBy, :sessionId)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    @Override
+    public Optional<Long> insertIfAbsent(String sessionId, String restaurant, String submittedBy) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("sessionId", sessionId)
+                .addValue("restaurant", restaurant)
+                .addValue("normalizedRestaurant", RestaurantChoice.normalize(restaurant))
+                .addValue("submittedBy", submittedBy);
+
+        // Drawn under the session lock, so IDs within a session follow submission order
+        long id = nextIds(1)[0];
+        int inserted = jdbcTemplate.update(INSERT_IF_ABSENT, params.addValue("id", id));
+        return inserted == 0 ? Optional.empty() : Optional.of(id);
+    }
+
+    @Override
+    public Optional<Long> lockOpenSession(String sessionId, String submittedBy, int choices) {
+        Map<String, Object> params = Map.of("sessionId", sessionId, "submittedBy", submittedBy, "choices", choices);
+        if (jdbcTemplate.update(BUMP_VERSION_IF_OPEN, params) == 0) {
+            return Optional.empty();
+        }
+        // The row lock is held, so this is the version the transaction will commit
+        return Optional.ofNullable(jdbcTemplate.queryForObject(SELECT_VERSION, params, Long.class));
+    }
+
+    @Override
+    public boolean lockIfOpen(String sessionId) {
+        return !jdbcTemplate.queryForList(LOCK_IF_OPEN, Map.of("sessionId", sessionId), String.class).isEmpty();
+    }
+
+    @Override
+    public List<Long> insertAll(String sessionId, List<RestaurantChoice> choices) {
+        if (choices.isEmpty()) {
+            return List.of();
+        }
+
+        long[] ids = nextIds(choices.size());
+        SqlParameterSource[] batch = new SqlParameterSource[choices.size()];
+        for (int i = 0; i < batch.length; i++) {
+            RestaurantChoice choice = choices.get(i);
+            batch[i] = new MapSqlParameterSource()
+                    .addValue("id", ids[i])
+                    .addValue("sessionId", sessionId)
+                    .addValue("restaurant", choice.getRestaurant())
+                    .addValue("normalizedRestaurant", RestaurantChoice.normalize(choice.getRestaurant()))
+                    .addValue("submittedBy", choice.getSubmittedBy());
+        }
+
+        jdbcTemplate.batchUpdate(INSERT, batch);
+        return Arrays.stream(ids).boxed().toList();
+    }
+
+    /**
+     * Takes IDs from the same pooled generator Hibernate uses for {@link RestaurantChoice}, so rows
+     * inserted here and through JPA share one increasing sequence without extra round trips.
+     */
+    private long[] nextIds(int count) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        IdentifierGenerator generator = (IdentifierGenerator) session.getFactory().getMappingMetamodel()
+                .getEntityDescriptor(RestaurantChoice.class)
+                .getGenerator();
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = ((Number) generator.generate(session, null)).longValue();
+        }
+        return ids;
+    }
+}
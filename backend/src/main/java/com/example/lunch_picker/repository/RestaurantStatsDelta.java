@@ -0,0 +1,10 @@
+package com.example.lunch_picker.repository;
+
+/**
+ * Amounts to add to one restaurant's totals within one team.
+ *
+ * @param restaurantKey Normalized restaurant name
+ * @param restaurant    Display name, kept only when the row is new
+ */
+public record RestaurantStatsDelta(String team, String restaurantKey, String restaurant, long submissions, long picks) {
+}
@@ -0,0 +1,8 @@
+package com.example.lunch_picker.repository;
+
+import com.example.lunch_picker.model.RestaurantStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface RestaurantStatsRepository extends JpaRepository<RestaurantStats, RestaurantStats.Key>,
+        RestaurantStatsRepositoryCustom {
+}
@@ -0,0 +1,81 @@
+package com.example.lunch_picker.repository;
+
+import com.example.lunch_picker.model.ArchivedSession;
+import com.example.lunch_picker.model.RestaurantRanking;
+import com.example.lunch_picker.model.RestaurantStats;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hand-written statements for restaurant analytics: incremental upserts into the summary table,
+ * top-K reads from it, and the history scans and staging table used to rebuild it.
+ */
+public interface RestaurantStatsRepositoryCustom {
+
+    /**
+     * Adds each delta to its row's totals, creating rows that do not exist yet, as one JDBC batch.
+     * Callers must not run this concurrently for the same row.
+     */
+    void addAll(Collection<RestaurantStatsDelta> deltas);
+
+    /**
+     * Empties the staging table ahead of a rebuild.
+     */
+    void clearStaging();
+
+    /**
+     * Inserts recounted rows into the staging table as one JDBC batch. Each row must be new there.
+     */
+    void stageAll(Collection<RestaurantStatsDelta> rows);
+
+    /**
+     * Replaces the summary with the staged rows and empties the staging table. Run it in one
+     * transaction, so readers see the old summary until it commits and the new one after.
+     *
+     * @return The number of summary rows
+     */
+    int replaceWithStaging();
+
+    /**
+     * Top restaurants by the given ranking, ties broken by name.
+     *
+     * @param team Only this team's totals; null sums over all teams
+     * @return rows holding the display name and totals; the team is null when summing over all teams
+     */
+    List<RestaurantStats> findTop(String team, RestaurantRanking ranking, int limit);
+
+    /**
+     * Streams every restaurant's submission and pick totals summed over all teams, one row at a time.
+     * Rows carry the display name and totals; the team is null.
+     */
+    void scanTotals(Consumer<RestaurantStats> action);
+
+    /**
+     * Every user who has created a live or archived session.
+     */
+    List<String> findTeams();
+
+    /**
+     * The highest committed choice ID, or 0 if there are no live choices.
+     */
+    long findMaxChoiceId();
+
+    /**
+     * Submission counts from the live choice table for the given teams, up to {@code maxChoiceId}.
+     */
+    List<RestaurantStatsDelta> countLiveSubmissions(Collection<String> teams, long maxChoiceId);
+
+    /**
+     * Pick counts from the live sessions of the given teams closed up to {@code closedUpTo}.
+     */
+    List<RestaurantStatsDelta> countLivePicks(Collection<String> teams, LocalDateTime closedUpTo);
+
+    /**
+     * Streams the archived sessions of the given teams, one row at a time, so a rebuild never holds
+     * the whole archive in memory. Only the creator, chosen restaurant and packed choices are read.
+     */
+    void scanArchived(Collection<String> teams, Consumer<ArchivedSession> action);
+}
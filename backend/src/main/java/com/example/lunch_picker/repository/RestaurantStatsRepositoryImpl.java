@@ -0,0 +1,237 @@
+package com.example.lunch_picker.repository;
+
+import com.example.lunch_picker.model.ArchivedSession;
+import com.example.lunch_picker.model.RestaurantChoice;
+import com.example.lunch_picker.model.RestaurantRanking;
+import com.example.lunch_picker.model.RestaurantStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+@RequiredArgsConstructor
+class RestaurantStatsRepositoryImpl implements RestaurantStatsRepositoryCustom {
+
+    /**
+     * Additive upsert in standard SQL MERGE form; an existing row keeps its display name.
+     */
+    private static final String ADD = """
+            MERGE INTO restaurant_stats t
+            USING (VALUES (CAST(:team AS VARCHAR), CAST(:restaurantKey AS VARCHAR), CAST(:restaurant AS VARCHAR),
+                           CAST(:submissions AS BIGINT), CAST(:picks AS BIGINT)))
+                AS s(team, restaurant_key, restaurant, submissions, picks)
+            ON t.team = s.team AND t.restaurant_key = s.restaurant_key
+            WHEN MATCHED THEN UPDATE SET submissions = t.submissions + s.submissions, picks = t.picks + s.picks
+            WHEN NOT MATCHED THEN INSERT (team, restaurant_key, restaurant, submissions, picks)
+                VALUES (s.team, s.restaurant_key, s.restaurant, s.submissions, s.picks)
+            """;
+
+    private static final String STAGE = """
+            INSERT INTO restaurant_stats_staging (team, restaurant_key, restaurant, submissions, picks)
+            VALUES (:team, :restaurantKey, :restaurant, :submissions, :picks)
+            """;
+
+    private static final String CLEAR_STAGING = "DELETE FROM restaurant_stats_staging";
+
+    private static final String CLEAR = "DELETE FROM restaurant_stats";
+
+    private static final String COPY_STAGING = """
+            INSERT INTO restaurant_stats (team, restaurant_key, restaurant, submissions, picks)
+            SELECT team, restaurant_key, restaurant, submissions, picks
+            FROM restaurant_stats_staging
+            """;
+
+    private static final String TOP_FOR_TEAM = """
+            SELECT team, restaurant_key, restaurant, submissions, picks
+            FROM restaurant_stats
+            WHERE team = :team
+            ORDER BY %s DESC, restaurant_key
+            LIMIT :limit
+            """;
+
+    /**
+     * Sums over teams; the summary has one row per team and restaurant, so this stays small.
+     */
+    private static final String TOP_FOR_ALL = """
+            SELECT CAST(NULL AS VARCHAR) AS team, restaurant_key, MIN(restaurant) AS restaurant,
+                   SUM(submissions) AS submissions, SUM(picks) AS picks
+            FROM restaurant_stats
+            GROUP BY restaurant_key
+            ORDER BY %s DESC, restaurant_key
+            LIMIT :limit
+            """;
+
+    private static final String TOTALS = """
+            SELECT restaurant_key, MIN(restaurant) AS restaurant, SUM(submissions) AS submissions, SUM(picks) AS picks
+            FROM restaurant_stats
+            GROUP BY restaurant_key
+            """;
+
+    private static final String TEAMS = """
+            SELECT created_by FROM lunch_session
+            UNION
+            SELECT created_by FROM archived_session
+            """;
+
+    /**
+     * Counts per team and normalized name, displayed under the earliest submitted spelling.
+     */
+    private static final String LIVE_SUBMISSIONS = """
+            SELECT g.created_by, g.normalized_restaurant, f.restaurant, g.submissions
+            FROM (
+                SELECT s.created_by, c.normalized_restaurant, MIN(c.id) AS first_id, COUNT(*) AS submissions
+                FROM restaurant_choice c
+                JOIN lunch_session s ON s.id = c.session_id
+                WHERE s.created_by IN (:teams)
+                  AND c.id <= :maxChoiceId
+                GROUP BY s.created_by, c.normalized_restaurant
+            ) g
+            JOIN restaurant_choice f ON f.id = g.first_id
+            """;
+
+    private static final String LIVE_PICKS = """
+            SELECT created_by, chosen_restaurant, COUNT(*) AS picks
+            FROM lunch_session
+            WHERE created_by IN (:teams)
+              AND status = 'CLOSED'
+              AND chosen_restaurant IS NOT NULL
+              AND (closed_at IS NULL OR closed_at <= :closedUpTo)
+            GROUP BY created_by, chosen_restaurant
+            """;
+
+    private static final String MAX_CHOICE_ID = "SELECT COALESCE(MAX(id), 0) FROM restaurant_choice";
+
+    private static final String ARCHIVED = """
+            SELECT created_by, chosen_restaurant, choices
+            FROM archived_session
+            WHERE created_by IN (:teams)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public void addAll(Collection<RestaurantStatsDelta> deltas) {
+        if (!deltas.isEmpty()) {
+            jdbcTemplate.batchUpdate(ADD, parameters(deltas));
+        }
+    }
+
+    @Override
+    public void clearStaging() {
+        jdbcTemplate.update(CLEAR_STAGING, Map.of());
+    }
+
+    @Override
+    public void stageAll(Collection<RestaurantStatsDelta> rows) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(STAGE, parameters(rows));
+        }
+    }
+
+    @Override
+    public int replaceWithStaging() {
+        jdbcTemplate.update(CLEAR, Map.of());
+        int copied = jdbcTemplate.update(COPY_STAGING, Map.of());
+        jdbcTemplate.update(CLEAR_STAGING, Map.of());
+        return copied;
+    }
+
+    private static SqlParameterSource[] parameters(Collection<RestaurantStatsDelta> deltas) {
+        return deltas.stream()
+                .map(delta -> new MapSqlParameterSource()
+                        .addValue("team", delta.team())
+                        .addValue("restaurantKey", delta.restaurantKey())
+                        .addValue("restaurant", delta.restaurant())
+                        .addValue("submissions", delta.submissions())
+                        .addValue("picks", delta.picks()))
+                .toArray(SqlParameterSource[]::new);
+    }
+
+    @Override
+    public List<RestaurantStats> findTop(String team, RestaurantRanking ranking, int limit) {
+        String orderBy = switch (ranking) {
+            case SUBMISSIONS -> "submissions";
+            case PICKS -> "picks";
+        };
+        String sql = (team == null ? TOP_FOR_ALL : TOP_FOR_TEAM).formatted(orderBy);
+        MapSqlParameterSource params = new MapSqlParameterSource("limit", limit).addValue("team", team);
+        return jdbcTemplate.query(sql, params, (rs, rowNum) -> RestaurantStats.builder()
+                .team(rs.getString("team"))
+                .restaurantKey(rs.getString("restaurant_key"))
+                .restaurant(rs.getString("restaurant"))
+                .submissions(rs.getLong("submissions"))
+                .picks(rs.getLong("picks"))
+                .build());
+    }
+
+    @Override
+    public void scanTotals(Consumer<RestaurantStats> action) {
+        jdbcTemplate.query(TOTALS, Map.of(), rs -> {
+            action.accept(RestaurantStats.builder()
+                    .restaurantKey(rs.getString("restaurant_key"))
+                    .restaurant(rs.getString("restaurant"))
+                    .submissions(rs.getLong("submissions"))
+                    .picks(rs.getLong("picks"))
+                    .build());
+        });
+    }
+
+    @Override
+    public List<String> findTeams() {
+        return jdbcTemplate.queryForList(TEAMS, Map.of(), String.class);
+    }
+
+    @Override
+    public long findMaxChoiceId() {
+        return jdbcTemplate.queryForObject(MAX_CHOICE_ID, Map.of(), Long.class);
+    }
+
+    @Override
+    public List<RestaurantStatsDelta> countLiveSubmissions(Collection<String> teams, long maxChoiceId) {
+        if (teams.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Object> params = Map.of("teams", teams, "maxChoiceId", maxChoiceId);
+        return jdbcTemplate.query(LIVE_SUBMISSIONS, params, (rs, rowNum) -> new RestaurantStatsDelta(
+                rs.getString("created_by"),
+                rs.getString("normalized_restaurant"),
+                rs.getString("restaurant"),
+                rs.getLong("submissions"),
+                0));
+    }
+
+    @Override
+    public List<RestaurantStatsDelta> countLivePicks(Collection<String> teams, LocalDateTime closedUpTo) {
+        if (teams.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Object> params = Map.of("teams", teams, "closedUpTo", closedUpTo);
+        // The chosen name is stored as submitted, so it is normalized here rather than joined back to its choice
+        return jdbcTemplate.query(LIVE_PICKS, params, (rs, rowNum) -> new RestaurantStatsDelta(
+                rs.getString("created_by"),
+                RestaurantChoice.normalize(rs.getString("chosen_restaurant")),
+                rs.getString("chosen_restaurant"),
+                0,
+                rs.getLong("picks")));
+    }
+
+    @Override
+    public void scanArchived(Collection<String> teams, Consumer<ArchivedSession> action) {
+        if (teams.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.query(ARCHIVED, Map.of("teams", teams), rs -> {
+            action.accept(ArchivedSession.builder()
+                    .createdBy(rs.getString("created_by"))
+                    .chosenRestaurant(rs.getString("chosen_restaurant"))
+                    .choices(rs.getBytes("choices"))
+                    .build());
+        });
+    }
+}
@@ -1,6 +1,41 @@
 package com.example.lunch_picker.repository;
 
 import com.example.lunch_picker.model.LunchSession;
+import com.example.lunch_picker.model.SessionStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface SessionRepository extends JpaRepository<LunchSession, String> {}
\ No newline at end of file
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface SessionRepository extends JpaRepository<LunchSession, String>, SessionRepositoryCustom {
+
+    @EntityGraph(attributePaths = "restaurantChoices")
+    Optional<LunchSession> findWithRestaurantChoicesById(String id);
+
+    @Query("select s.status from LunchSession s where s.id = :id")
+    Optional<SessionStatus> findStatusById(@Param("id") String id);
+
+    @Query("select s.createdBy from LunchSession s where s.id = :id")
+    Optional<String> findCreatedByById(@Param("id") String id);
+
+    @Query("select s.version from LunchSession s where s.id = :id")
+    Optional<Long> findVersionById(@Param("id") String id);
+
+    long countByStatus(SessionStatus status);
+
+    @Query("select s.id from LunchSession s where s.status = :status and s.closedAt < :cutoff order by s.closedAt")
+    List<String> findIdsByStatusClosedBefore(@Param("status") SessionStatus status,
+                                             @Param("cutoff") LocalDateTime cutoff,
+                                             Limit limit);
+
+    @Modifying
+    @Query("delete from LunchSession s where s.id in :ids")
+    int deleteAllByIds(@Param("ids") Collection<String> ids);
+}
@@ -0,0 +1,43 @@
+package com.example.lunch_picker.repository;
+
+import com.example.lunch_picker.model.LunchSession;
+import com.example.lunch_picker.model.SessionStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Hand-written statements for listing and summarizing sessions.
+ */
+public interface SessionRepositoryCustom {
+
+    /**
+     * Lists sessions newest first, by creation time and then ID, reading only the session rows.
+     * Every filter is optional (null). Paging is by keyset: pass the creation time and ID of the last
+     * row of the previous page, so each page is an index range scan however deep it is.
+     *
+     * @param createdBy      Only sessions created by this user
+     * @param status         Only sessions in this status
+     * @param since          Only sessions created at or after this time
+     * @param afterCreatedAt Creation time of the last row already returned
+     * @param afterId        ID of the last row already returned; required with {@code afterCreatedAt}
+     * @param limit          Maximum number of rows
+     */
+    List<SessionSummaryView> findPage(String createdBy, SessionStatus status, LocalDateTime since,
+                                      LocalDateTime afterCreatedAt, String afterId, int limit);
+
+    /**
+     * Reads a session row, without its choices, together with its number of choices. The count is a
+     * column of the row that every submit raises in the statement bumping the version, so it is the
+     * count for the version read. Counting the choices instead could pair a newer count with an older
+     * version, since a READ COMMITTED statement does not see both tables at one instant.
+     */
+    Optional<SessionChoiceCount> findWithChoiceCount(String id);
+
+    /**
+     * A session without its choices, and how many choices it had at its {@code version}.
+     */
+    record SessionChoiceCount(LunchSession session, long choiceCount) {
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.lunch_picker.repository;
+
+import com.example.lunch_picker.model.LunchSession;
+import com.example.lunch_picker.model.SessionStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+class SessionRepositoryImpl implements SessionRepositoryCustom {
+
+    private static final String SELECT = """
+            SELECT id, created_by, status, chosen_restaurant, created_at, closed_at
+            FROM lunch_session
+            WHERE 1 = 1
+            """;
+
+    private static final String SELECT_WITH_CHOICE_COUNT = """
+            SELECT s.id, s.created_by, s.status, s.chosen_restaurant, s.created_at, s.closed_at, s.version,
+                   s.first_submitter, s.choice_count
+            FROM lunch_session s
+            WHERE s.id = :id
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<SessionSummaryView> findPage(String createdBy, SessionStatus status, LocalDateTime since,
+                                             LocalDateTime afterCreatedAt, String afterId, int limit) {
+        // Only the filters given become predicates, so each combination can use the index made for it
+        StringBuilder sql = new StringBuilder(SELECT);
+        MapSqlParameterSource params = new MapSqlParameterSource("limit", limit);
+        if (createdBy != null) {
+            sql.append(" AND created_by = :createdBy");
+            params.addValue("createdBy", createdBy);
+        }
+        if (status != null) {
+            sql.append(" AND status = :status");
+            params.addValue("status", status.name());
+        }
+        if (since != null) {
+            sql.append(" AND created_at >= :since");
+            params.addValue("since", since);
+        }
+        if (afterCreatedAt != null) {
+            // The first predicate bounds the index range; the second skips rows already returned at the boundary
+            sql.append(" AND created_at <= :afterCreatedAt")
+                    .append(" AND (created_at < :afterCreatedAt OR id < :afterId)");
+            params.addValue("afterCreatedAt", afterCreatedAt).addValue("afterId", afterId);
+        }
+        sql.append(" ORDER BY created_at DESC, id DESC LIMIT :limit");
+
+        return jdbcTemplate.query(sql.toString(), params, (rs, rowNum) -> new Row(
+                rs.getString("id"),
+                rs.getString("created_by"),
+                SessionStatus.valueOf(rs.getString("status")),
+                rs.getString("chosen_restaurant"),
+                rs.getObject("created_at", LocalDateTime.class),
+                rs.getObject("closed_at", LocalDateTime.class)));
+    }
+
+    @Override
+    public Optional<SessionChoiceCount> findWithChoiceCount(String id) {
+        return jdbcTemplate.query(SELECT_WITH_CHOICE_COUNT, Map.of("id", id), (rs, rowNum) -> new SessionChoiceCount(
+                LunchSession.builder()
+                        .id(rs.getString("id"))
+                        .createdBy(rs.getString("created_by"))
+                        .status(SessionStatus.valueOf(rs.getString("status")))
+                        .chosenRestaurant(rs.getString("chosen_restaurant"))
+                        .createdAt(rs.getObject("created_at", LocalDateTime.class))
+                        .closedAt(rs.getObject("closed_at", LocalDateTime.class))
+                        .version(rs.getLong("version"))
+                        .firstSubmitter(rs.getString("first_submitter"))
+                        .build(),
+                rs.getLong("choice_count"))).stream().findFirst();
+    }
+
+    private record Row(String id, String createdBy, SessionStatus status, String chosenRestaurant,
+                       LocalDateTime createdAt, LocalDateTime closedAt) implements SessionSummaryView {
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public String getCreatedBy() {
+            return createdBy;
+        }
+
+        @Override
+        public SessionStatus getStatus() {
+            return status;
+        }
+
+        @Override
+        public String getChosenRestaurant() {
+            return chosenRestaurant;
+        }
+
+        @Override
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+
+        @Override
+        public LocalDateTime getClosedAt() {
+            return closedAt;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.lunch_picker.repository;
+
+import com.example.lunch_picker.model.SessionStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection of a session row, without its choices.
+ */
+public interface SessionSummaryView {
+    String getId();
+
+    String getCreatedBy();
+
+    SessionStatus getStatus();
+
+    String getChosenRestaurant();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getClosedAt();
+}
@@ -3,5 +3,12 @@ package com.example.lunch_picker.repository;
 
 import com.example.lunch_picker.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
-public interface UserRepository extends JpaRepository<User, String> {}
+import java.util.List;
+
+public interface UserRepository extends JpaRepository<User, String> {
+
+    @Query("select u.username from User u")
+    List<String> findAllUsernames();
+}
@@ -0,0 +1,38 @@
+package com.example.lunch_picker.service;
+
+import com.example.lunch_picker.dto.RestaurantSubmissionResult;
+import com.example.lunch_picker.dto.SubmitRestaurantRequest;
+import com.example.lunch_picker.model.RestaurantChoice;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Default execution mode: writes run on the request thread, and concurrent writes to one session
+ * are serialized by the database (row locks for submits, optimistic locking with retries for picks).
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.execution.mode", havingValue = "direct", matchIfMissing = true)
+public class DirectSessionWriter implements SessionWriter {
+
+    private final RestaurantService restaurantService;
+    private final PickCoordinator pickCoordinator;
+
+    @Override
+    public RestaurantChoice submit(String sessionId, String restaurant, String user) {
+        return restaurantService.submit(sessionId, restaurant, user);
+    }
+
+    @Override
+    public List<RestaurantSubmissionResult> submitAll(String sessionId, List<SubmitRestaurantRequest> requests) {
+        return restaurantService.submitAll(sessionId, requests);
+    }
+
+    @Override
+    public String pick(String sessionId, String user) {
+        return pickCoordinator.pick(sessionId, user);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.lunch_picker.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the results of requests sent with an {@code Idempotency-Key}, so a client retrying
+ * after a timeout gets the original result instead of running the operation again.
+ * <p>
+ * Only successful results are kept: a failed attempt is forgotten and its retry runs normally.
+ * A retry that arrives while the original is still running waits for it rather than racing it.
+ * Reusing a key for a different request is rejected. Entries are bounded by count and age.
+ */
+@Slf4j
+@Component
+public class IdempotencyCache {
+
+    private final Cache<String, Entry> entries;
+
+    public IdempotencyCache(@Value("${app.idempotency.max-entries:10000}") long maxEntries,
+                            @Value("${app.idempotency.ttl:1h}") Duration ttl,
+                            MeterRegistry registry) {
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, entries, "idempotency");
+    }
+
+    /**
+     * Runs {@code operation} once per scope and key, returning the stored result on repeats.
+     *
+     * @param scope       What the key applies to, e.g. the endpoint and session
+     * @param key         The client's Idempotency-Key; null runs the operation unconditionally
+     * @param fingerprint Identifies the request body, so a key cannot be reused for a different request
+     * @throws IllegalStateException if the key was already used with a different request
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String scope, String key, String fingerprint, Supplier<T> operation) {
+        if (key == null) {
+            return operation.get();
+        }
+
+        String cacheKey = scope + '\n' + key;
+        Entry mine = new Entry(fingerprint, new CompletableFuture<>());
+        Entry existing = entries.asMap().putIfAbsent(cacheKey, mine);
+        if (existing != null) {
+            if (!existing.fingerprint.equals(fingerprint)) {
+                throw new IllegalStateException("Idempotency-Key has already been used for a different request");
+            }
+            log.debug("Replaying result for Idempotency-Key '{}' ({})", key, scope);
+            try {
+                return (T) existing.result.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        try {
+            T result = operation.get();
+            mine.result.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            entries.asMap().remove(cacheKey, mine);
+            mine.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private record Entry(String fingerprint, CompletableFuture<Object> result) {
+    }
+}
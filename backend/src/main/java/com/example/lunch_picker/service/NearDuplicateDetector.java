@@ -0,0 +1,107 @@
+package com.example.lunch_picker.service;
+
+import com.example.lunch_picker.event.SessionClosedEvent;
+import com.example.lunch_picker.repository.RestaurantRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+
+/**
+ * Rejects restaurant names that are near-duplicates of one already in the session, using a
+ * {@link NearDuplicateIndex} per open session.
+ * <p>
+ * Indexes are built from the database the first time a session is checked and then kept up to date
+ * by the submits themselves. Both happen while the caller holds the session's row lock, so every
+ * writer to a session sees the names committed before it. A name added by a transaction that then
+ * rolls back is taken out again once it completes.
+ */
+@Component
+public class NearDuplicateDetector {
+
+    private final RestaurantRepository restaurantRepository;
+    private final boolean enabled;
+    private final double threshold;
+    private final Cache<String, NearDuplicateIndex> indexes;
+
+    public NearDuplicateDetector(RestaurantRepository restaurantRepository,
+                                 @Value("${app.near-duplicates.enabled:true}") boolean enabled,
+                                 @Value("${app.near-duplicates.threshold:0.85}") double threshold,
+                                 @Value("${app.near-duplicates.max-sessions:1000}") long maxSessions,
+                                 @Value("${app.near-duplicates.idle-timeout:30m}") Duration idleTimeout) {
+        this.restaurantRepository = restaurantRepository;
+        this.enabled = enabled;
+        this.threshold = threshold;
+        this.indexes = Caffeine.newBuilder()
+                .maximumSize(maxSessions)
+                .expireAfterAccess(idleTimeout)
+                .build();
+        // Fail at startup rather than on the first submit
+        new NearDuplicateIndex(threshold);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Finds a name in the session that {@code restaurant} is a near-duplicate of.
+     * The caller must hold the session's row lock.
+     *
+     * @return the existing name as it was submitted, or null
+     */
+    public String findSimilar(String sessionId, String restaurant) {
+        if (!enabled) {
+            return null;
+        }
+        return indexes.get(sessionId, this::load).findSimilar(restaurant);
+    }
+
+    /**
+     * Records a name inserted into the session by the current transaction.
+     * The caller must hold the session's row lock.
+     */
+    public void added(String sessionId, String restaurant) {
+        NearDuplicateIndex index = enabled ? indexes.getIfPresent(sessionId) : null;
+        if (index == null) {
+            // Built from the database, committed name included, on next use
+            return;
+        }
+        index.add(restaurant);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        index.remove(restaurant);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * A standalone index with the configured threshold, for callers that keep session state themselves.
+     */
+    public NearDuplicateIndex newIndex(Collection<String> restaurants) {
+        NearDuplicateIndex index = new NearDuplicateIndex(threshold);
+        restaurants.forEach(index::add);
+        return index;
+    }
+
+    @TransactionalEventListener
+    public void onSessionClosed(SessionClosedEvent event) {
+        indexes.invalidate(event.getSessionId());
+    }
+
+    private NearDuplicateIndex load(String sessionId) {
+        return newIndex(restaurantRepository.findRestaurantNames(sessionId, Pageable.unpaged()));
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.lunch_picker.service;
+
+import com.example.lunch_picker.model.RestaurantChoice;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Character trigram index over one session's restaurant names, for catching names that are spelled
+ * differently but mean the same place, such as "McDonald's", "McDonalds" and "mc donalds".
+ * <p>
+ * Names are reduced to their lower-case letters and digits, accents removed, and compared by the
+ * Dice coefficient of their trigram sets. Names whose digits differ are never similar, so "Pho 24"
+ * and "Pho 42" stay apart. A lookup only visits names that share one of the candidate's rarest
+ * trigrams; a name sharing none of those cannot reach the threshold. Its cost therefore depends on
+ * how rare the candidate's trigrams are, not on how many names the session holds.
+ * <p>
+ * Thread-safe; all methods lock the index.
+ */
+public final class NearDuplicateIndex {
+
+    private static final char START = '^';
+    private static final char END = '$';
+    // Keeps rounding error in the bounds below from ruling out a name that is exactly at the threshold
+    private static final double EPSILON = 1e-9;
+
+    private final double threshold;
+    private final Map<String, List<Entry>> postings = new HashMap<>();
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * @param threshold Minimum Dice similarity, in (0, 1], for two names to count as the same place
+     */
+    public NearDuplicateIndex(double threshold) {
+        if (threshold <= 0 || threshold > 1) {
+            throw new IllegalArgumentException("Similarity threshold must be in (0, 1]: " + threshold);
+        }
+        this.threshold = threshold;
+    }
+
+    /**
+     * Finds the indexed name most similar to {@code restaurant}, if any reaches the threshold.
+     * Exact duplicates, equal after {@link RestaurantChoice#normalize(String)}, are left to the caller.
+     *
+     * @return the matching name as it was submitted, or null
+     */
+    public synchronized String findSimilar(String restaurant) {
+        Entry candidate = new Entry(restaurant);
+        int size = candidate.trigrams.length;
+        if (size == 0) {
+            return null;
+        }
+
+        // Dice >= t bounds the other name's trigram count, and with it the smallest useful overlap
+        int minSize = (int) Math.ceil(size * threshold / (2 - threshold) - EPSILON);
+        int maxSize = (int) Math.floor(size * (2 - threshold) / threshold + EPSILON);
+        int minOverlap = (int) Math.ceil(threshold * (size + minSize) / 2 - EPSILON);
+        int prefix = size - minOverlap + 1;
+
+        String[] rarestFirst = candidate.trigrams.clone();
+        Arrays.sort(rarestFirst, Comparator.comparingInt(trigram -> postings.getOrDefault(trigram, List.of()).size()));
+
+        Set<Entry> seen = new HashSet<>();
+        Entry best = null;
+        double bestSimilarity = 0;
+        for (int i = 0; i < prefix; i++) {
+            for (Entry entry : postings.getOrDefault(rarestFirst[i], List.of())) {
+                int otherSize = entry.trigrams.length;
+                if (otherSize < minSize || otherSize > maxSize || !entry.digits.equals(candidate.digits)
+                        || entry.normalized.equals(candidate.normalized) || !seen.add(entry)) {
+                    continue;
+                }
+                double similarity = 2.0 * overlap(candidate, entry) / (size + otherSize);
+                if (similarity >= threshold && similarity > bestSimilarity) {
+                    best = entry;
+                    bestSimilarity = similarity;
+                }
+            }
+        }
+        return best == null ? null : best.restaurant;
+    }
+
+    /**
+     * Adds a name. Names that are equal after {@link RestaurantChoice#normalize(String)} are indexed once.
+     */
+    public synchronized void add(String restaurant) {
+        Entry entry = new Entry(restaurant);
+        if (entry.trigrams.length == 0 || entries.putIfAbsent(entry.normalized, entry) != null) {
+            return;
+        }
+        for (String trigram : entry.trigrams) {
+            postings.computeIfAbsent(trigram, t -> new ArrayList<>(2)).add(entry);
+        }
+    }
+
+    /**
+     * Removes a name added by {@link #add(String)}.
+     */
+    public synchronized void remove(String restaurant) {
+        Entry entry = entries.remove(RestaurantChoice.normalize(restaurant));
+        if (entry == null) {
+            return;
+        }
+        for (String trigram : entry.trigrams) {
+            List<Entry> posting = postings.get(trigram);
+            posting.remove(entry);
+            if (posting.isEmpty()) {
+                postings.remove(trigram);
+            }
+        }
+    }
+
+    private static int overlap(Entry a, Entry b) {
+        // Both arrays are sorted, so one merge pass counts the shared trigrams
+        int shared = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.trigrams.length && j < b.trigrams.length) {
+            int order = a.trigrams[i].compareTo(b.trigrams[j]);
+            if (order == 0) {
+                shared++;
+                i++;
+                j++;
+            } else if (order < 0) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Lower-case letters and digits only, with accents removed: "Café O'Neil's" becomes "cafeoneils".
+     */
+    static String compact(String restaurant) {
+        String decomposed = Normalizer.normalize(RestaurantChoice.normalize(restaurant), Normalizer.Form.NFKD);
+        StringBuilder compact = new StringBuilder(decomposed.length());
+        decomposed.codePoints()
+                .filter(Character::isLetterOrDigit)
+                .forEach(compact::appendCodePoint);
+        return compact.toString();
+    }
+
+    private static final class Entry {
+
+        private final String restaurant;
+        private final String normalized;
+        /** Distinct trigrams, sorted. */
+        private final String[] trigrams;
+        private final String digits;
+
+        private Entry(String restaurant) {
+            this.restaurant = restaurant;
+            this.normalized = RestaurantChoice.normalize(restaurant);
+            String compact = compact(restaurant);
+            if (compact.isEmpty()) {
+                this.trigrams = new String[0];
+                this.digits = "";
+                return;
+            }
+            // Padding gives the first and last characters trigrams of their own, so a change at either
+            // end of a name weighs as much as one in the middle
+            String padded = "" + START + START + compact + END;
+            Set<String> trigrams = new HashSet<>();
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                trigrams.add(padded.substring(i, i + 3));
+            }
+            this.trigrams = trigrams.stream().sorted().toArray(String[]::new);
+            this.digits = compact.replaceAll("\\D", "");
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.lunch_picker.service;
+
+import com.example.lunch_picker.metrics.SessionMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Runs picks so that simultaneous requests for a session resolve to one pick.
+ * <p>
+ * The first request for a session performs the pick; requests arriving while it runs wait for and
+ * share its result. A pick that loses an optimistic-lock race (typically against a late submission)
+ * is retried here with jittered exponential backoff instead of being bounced back to the client.
+ */
+@Slf4j
+@Service
+public class PickCoordinator {
+
+    private final RestaurantService restaurantService;
+    private final SessionMetrics metrics;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    public PickCoordinator(RestaurantService restaurantService,
+                           SessionMetrics metrics,
+                           @Value("${app.pick.max-attempts:5}") int maxAttempts,
+                           @Value("${app.pick.initial-backoff:10ms}") Duration initialBackoff) {
+        this.restaurantService = restaurantService;
+        this.metrics = metrics;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+    }
+
+    /**
+     * Picks a restaurant for the session, or returns the pick already in progress or made.
+     *
+     * @throws IllegalArgumentException if session not found
+     * @throws IllegalStateException    if no restaurants submitted, or conflicts persisted past the retry limit
+     * @throws SecurityException        if user is not the first submitter
+     */
+    public String pick(String sessionId, String user) {
+        CompletableFuture<String> mine = new CompletableFuture<>();
+        CompletableFuture<String> leader = inFlight.putIfAbsent(sessionId, mine);
+        if (leader != null) {
+            try {
+                return leader.join();
+            } catch (CompletionException e) {
+                // The leader was not allowed to pick; that says nothing about this caller
+                if (e.getCause() instanceof SecurityException) {
+                    return pick(sessionId, user);
+                }
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        try {
+            String chosen = pickWithRetry(sessionId, user);
+            mine.complete(chosen);
+            return chosen;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(sessionId, mine);
+        }
+    }
+
+    private String pickWithRetry(String sessionId, String user) {
+        long backoffMillis = initialBackoff.toMillis();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return restaurantService.pickRandom(sessionId, user);
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    log.warn("Pick for session '{}' still conflicting after {} attempts", sessionId, attempt);
+                    throw new IllegalStateException("Session was modified by another request. Please try again.", e);
+                }
+                metrics.optimisticLockRetried();
+                log.debug("Pick for session '{}' conflicted, retrying (attempt {})", sessionId, attempt);
+                sleep(backoffMillis + ThreadLocalRandom.current().nextLong(backoffMillis + 1));
+                backoffMillis *= 2;
+            }
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying pick", e);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.lunch_picker.service;
+
+import com.example.lunch_picker.model.RestaurantChoice;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Prefix tree over restaurant names, keyed by {@link RestaurantChoice#normalize(String)}, where
+ * every node keeps its subtree's most submitted names ready to return.
+ * <p>
+ * A lookup is a walk down the prefix followed by a copy of at most {@code topK} entries, however
+ * many names share the prefix. Children are kept as sorted parallel arrays rather than maps to keep
+ * nodes small. Readers take no locks: a writer builds new child and top arrays and publishes them
+ * through volatile fields, so a reader always sees a consistent node. Writers are serialized.
+ * <p>
+ * Counts only ever grow, so a name can only join a node's top list when its own count rises, which
+ * is exactly when the nodes on its path are updated; the top lists are therefore always exact.
+ */
+public final class RestaurantNameTrie {
+
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    private final int topK;
+    private final Node root = new Node();
+    private int names;
+
+    public RestaurantNameTrie(int topK) {
+        if (topK < 1) {
+            throw new IllegalArgumentException("topK must be at least 1: " + topK);
+        }
+        this.topK = topK;
+    }
+
+    /**
+     * Adds {@code count} submissions of a name; the first spelling seen is the one suggested.
+     */
+    public synchronized void add(String restaurant, long count) {
+        String key = RestaurantChoice.normalize(restaurant);
+        if (key.isEmpty() || count <= 0) {
+            return;
+        }
+
+        Node[] path = new Node[key.length() + 1];
+        Node node = root;
+        path[0] = node;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.childOrCreate(key.charAt(i));
+            path[i + 1] = node;
+        }
+        Entry entry = node.terminal;
+        if (entry == null) {
+            entry = new Entry(restaurant.trim());
+            node.terminal = entry;
+            names++;
+        }
+        entry.count += count;
+
+        for (Node onPath : path) {
+            onPath.offer(entry, topK);
+        }
+    }
+
+    /**
+     * The most submitted names starting with {@code prefix}, most submitted first.
+     * The prefix is matched after case folding and whitespace collapsing, like names are.
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        Node node = root;
+        String key = prefixKey(prefix);
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        Entry[] top = node.top;
+        int size = Math.min(limit, top.length);
+        List<Suggestion> suggestions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            suggestions.add(new Suggestion(top[i].restaurant, top[i].count));
+        }
+        return suggestions;
+    }
+
+    public synchronized int size() {
+        return names;
+    }
+
+    /**
+     * Like {@link RestaurantChoice#normalize(String)}, but keeps one trailing space, so "burger "
+     * only matches names with a word after "burger".
+     */
+    private static String prefixKey(String prefix) {
+        String key = RestaurantChoice.normalize(prefix);
+        boolean trailingSpace = !key.isEmpty() && !prefix.isEmpty() && Character.isWhitespace(prefix.charAt(prefix.length() - 1));
+        return trailingSpace ? key + ' ' : key;
+    }
+
+    /**
+     * @param count Submissions of this name across all sessions
+     */
+    public record Suggestion(String restaurant, long count) {
+    }
+
+    private static final class Entry {
+
+        private final String restaurant;
+        // Written under the trie's lock; readers may see a count a step ahead of the order they find it in
+        private volatile long count;
+
+        private Entry(String restaurant) {
+            this.restaurant = restaurant;
+        }
+    }
+
+    private static final class Children {
+
+        private static final Children EMPTY = new Children(new char[0], new Node[0]);
+
+        private final char[] keys;
+        private final Node[] nodes;
+
+        private Children(char[] keys, Node[] nodes) {
+            this.keys = keys;
+            this.nodes = nodes;
+        }
+    }
+
+    private static final class Node {
+
+        private volatile Children children = Children.EMPTY;
+        private volatile Entry[] top = NO_ENTRIES;
+        // Only read and written under the trie's lock
+        private Entry terminal;
+
+        private Node child(char c) {
+            Children current = children;
+            int index = Arrays.binarySearch(current.keys, c);
+            return index < 0 ? null : current.nodes[index];
+        }
+
+        private Node childOrCreate(char c) {
+            Children current = children;
+            int index = Arrays.binarySearch(current.keys, c);
+            if (index >= 0) {
+                return current.nodes[index];
+            }
+            int insertAt = -index - 1;
+            int size = current.keys.length;
+            char[] keys = new char[size + 1];
+            Node[] nodes = new Node[size + 1];
+            System.arraycopy(current.keys, 0, keys, 0, insertAt);
+            System.arraycopy(current.nodes, 0, nodes, 0, insertAt);
+            System.arraycopy(current.keys, insertAt, keys, insertAt + 1, size - insertAt);
+            System.arraycopy(current.nodes, insertAt, nodes, insertAt + 1, size - insertAt);
+            Node child = new Node();
+            keys[insertAt] = c;
+            nodes[insertAt] = child;
+            children = new Children(keys, nodes);
+            return child;
+        }
+
+        /**
+         * Moves or inserts {@code entry}, whose count just grew, into its place in this node's top list.
+         */
+        private void offer(Entry entry, int topK) {
+            Entry[] current = top;
+            int position = -1;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] == entry) {
+                    position = i;
+                    break;
+                }
+            }
+            if (position < 0 && current.length == topK && current[topK - 1].count >= entry.count) {
+                return;
+            }
+
+            Entry[] updated;
+            if (position >= 0) {
+                updated = current.clone();
+            } else if (current.length < topK) {
+                updated = Arrays.copyOf(current, current.length + 1);
+                position = current.length;
+            } else {
+                // Full: the entry takes the last slot, displacing the least submitted name
+                updated = current.clone();
+                position = topK - 1;
+            }
+            updated[position] = entry;
+            // Bubble up past names it now outnumbers; ties keep the earlier name first
+            while (position > 0 && updated[position - 1].count < entry.count) {
+                updated[position] = updated[position - 1];
+                updated[position - 1] = entry;
+                position--;
+            }
+            top = updated;
+        }
+    }
+}
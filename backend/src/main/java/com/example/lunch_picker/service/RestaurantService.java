@@ -1,71 +1,313 @@
 package com.example.lunch_picker.service;
 
+import com.example.lunch_picker.dto.RestaurantChoiceResponse;
+import com.example.lunch_picker.dto.RestaurantPageResponse;
+import com.example.lunch_picker.dto.RestaurantSubmissionResult;
+import com.example.lunch_picker.dto.RestaurantSubmissionResult.Outcome;
+import com.example.lunch_picker.dto.SubmitRestaurantRequest;
+import com.example.lunch_picker.event.RestaurantSubmittedEvent;
+import com.example.lunch_picker.event.SessionClosedEvent;
+import com.example.lunch_picker.metrics.SessionMetrics;
 import com.example.lunch_picker.model.LunchSession;
 import com.example.lunch_picker.model.RestaurantChoice;
 import com.example.lunch_picker.model.SessionStatus;
+import com.example.lunch_picker.repository.ArchivedSessionRepository;
 import com.example.lunch_picker.repository.RestaurantRepository;
 import com.example.lunch_picker.repository.SessionRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class RestaurantService {
 
+    public static final String DUPLICATE_MESSAGE = "This restaurant has already been submitted in this session";
+    public static final String CLOSED_MESSAGE = "Session is closed. No further submissions allowed.";
+
+    /**
+     * Rejection message for a name spelled much like one already in the session.
+     */
+    public static String similarMessage(String existing) {
+        return "A restaurant with a similar name has already been submitted in this session: '" + existing + "'";
+    }
+
+    /**
+     * Why one item of a batch submission is invalid, or null if it is valid. Shared with the
+     * partitioned writer so both report the same messages.
+     */
+    public static String validationMessage(Validator validator, SubmitRestaurantRequest request) {
+        if (request == null) {
+            return "Submission must not be null";
+        }
+        Set<ConstraintViolation<SubmitRestaurantRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
     private final RestaurantRepository restaurantRepository;
     private final SessionRepository sessionRepository;
+    private final ArchivedSessionRepository archivedSessionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Validator validator;
+    private final SessionMetrics metrics;
+    private final NearDuplicateDetector nearDuplicates;
+
+    @Value("${app.restaurants.page.default-limit:50}")
+    private int defaultPageLimit;
+
+    @Value("${app.restaurants.page.max-limit:500}")
+    private int maxPageLimit;
 
     /**
      * Submits a restaurant choice to a session.
-     * Validates that the session is open and the restaurant hasn't been submitted yet.
+     * The session row is locked first, which also checks that it is open. Near-duplicates are then
+     * looked up in the session's in-memory name index, and the exact duplicate check is folded into
+     * the insert itself, so no step scans the session's choices. The session is only looked up
+     * again when nothing was inserted, to report why.
      *
      * @param sessionId  The session ID
      * @param restaurant The restaurant name
      * @param user       The user submitting the choice
      * @return The created RestaurantChoice
      * @throws IllegalArgumentException if session not found or restaurant name is empty
-     * @throws IllegalStateException    if session is closed or restaurant already exists
+     * @throws IllegalStateException    if session is closed or the restaurant, or one spelled much
+     *                                  like it, already exists
      */
+    @Timed(value = "lunch.submit", histogram = true)
     @Transactional
     public RestaurantChoice submit(String sessionId, String restaurant, String user) {
         log.debug("Submitting restaurant '{}' to session '{}' by user '{}'", restaurant, sessionId, user);
-        
-        LunchSession session = sessionRepository.findById(sessionId)
-                .orElseThrow(() -> new IllegalArgumentException("Session not found"));
 
-        if (session.getStatus() == SessionStatus.CLOSED) {
-            throw new IllegalStateException("Session is closed. No further submissions allowed.");
-        }
+        // The session is checked before the name, so an unknown session is reported as such
+        long version = restaurantRepository.lockOpenSession(sessionId, user, 1)
+                .orElseThrow(() -> rejectionFor(sessionId));
 
         String trimmedRestaurant = restaurant.trim();
         if (trimmedRestaurant.isEmpty()) {
             throw new IllegalArgumentException("Restaurant name cannot be empty");
         }
+        String similar = nearDuplicates.findSimilar(sessionId, trimmedRestaurant);
+        if (similar != null) {
+            metrics.nearDuplicateRejected();
+            throw new IllegalStateException(similarMessage(similar));
+        }
 
-        if (restaurantRepository.existsBySessionIdAndRestaurantIgnoreCase(sessionId, trimmedRestaurant)) {
-            throw new IllegalStateException("This restaurant has already been submitted in this session");
+        Long choiceId;
+        try {
+            choiceId = restaurantRepository.insertIfAbsent(sessionId, trimmedRestaurant, user)
+                    .orElseThrow(() -> rejectionFor(sessionId));
+        } catch (DuplicateKeyException e) {
+            // Lost a race with a concurrent submit of the same name; the unique index caught it
+            metrics.duplicateRejected();
+            throw new IllegalStateException(DUPLICATE_MESSAGE, e);
         }
+        nearDuplicates.added(sessionId, trimmedRestaurant);
 
-        RestaurantChoice choice = RestaurantChoice.builder()
-                .session(session)
+        RestaurantChoice saved = RestaurantChoice.builder()
+                .id(choiceId)
+                .session(sessionRepository.getReferenceById(sessionId))
                 .restaurant(trimmedRestaurant)
                 .submittedBy(user)
                 .build();
+        eventPublisher.publishEvent(new RestaurantSubmittedEvent(sessionId, choiceId, trimmedRestaurant, user, version));
+        log.atInfo()
+                .setMessage("Restaurant submitted")
+                .addKeyValue("sessionId", sessionId)
+                .addKeyValue("choiceId", choiceId)
+                .addKeyValue("restaurant", trimmedRestaurant)
+                .addKeyValue("user", user)
+                .log();
 
-        RestaurantChoice saved = restaurantRepository.save(choice);
-        log.info("Restaurant '{}' submitted successfully to session '{}' by user '{}'", 
-                 trimmedRestaurant, sessionId, user);
-        
         return saved;
     }
 
+    /**
+     * Submits several restaurant choices to a session in one transaction.
+     * Each item is validated on its own; valid items are checked for duplicates against the session
+     * and against each other with a single query, and for near-duplicates against the session's name
+     * index, then inserted as one JDBC batch. An invalid or duplicate item does not fail the others,
+     * and a batch that inserts nothing leaves the session's version alone.
+     *
+     * @param sessionId The session ID
+     * @param requests  The restaurant submissions, in request order
+     * @return One result per request, in the same order
+     * @throws IllegalArgumentException if session not found
+     * @throws IllegalStateException    if session is closed
+     */
+    @Transactional
+    public List<RestaurantSubmissionResult> submitAll(String sessionId, List<SubmitRestaurantRequest> requests) {
+        log.debug("Submitting {} restaurants to session '{}'", requests.size(), sessionId);
+
+        RestaurantSubmissionResult[] results = new RestaurantSubmissionResult[requests.size()];
+        Map<String, Integer> candidates = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            SubmitRestaurantRequest request = requests.get(i);
+            String violation = validationMessage(validator, request);
+            if (violation != null) {
+                results[i] = RestaurantSubmissionResult.of(i, Outcome.INVALID, violation, null);
+            } else if (candidates.putIfAbsent(RestaurantChoice.normalize(request.getRestaurant()), i) != null) {
+                metrics.duplicateRejected();
+                results[i] = RestaurantSubmissionResult.of(i, Outcome.DUPLICATE, DUPLICATE_MESSAGE, null);
+            }
+        }
+
+        if (candidates.isEmpty()) {
+            rejectUnlessOpen(sessionId);
+            return List.of(results);
+        }
+        if (!restaurantRepository.lockIfOpen(sessionId)) {
+            throw rejectionFor(sessionId);
+        }
+
+        // The session row is locked from here on, so the existing names cannot change under us
+        Set<String> existing = restaurantRepository.findExistingNormalizedNames(sessionId, candidates.keySet());
+        List<Integer> toInsert = new ArrayList<>();
+        List<RestaurantChoice> choices = new ArrayList<>();
+        candidates.forEach((normalized, index) -> {
+            if (existing.contains(normalized)) {
+                metrics.duplicateRejected();
+                results[index] = RestaurantSubmissionResult.of(index, Outcome.DUPLICATE, DUPLICATE_MESSAGE, null);
+                return;
+            }
+            SubmitRestaurantRequest request = requests.get(index);
+            String restaurant = request.getRestaurant().trim();
+            String similar = nearDuplicates.findSimilar(sessionId, restaurant);
+            if (similar != null) {
+                metrics.nearDuplicateRejected();
+                results[index] = RestaurantSubmissionResult.of(index, Outcome.DUPLICATE, similarMessage(similar), null);
+                return;
+            }
+            // Indexed straight away so later items in the batch are checked against it too
+            nearDuplicates.added(sessionId, restaurant);
+            toInsert.add(index);
+            choices.add(RestaurantChoice.builder()
+                    .restaurant(restaurant)
+                    .submittedBy(request.getUser())
+                    .build());
+        });
+
+        if (choices.isEmpty()) {
+            // Nothing changes, so the version (and with it every cached response) stays as it is
+            return List.of(results);
+        }
+        long version = restaurantRepository.lockOpenSession(sessionId, choices.get(0).getSubmittedBy(), choices.size())
+                .orElseThrow(() -> rejectionFor(sessionId));
+        List<Long> ids = restaurantRepository.insertAll(sessionId, choices);
+        for (int i = 0; i < ids.size(); i++) {
+            RestaurantChoice choice = choices.get(i);
+            choice.setId(ids.get(i));
+            eventPublisher.publishEvent(new RestaurantSubmittedEvent(
+                    sessionId, choice.getId(), choice.getRestaurant(), choice.getSubmittedBy(), version));
+            int index = toInsert.get(i);
+            results[index] = RestaurantSubmissionResult.of(index, Outcome.CREATED, null,
+                    RestaurantChoiceResponse.from(choice));
+        }
+
+        log.atInfo()
+                .setMessage("Restaurants submitted")
+                .addKeyValue("sessionId", sessionId)
+                .addKeyValue("created", ids.size())
+                .addKeyValue("requested", requests.size())
+                .log();
+        return List.of(results);
+    }
+
+    private void rejectUnlessOpen(String sessionId) {
+        SessionStatus status = statusOf(sessionId);
+        if (status == SessionStatus.CLOSED) {
+            metrics.closedSessionRejected();
+            throw new IllegalStateException(CLOSED_MESSAGE);
+        }
+    }
+
+    /**
+     * Status of a live session; archived sessions are always closed.
+     */
+    private SessionStatus statusOf(String sessionId) {
+        return sessionRepository.findStatusById(sessionId)
+                .or(() -> archivedSessionRepository.existsById(sessionId)
+                        ? Optional.of(SessionStatus.CLOSED) : Optional.empty())
+                .orElseThrow(() -> new IllegalArgumentException("Session not found"));
+    }
+
+    /**
+     * Returns one keyset page of a session's choices, ordered by ID.
+     *
+     * @param sessionId The session ID
+     * @param after     Only choices with a larger ID are returned; null starts from the beginning
+     * @param limit     Page size; null uses the default, and values are capped at the configured maximum
+     * @throws IllegalArgumentException if session not found
+     */
+    @Transactional(readOnly = true)
+    public RestaurantPageResponse listChoices(String sessionId, Long after, Integer limit) {
+        int pageSize = limit == null ? defaultPageLimit : Math.max(1, Math.min(limit, maxPageLimit));
+        long afterId = after == null ? 0L : after;
+        // One extra row tells us whether another page follows
+        List<RestaurantChoiceResponse> rows = restaurantRepository.findPage(sessionId, afterId, Limit.of(pageSize + 1))
+                .stream()
+                .map(RestaurantChoiceResponse::from)
+                .toList();
+
+        // An empty page is the only case where we need to tell "no more choices" from "no such session"
+        if (rows.isEmpty() && !sessionRepository.existsById(sessionId)) {
+            rows = archivedSessionRepository.findById(sessionId)
+                    .map(archive -> archive.toLunchSession().getRestaurantChoices().stream()
+                            .filter(choice -> choice.getId() > afterId)
+                            .limit(pageSize + 1)
+                            .map(RestaurantChoiceResponse::from)
+                            .toList())
+                    .orElseThrow(() -> new IllegalArgumentException("Session not found"));
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<RestaurantChoiceResponse> items = rows.subList(0, Math.min(pageSize, rows.size()));
+        return RestaurantPageResponse.builder()
+                .items(items)
+                .nextAfter(hasMore ? items.get(items.size() - 1).getId() : null)
+                .build();
+    }
+
+    /**
+     * Works out why a conditional insert did not insert anything.
+     */
+    private RuntimeException rejectionFor(String sessionId) {
+        SessionStatus status = statusOf(sessionId);
+
+        if (status == SessionStatus.CLOSED) {
+            metrics.closedSessionRejected();
+            return new IllegalStateException(CLOSED_MESSAGE);
+        }
+        metrics.duplicateRejected();
+        return new IllegalStateException(DUPLICATE_MESSAGE);
+    }
+
     /**
      * Picks a random restaurant from the submitted choices and closes the session.
      * Uses optimistic locking (@Version) to prevent race conditions in distributed systems.
@@ -77,54 +319,76 @@ public class RestaurantService {
      * @throws IllegalArgumentException          if session not found
      * @throws IllegalStateException             if no restaurants submitted
      * @throws SecurityException                 if user is not the first submitter
-     * @throws OptimisticLockingFailureException if session was modified by another request
+     * @throws OptimisticLockingFailureException if session was modified by another request;
+     *                                           {@link PickCoordinator} retries these
      */
+    @Timed(value = "lunch.pick", histogram = true)
     @Transactional
     public String pickRandom(String sessionId, String user) {
         log.debug("Picking random restaurant for session '{}' by user '{}'", sessionId, user);
         
-        LunchSession session = sessionRepository.findById(sessionId)
-                .orElseThrow(() -> new IllegalArgumentException("Session not found"));
+        LunchSession session = sessionRepository.findById(sessionId).orElse(null);
+        if (session == null) {
+            // Archived sessions are closed; their pick is final
+            return archivedSessionRepository.findChosenRestaurantById(sessionId)
+                    .orElseThrow(() -> new IllegalArgumentException("Session not found"));
+        }
 
         // If already closed, return the previously chosen restaurant (idempotent operation)
         if (session.getStatus() == SessionStatus.CLOSED) {
-            log.info("Session '{}' already closed, returning existing choice: '{}'", 
+            log.debug("Session '{}' already closed, returning existing choice: '{}'",
                      sessionId, session.getChosenRestaurant());
             return session.getChosenRestaurant();
         }
 
-        List<RestaurantChoice> choices =
-                restaurantRepository.findBySessionIdOrderByIdAsc(sessionId);
-
-        if (choices.isEmpty()) {
+        long choiceCount = restaurantRepository.countBySessionId(sessionId);
+        if (choiceCount == 0) {
             throw new IllegalStateException("No restaurants have been submitted yet");
         }
 
         // Stretch Goal 1: Only the first submitter can trigger the random pick
-        RestaurantChoice firstSubmission = choices.get(0);
-        if (!firstSubmission.getSubmittedBy().equals(user)) {
+        String firstSubmitter = firstSubmitterOf(session);
+        if (!firstSubmitter.equals(user)) {
+            metrics.firstSubmitterDenied();
             throw new SecurityException(
-                    "Only the first submitter (" + firstSubmission.getSubmittedBy()
-                            + ") can pick the random restaurant");
+                    "Only the first submitter (" + firstSubmitter + ") can pick the random restaurant");
         }
 
-        // Random selection
-        RestaurantChoice chosen =
-                choices.get(ThreadLocalRandom.current().nextInt(choices.size()));
+        // Random selection: fetch only the chosen row, by its position in ID order
+        int offset = (int) ThreadLocalRandom.current().nextLong(choiceCount);
+        String chosen = restaurantRepository.findRestaurantNames(sessionId, PageRequest.of(offset, 1)).get(0);
 
         // Update session - optimistic locking will throw exception if version mismatch
-        session.setChosenRestaurant(chosen.getRestaurant());
+        session.setChosenRestaurant(chosen);
         session.setStatus(SessionStatus.CLOSED);
+        session.setClosedAt(LocalDateTime.now());
         
-        try {
-            sessionRepository.save(session);
-            log.info("Session '{}' closed with chosen restaurant: '{}'", sessionId, chosen.getRestaurant());
-        } catch (OptimisticLockingFailureException e) {
-            log.error("Concurrent modification detected for session '{}'", sessionId);
-            throw new IllegalStateException(
-                "Session was modified by another request. Please try again.", e);
-        }
+        // Flush so a version conflict surfaces here as an OptimisticLockingFailureException for the
+        // caller to retry, rather than as a commit failure
+        sessionRepository.saveAndFlush(session);
+        metrics.sessionPicked(choiceCount);
+        eventPublisher.publishEvent(new SessionClosedEvent(sessionId, chosen, session.getClosedAt(), session.getVersion()));
+        log.atInfo()
+                .setMessage("Restaurant picked")
+                .addKeyValue("sessionId", sessionId)
+                .addKeyValue("restaurant", chosen)
+                .addKeyValue("user", user)
+                .addKeyValue("choices", choiceCount)
+                .log();
 
-        return chosen.getRestaurant();
+        return chosen;
+    }
+
+    /**
+     * Choices inserted outside the submit paths (e.g. seeded directly through JPA) do not record
+     * the first submitter; fall back to the lowest-ID choice for those.
+     */
+    private String firstSubmitterOf(LunchSession session) {
+        if (session.getFirstSubmitter() != null) {
+            return session.getFirstSubmitter();
+        }
+        return restaurantRepository.findFirstBySessionIdOrderByIdAsc(session.getId())
+                .map(RestaurantChoice::getSubmittedBy)
+                .orElseThrow(() -> new IllegalStateException("No restaurants have been submitted yet"));
     }
 }
@@ -0,0 +1,299 @@
+package com.example.lunch_picker.service;
+
+import com.example.lunch_picker.event.RestaurantSubmittedEvent;
+import com.example.lunch_picker.event.SessionClosedEvent;
+import com.example.lunch_picker.event.SessionCreatedEvent;
+import com.example.lunch_picker.model.RestaurantChoice;
+import com.example.lunch_picker.repository.RestaurantStatsDelta;
+import com.example.lunch_picker.repository.RestaurantStatsRepository;
+import com.example.lunch_picker.repository.SessionRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Counts committed submissions and picks per team and restaurant, and periodically adds them to
+ * the {@code restaurant_stats} summary.
+ * <p>
+ * Counting is a {@link LongAdder} increment, which spreads contention on popular restaurants over
+ * several cells, so the request path never touches the summary table. A failed flush keeps its
+ * counts for the next one. Counters are kept once created; there is one per team and restaurant,
+ * the same as summary rows.
+ * <p>
+ * While a rebuild runs, flushing is paused. Just before the rebuild scans a team's history,
+ * {@link #hold} sets a watermark for the team: the highest committed choice ID and the current time.
+ * The scan only counts choices and picks up to the watermark. Counts for changes at or below it,
+ * gathered before or after the hold, are set aside; only counts above it are flushed once the rebuild
+ * is in place, so every change is counted once. If the rebuild fails, the set-aside counts are given
+ * back. A change stamped below the watermark that only commits after the scan is missed until the
+ * next rebuild.
+ * <p>
+ * Counting threads never lock. Each joins the current {@link Epoch}, which holds the watermarks;
+ * a hold or resume publishes a new epoch and waits for threads still in the old one before it moves
+ * counts around.
+ */
+@Slf4j
+@Component
+public class RestaurantStatsCollector {
+
+    private final ConcurrentMap<Key, Counters> pending = new ConcurrentHashMap<>();
+    private final Cache<String, String> sessionTeams;
+    private final SessionRepository sessionRepository;
+    private final RestaurantStatsRepository statsRepository;
+    private final Object flushLock = new Object();
+    private boolean paused;
+    private volatile Epoch epoch = new Epoch(Map.of());
+
+    public RestaurantStatsCollector(SessionRepository sessionRepository,
+                                    RestaurantStatsRepository statsRepository,
+                                    @Value("${app.stats.session-cache-size:10000}") long sessionCacheSize) {
+        this.sessionRepository = sessionRepository;
+        this.statsRepository = statsRepository;
+        this.sessionTeams = Caffeine.newBuilder().maximumSize(sessionCacheSize).build();
+    }
+
+    @TransactionalEventListener
+    public void onSessionCreated(SessionCreatedEvent event) {
+        sessionTeams.put(event.getSessionId(), event.getCreatedBy());
+    }
+
+    @TransactionalEventListener
+    public void onRestaurantSubmitted(RestaurantSubmittedEvent event) {
+        count(event.getSessionId(), event.getRestaurant(), true,
+                watermark -> event.getChoiceId() <= watermark.maxChoiceId);
+    }
+
+    @TransactionalEventListener
+    public void onSessionClosed(SessionClosedEvent event) {
+        count(event.getSessionId(), event.getChosenRestaurant(), false,
+                watermark -> !event.getClosedAt().isAfter(watermark.closedUpTo));
+    }
+
+    /**
+     * Adds everything counted since the last flush to the summary table.
+     */
+    @Scheduled(initialDelayString = "${app.stats.flush-interval:5s}", fixedDelayString = "${app.stats.flush-interval:5s}")
+    public void flush() {
+        synchronized (flushLock) {
+            if (paused) {
+                return;
+            }
+            List<RestaurantStatsDelta> deltas = new ArrayList<>();
+            pending.forEach((key, counters) -> {
+                long submissions = counters.submissions.sumThenReset();
+                long picks = counters.picks.sumThenReset();
+                if (submissions != 0 || picks != 0) {
+                    deltas.add(new RestaurantStatsDelta(key.team, key.restaurantKey, counters.restaurant, submissions, picks));
+                }
+            });
+            if (deltas.isEmpty()) {
+                return;
+            }
+            try {
+                statsRepository.addAll(deltas);
+                log.debug("Flushed {} restaurant stats rows", deltas.size());
+            } catch (DataAccessException e) {
+                log.warn("Failed to flush restaurant stats, keeping {} rows for the next attempt", deltas.size(), e);
+                for (RestaurantStatsDelta delta : deltas) {
+                    Counters counters = pending.get(new Key(delta.team(), delta.restaurantKey()));
+                    counters.submissions.add(delta.submissions());
+                    counters.picks.add(delta.picks());
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops flushing ahead of a rebuild from history.
+     */
+    public void pause() {
+        synchronized (flushLock) {
+            paused = true;
+        }
+    }
+
+    /**
+     * Sets a watermark for these teams just before a rebuild scans their history, and sets aside what
+     * has been counted for them so far. Everything counted until now has committed, so it lies below
+     * the watermark and the scan will see it.
+     *
+     * @return The watermark the scan must stop at
+     */
+    public Watermark hold(Collection<String> teams) {
+        Watermark watermark = new Watermark();
+        Set<String> held = Set.copyOf(teams);
+        synchronized (flushLock) {
+            Map<String, Watermark> watermarks = new HashMap<>(epoch.watermarks);
+            held.forEach(team -> watermarks.put(team, watermark));
+            advance(watermarks);
+            pending.forEach((key, counters) -> {
+                if (held.contains(key.team)) {
+                    counters.heldSubmissions.add(counters.submissions.sumThenReset());
+                    counters.heldPicks.add(counters.picks.sumThenReset());
+                }
+            });
+            // If the watermark cannot be read, everything is set aside, to be given back when the rebuild fails
+            long maxChoiceId = Long.MAX_VALUE;
+            LocalDateTime closedUpTo = LocalDateTime.MAX;
+            try {
+                maxChoiceId = statsRepository.findMaxChoiceId();
+                closedUpTo = LocalDateTime.now();
+            } finally {
+                watermark.resolve(maxChoiceId, closedUpTo);
+            }
+        }
+        return watermark;
+    }
+
+    /**
+     * Resumes flushing after a rebuild. Counts set aside by {@link #hold} are dropped if the rebuilt
+     * summary replaced the old one, and flushed as usual if it did not.
+     */
+    public void resume(boolean rebuilt) {
+        synchronized (flushLock) {
+            advance(Map.of());
+            pending.values().forEach(counters -> {
+                long heldSubmissions = counters.heldSubmissions.sumThenReset();
+                long heldPicks = counters.heldPicks.sumThenReset();
+                if (!rebuilt) {
+                    counters.submissions.add(heldSubmissions);
+                    counters.picks.add(heldPicks);
+                }
+            });
+            paused = false;
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    private void count(String sessionId, String restaurant, boolean submission, Predicate<Watermark> covered) {
+        String team = sessionTeams.get(sessionId, id -> sessionRepository.findCreatedByById(id).orElse(null));
+        if (team == null) {
+            return;
+        }
+        Counters counters = pending.computeIfAbsent(new Key(team, RestaurantChoice.normalize(restaurant)),
+                key -> new Counters(restaurant.trim()));
+        Epoch joined = join();
+        try {
+            Watermark watermark = joined.watermarks.get(team);
+            boolean held = watermark != null && covered.test(watermark.await());
+            if (submission) {
+                (held ? counters.heldSubmissions : counters.submissions).increment();
+            } else {
+                (held ? counters.heldPicks : counters.picks).increment();
+            }
+        } finally {
+            joined.active.decrement();
+        }
+    }
+
+    private Epoch join() {
+        while (true) {
+            Epoch current = epoch;
+            current.active.increment();
+            // Re-read, so a thread is never counted in an epoch that advance() has already waited out
+            if (current == epoch) {
+                return current;
+            }
+            current.active.decrement();
+        }
+    }
+
+    /**
+     * Publishes the next epoch and waits for the threads still counting in the previous one.
+     */
+    private void advance(Map<String, Watermark> watermarks) {
+        Epoch previous = epoch;
+        epoch = new Epoch(Map.copyOf(watermarks));
+        while (previous.active.sum() != 0) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private record Key(String team, String restaurantKey) {
+    }
+
+    private static final class Counters {
+
+        private final String restaurant;
+        private final LongAdder submissions = new LongAdder();
+        private final LongAdder picks = new LongAdder();
+        // Counts at or below a watermark, set aside while a rebuild runs
+        private final LongAdder heldSubmissions = new LongAdder();
+        private final LongAdder heldPicks = new LongAdder();
+
+        private Counters(String restaurant) {
+            this.restaurant = restaurant;
+        }
+    }
+
+    /**
+     * The watermarks in force and the number of threads counting against them.
+     */
+    private static final class Epoch {
+
+        private final Map<String, Watermark> watermarks;
+        private final LongAdder active = new LongAdder();
+
+        private Epoch(Map<String, Watermark> watermarks) {
+            this.watermarks = watermarks;
+        }
+    }
+
+    /**
+     * Where a rebuild's scan stops: choices up to {@link #getMaxChoiceId} and picks closed up to
+     * {@link #getClosedUpTo}. Counting threads that see it before it is resolved wait for it.
+     */
+    public static final class Watermark {
+
+        private final CountDownLatch resolved = new CountDownLatch(1);
+        private long maxChoiceId;
+        private LocalDateTime closedUpTo;
+
+        private void resolve(long maxChoiceId, LocalDateTime closedUpTo) {
+            this.maxChoiceId = maxChoiceId;
+            this.closedUpTo = closedUpTo;
+            resolved.countDown();
+        }
+
+        private Watermark await() {
+            try {
+                resolved.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a stats watermark", e);
+            }
+            return this;
+        }
+
+        public long getMaxChoiceId() {
+            return maxChoiceId;
+        }
+
+        public LocalDateTime getClosedUpTo() {
+            return closedUpTo;
+        }
+    }
+}
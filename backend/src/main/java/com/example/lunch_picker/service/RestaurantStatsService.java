@@ -0,0 +1,131 @@
+package com.example.lunch_picker.service;
+
+import com.example.lunch_picker.dto.RestaurantStatsResponse;
+import com.example.lunch_picker.model.RestaurantChoice;
+import com.example.lunch_picker.model.RestaurantRanking;
+import com.example.lunch_picker.repository.RestaurantStatsDelta;
+import com.example.lunch_picker.repository.RestaurantStatsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Restaurant popularity and win-rate analytics, read from the {@code restaurant_stats} summary
+ * that {@link RestaurantStatsCollector} keeps up to date, and the rebuild of that summary from history.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RestaurantStatsService {
+
+    private final RestaurantStatsRepository statsRepository;
+
+    @Value("${app.stats.top.default-limit:10}")
+    private int defaultLimit;
+
+    @Value("${app.stats.top.max-limit:100}")
+    private int maxLimit;
+
+    /**
+     * Top restaurants by submissions or picks, for one team or across all of them.
+     *
+     * @param team    Creator of the sessions to count; null for all sessions
+     * @param ranking What to rank by
+     * @param limit   Maximum number of restaurants; defaults and is capped by configuration
+     */
+    @Transactional(readOnly = true)
+    public List<RestaurantStatsResponse> top(String team, RestaurantRanking ranking, Integer limit) {
+        int size = limit == null ? defaultLimit : Math.max(1, Math.min(limit, maxLimit));
+        return statsRepository.findTop(team, ranking, size).stream()
+                .map(RestaurantStatsResponse::from)
+                .toList();
+    }
+
+    /**
+     * Every team with at least one session, live or archived.
+     */
+    @Transactional(readOnly = true)
+    public List<String> findTeams() {
+        return statsRepository.findTeams();
+    }
+
+    /**
+     * Empties the staging table ahead of a rebuild.
+     */
+    @Transactional
+    public void clearStaging() {
+        statsRepository.clearStaging();
+    }
+
+    /**
+     * Recounts the given teams' submissions and picks from live and archived sessions into the
+     * staging table, counting live changes only up to the watermark {@link RestaurantStatsCollector#hold}
+     * set for them. Teams must not be rebuilt by two callers at once.
+     *
+     * @return The number of summary rows written
+     */
+    @Transactional
+    public int rebuildTeams(Collection<String> teams, RestaurantStatsCollector.Watermark watermark) {
+        Map<Key, Totals> totals = new HashMap<>();
+        // Archived sessions are the oldest, so they go first and their spelling of a name is the one kept
+        statsRepository.scanArchived(teams, archive -> {
+            for (RestaurantChoice choice : archive.toLunchSession().getRestaurantChoices()) {
+                add(totals, new RestaurantStatsDelta(archive.getCreatedBy(),
+                        RestaurantChoice.normalize(choice.getRestaurant()), choice.getRestaurant(), 1, 0));
+            }
+            if (archive.getChosenRestaurant() != null) {
+                add(totals, new RestaurantStatsDelta(archive.getCreatedBy(),
+                        RestaurantChoice.normalize(archive.getChosenRestaurant()), archive.getChosenRestaurant(), 0, 1));
+            }
+        });
+        statsRepository.countLiveSubmissions(teams, watermark.getMaxChoiceId()).forEach(delta -> add(totals, delta));
+        statsRepository.countLivePicks(teams, watermark.getClosedUpTo()).forEach(delta -> add(totals, delta));
+
+        List<RestaurantStatsDelta> rows = totals.entrySet().stream()
+                .map(entry -> new RestaurantStatsDelta(entry.getKey().team(), entry.getKey().restaurantKey(),
+                        entry.getValue().restaurant, entry.getValue().submissions, entry.getValue().picks))
+                .toList();
+        statsRepository.stageAll(rows);
+        log.debug("Rebuilt restaurant stats for {} teams ({} rows)", teams.size(), rows.size());
+        return rows.size();
+    }
+
+    /**
+     * Replaces the summary with the rebuilt rows in one transaction.
+     *
+     * @return The number of summary rows
+     */
+    @Transactional
+    public int publishStaging() {
+        return statsRepository.replaceWithStaging();
+    }
+
+    private static void add(Map<Key, Totals> totals, RestaurantStatsDelta delta) {
+        // The first display name seen for a restaurant is the one kept
+        Totals sums = totals.computeIfAbsent(new Key(delta.team(), delta.restaurantKey()),
+                key -> new Totals(delta.restaurant()));
+        sums.submissions += delta.submissions();
+        sums.picks += delta.picks();
+    }
+
+    private record Key(String team, String restaurantKey) {
+    }
+
+    private static final class Totals {
+
+        private final String restaurant;
+        private long submissions;
+        private long picks;
+
+        private Totals(String restaurant) {
+            this.restaurant = restaurant;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.lunch_picker.service;
+
+import com.example.lunch_picker.dto.RestaurantSuggestionResponse;
+import com.example.lunch_picker.event.RestaurantSubmittedEvent;
+import com.example.lunch_picker.repository.RestaurantStatsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+/**
+ * Restaurant name autocomplete, ranked by how often each name has been submitted across all sessions.
+ * <p>
+ * Suggestions come from a {@link RestaurantNameTrie} held in memory, never from the database. It is
+ * loaded from the {@code restaurant_stats} summary once the application is ready and again after each
+ * stats rebuild, and every committed submission is added to it as it happens. A reload only sees
+ * submissions that have been flushed to the summary: a rebuild flushes the live counts before
+ * reloading, but a submission that commits between that flush and the end of the reload is missing
+ * from the new trie until the next reload.
+ */
+@Slf4j
+@Component
+public class RestaurantSuggester {
+
+    private final RestaurantStatsRepository statsRepository;
+    private final int topK;
+    private volatile RestaurantNameTrie trie;
+
+    public RestaurantSuggester(RestaurantStatsRepository statsRepository,
+                               @Value("${app.suggest.top-k:10}") int topK) {
+        this.statsRepository = statsRepository;
+        this.topK = topK;
+        this.trie = new RestaurantNameTrie(topK);
+    }
+
+    /**
+     * The most submitted restaurant names starting with {@code prefix}, ignoring case and extra spaces.
+     *
+     * @param limit Maximum number of names; defaults to and is capped at {@code app.suggest.top-k}
+     */
+    public List<RestaurantSuggestionResponse> suggest(String prefix, Integer limit) {
+        int size = limit == null ? topK : Math.max(1, Math.min(limit, topK));
+        return trie.suggest(prefix == null ? "" : prefix, size).stream()
+                .map(RestaurantSuggestionResponse::from)
+                .toList();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reload();
+    }
+
+    /**
+     * Replaces the trie with one built from the summary table's current totals.
+     */
+    public synchronized void reload() {
+        RestaurantNameTrie loaded = new RestaurantNameTrie(topK);
+        statsRepository.scanTotals(totals -> loaded.add(totals.getRestaurant(), totals.getSubmissions()));
+        trie = loaded;
+        log.info("Loaded {} restaurant names for suggestions", loaded.size());
+    }
+
+    @TransactionalEventListener
+    public void onRestaurantSubmitted(RestaurantSubmittedEvent event) {
+        trie.add(event.getRestaurant(), 1);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.lunch_picker.service;
+
+import com.example.lunch_picker.event.SessionArchivedEvent;
+import com.example.lunch_picker.model.ArchivedSession;
+import com.example.lunch_picker.model.LunchSession;
+import com.example.lunch_picker.model.RestaurantChoice;
+import com.example.lunch_picker.model.SessionStatus;
+import com.example.lunch_picker.repository.ArchivedSessionRepository;
+import com.example.lunch_picker.repository.RestaurantRepository;
+import com.example.lunch_picker.repository.SessionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Moves closed sessions out of the live tables into {@link ArchivedSession} rows.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SessionArchiveService {
+
+    private final SessionRepository sessionRepository;
+    private final RestaurantRepository restaurantRepository;
+    private final ArchivedSessionRepository archivedSessionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Archives up to {@code batchSize} sessions closed before {@code cutoff}, oldest first, and
+     * deletes them and their choices with one bulk statement per table.
+     *
+     * @return What was moved; zero sessions means nothing is left to archive
+     */
+    @Transactional
+    public ArchiveBatch archiveClosedBefore(LocalDateTime cutoff, int batchSize) {
+        List<String> ids = sessionRepository.findIdsByStatusClosedBefore(SessionStatus.CLOSED, cutoff, Limit.of(batchSize));
+        if (ids.isEmpty()) {
+            return new ArchiveBatch(0, 0, 0, 0);
+        }
+
+        Map<String, List<RestaurantChoice>> choicesBySession = restaurantRepository.findAllBySessionIds(ids).stream()
+                .collect(Collectors.groupingBy(choice -> choice.getSession().getId()));
+
+        List<ArchivedSession> archives = new ArrayList<>(ids.size());
+        long liveBytes = 0;
+        long archivedBytes = 0;
+        for (LunchSession session : sessionRepository.findAllById(ids)) {
+            List<RestaurantChoice> choices = choicesBySession.getOrDefault(session.getId(), List.of());
+            ArchivedSession archive = ArchivedSession.of(session, choices);
+            archives.add(archive);
+            liveBytes += choices.stream().mapToLong(SessionArchiveService::estimatedSize).sum();
+            archivedBytes += archive.getChoices().length;
+        }
+        archivedSessionRepository.saveAll(archives);
+        archives.forEach(archive -> eventPublisher.publishEvent(
+                new SessionArchivedEvent(archive.getId(), archive.getArchivedAt())));
+
+        int deletedChoices = restaurantRepository.deleteAllBySessionIds(ids);
+        int deletedSessions = sessionRepository.deleteAllByIds(ids);
+        log.debug("Archived {} sessions with {} choices", deletedSessions, deletedChoices);
+        return new ArchiveBatch(deletedSessions, deletedChoices, liveBytes, archivedBytes);
+    }
+
+    /**
+     * Rough size of a choice row's data: the ID, the session ID and its three strings.
+     */
+    private static long estimatedSize(RestaurantChoice choice) {
+        return Long.BYTES
+                + choice.getSession().getId().length()
+                + choice.getRestaurant().getBytes(StandardCharsets.UTF_8).length
+                + choice.getNormalizedRestaurant().getBytes(StandardCharsets.UTF_8).length
+                + choice.getSubmittedBy().getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /**
+     * Outcome of one archive pass.
+     */
+    @Value
+    public static class ArchiveBatch {
+        int sessions;
+        int choices;
+        long liveBytes;
+        long archivedBytes;
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.lunch_picker.service;
+
+import com.example.lunch_picker.dto.RestaurantChoiceResponse;
+import com.example.lunch_picker.event.RestaurantSubmittedEvent;
+import com.example.lunch_picker.event.SessionClosedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Fans session events out to Server-Sent Events subscribers.
+ * <p>
+ * Connections are held as async {@link SseEmitter}s, so no request thread is parked per subscriber.
+ * Each subscriber gets a bounded queue drained by a small shared dispatch pool; a subscriber whose
+ * queue overflows is disconnected rather than buffered without limit; the client's EventSource
+ * reconnects and re-reads the session.
+ * Events are only broadcast after the originating transaction commits.
+ */
+@Slf4j
+@Component
+public class SessionEventBroadcaster {
+
+    static final String CHOICE_ADDED = "choice-added";
+    static final String SESSION_CLOSED = "session-closed";
+
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ExecutorService dispatcher;
+    private final ScheduledExecutorService heartbeat;
+    private final int bufferSize;
+    private final Duration timeout;
+
+    public SessionEventBroadcaster(@Value("${app.events.buffer-size:64}") int bufferSize,
+                                   @Value("${app.events.timeout:30m}") Duration timeout,
+                                   @Value("${app.events.dispatch-threads:4}") int dispatchThreads,
+                                   @Value("${app.events.heartbeat-interval:20s}") Duration heartbeatInterval) {
+        this.bufferSize = bufferSize;
+        this.timeout = timeout;
+        this.dispatcher = Executors.newFixedThreadPool(dispatchThreads, daemonThreads("sse-dispatch-"));
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(daemonThreads("sse-heartbeat-"));
+        this.heartbeat.scheduleAtFixedRate(this::sendHeartbeats,
+                heartbeatInterval.toMillis(), heartbeatInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Registers a new subscriber for a session's events.
+     */
+    public SseEmitter subscribe(String sessionId) {
+        return subscribe(sessionId, new SseEmitter(timeout.toMillis()));
+    }
+
+    /**
+     * Registers an emitter the caller created, for callers that need to watch what it is sent.
+     */
+    public SseEmitter subscribe(String sessionId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(sessionId, emitter);
+
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+
+        subscribers.computeIfAbsent(sessionId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        log.debug("SSE subscriber added to session '{}'", sessionId);
+        return emitter;
+    }
+
+    /**
+     * Returns an emitter that reports an already closed session and completes immediately.
+     */
+    public SseEmitter closedSession(String chosenRestaurant) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        try {
+            emitter.send(closedEvent(chosenRestaurant));
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    /**
+     * Ends a {@link #subscribe} stream for a session found to be closed after subscribing, with the
+     * same final event a live close sends. Does nothing if the live close already reached it.
+     */
+    public void sessionClosed(String sessionId, SseEmitter emitter, String chosenRestaurant) {
+        Set<Subscriber> sessionSubscribers = subscribers.get(sessionId);
+        if (sessionSubscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : sessionSubscribers) {
+            if (subscriber.emitter == emitter) {
+                subscriber.enqueue(() -> closedEvent(chosenRestaurant), true);
+            }
+        }
+    }
+
+    @TransactionalEventListener
+    public void onRestaurantSubmitted(RestaurantSubmittedEvent event) {
+        RestaurantChoiceResponse choice = RestaurantChoiceResponse.builder()
+                .id(event.getChoiceId())
+                .restaurant(event.getRestaurant())
+                .submittedBy(event.getSubmittedBy())
+                .build();
+        broadcast(event.getSessionId(), () -> SseEmitter.event()
+                .name(CHOICE_ADDED)
+                .id(String.valueOf(event.getChoiceId()))
+                .data(choice), false);
+    }
+
+    @TransactionalEventListener
+    public void onSessionClosed(SessionClosedEvent event) {
+        broadcast(event.getSessionId(), () -> closedEvent(event.getChosenRestaurant()), true);
+    }
+
+    public int subscriberCount(String sessionId) {
+        Set<Subscriber> sessionSubscribers = subscribers.get(sessionId);
+        return sessionSubscribers == null ? 0 : sessionSubscribers.size();
+    }
+
+    private SseEmitter.SseEventBuilder closedEvent(String chosenRestaurant) {
+        return SseEmitter.event()
+                .name(SESSION_CLOSED)
+                .data(Map.of("chosenRestaurant", chosenRestaurant));
+    }
+
+    private void broadcast(String sessionId, Supplier<SseEmitter.SseEventBuilder> event, boolean last) {
+        Set<Subscriber> sessionSubscribers = subscribers.get(sessionId);
+        if (sessionSubscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : sessionSubscribers) {
+            subscriber.enqueue(event, last);
+        }
+    }
+
+    private void sendHeartbeats() {
+        Supplier<SseEmitter.SseEventBuilder> ping = () -> SseEmitter.event().comment("ping");
+        subscribers.values().forEach(sessionSubscribers ->
+                sessionSubscribers.forEach(subscriber -> subscriber.enqueue(ping, false)));
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.sessionId, (id, sessionSubscribers) -> {
+            sessionSubscribers.remove(subscriber);
+            return sessionSubscribers.isEmpty() ? null : sessionSubscribers;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        heartbeat.shutdownNow();
+        dispatcher.shutdownNow();
+        subscribers.values().forEach(sessionSubscribers ->
+                sessionSubscribers.forEach(subscriber -> subscriber.emitter.complete()));
+        subscribers.clear();
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private final class Subscriber {
+
+        private final String sessionId;
+        private final SseEmitter emitter;
+        // Builders are not reusable once sent, so each subscriber builds its own copy at send time
+        private final Queue<Supplier<SseEmitter.SseEventBuilder>> queue = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closing;
+
+        private Subscriber(String sessionId, SseEmitter emitter) {
+            this.sessionId = sessionId;
+            this.emitter = emitter;
+        }
+
+        void enqueue(Supplier<SseEmitter.SseEventBuilder> event, boolean last) {
+            if (closing) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                log.debug("SSE subscriber for session '{}' is too slow, disconnecting", sessionId);
+                closing = true;
+                remove(this);
+                emitter.complete();
+                return;
+            }
+            if (last) {
+                closing = true;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    dispatcher.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                while (true) {
+                    Supplier<SseEmitter.SseEventBuilder> event;
+                    while ((event = queue.poll()) != null) {
+                        emitter.send(event.get());
+                    }
+                    // Still holding the drain, so nothing can be queued behind the final event unsent
+                    if (closing && queue.isEmpty()) {
+                        remove(this);
+                        emitter.complete();
+                        return;
+                    }
+                    draining.set(false);
+                    // An event queued after the last poll may have found the drain still held; take it back
+                    if (queue.isEmpty() || !draining.compareAndSet(false, true)) {
+                        return;
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away; the emitter callbacks take care of removal
+                remove(this);
+                draining.set(false);
+            }
+        }
+    }
+}
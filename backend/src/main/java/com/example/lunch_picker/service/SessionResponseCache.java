@@ -0,0 +1,94 @@
+package com.example.lunch_picker.service;
+
+import com.example.lunch_picker.dto.SessionResponse;
+import com.example.lunch_picker.model.SessionStatus;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Serialized JSON for session reads, keyed by session, view and version.
+ * <p>
+ * Every change to a session bumps its version, so an entry never goes stale: a newer version is
+ * simply a different key. Entries for open sessions are dropped after {@code app.response-cache.open-ttl},
+ * as their next submit makes them unreachable anyway; closed sessions are immutable and stay until
+ * evicted by size. The cache is bounded by the total size of the cached bodies.
+ */
+@Component
+public class SessionResponseCache {
+
+    private final Cache<Key, Rendered> responses;
+    private final ObjectMapper objectMapper;
+
+    public SessionResponseCache(@Value("${app.response-cache.max-size:64MB}") DataSize maxSize,
+                                @Value("${app.response-cache.open-ttl:10m}") Duration openTtl,
+                                ObjectMapper objectMapper,
+                                MeterRegistry registry) {
+        this.objectMapper = objectMapper;
+        this.responses = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((Key key, Rendered rendered) -> rendered.json().length)
+                .expireAfter(Expiry.creating((Key key, Rendered rendered) ->
+                        rendered.closed() ? Duration.ofNanos(Long.MAX_VALUE) : openTtl))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, responses, "session.responses");
+    }
+
+    /**
+     * Returns the cached body for this version of the session, or renders, serializes and caches it.
+     * <p>
+     * The renderer may see a newer version than the one asked for if the session changed in between;
+     * the result is cached and returned under the version it was actually rendered from.
+     *
+     * @param sessionId The session ID
+     * @param view      Which representation, e.g. {@code full} or {@code summary}
+     * @param version   The session's current version
+     * @param renderer  Builds the response body, with the version it reflects, when it is not cached
+     */
+    public Rendered get(String sessionId, String view, long version, Supplier<Versioned> renderer) {
+        Rendered cached = responses.getIfPresent(new Key(sessionId, view, version));
+        if (cached != null) {
+            return cached;
+        }
+
+        Versioned source = renderer.get();
+        Rendered rendered = new Rendered(serialize(source.body()), source.version(),
+                SessionStatus.CLOSED.name().equals(source.body().getStatus()));
+        responses.put(new Key(sessionId, view, rendered.version()), rendered);
+        return rendered;
+    }
+
+    private byte[] serialize(SessionResponse body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize session " + body.getId(), e);
+        }
+    }
+
+    /**
+     * A session body and the version of the session it was built from.
+     */
+    public record Versioned(SessionResponse body, long version) {
+    }
+
+    /**
+     * A serialized session body and the version it was rendered from.
+     */
+    public record Rendered(byte[] json, long version, boolean closed) {
+    }
+
+    private record Key(String sessionId, String view, long version) {
+    }
+}
@@ -1,13 +1,26 @@
 package com.example.lunch_picker.service;
 
+import com.example.lunch_picker.dto.SessionCursor;
+import com.example.lunch_picker.dto.SessionPageResponse;
+import com.example.lunch_picker.dto.SessionSummaryResponse;
+import com.example.lunch_picker.event.SessionCreatedEvent;
+import com.example.lunch_picker.model.ArchivedSession;
 import com.example.lunch_picker.model.LunchSession;
 import com.example.lunch_picker.model.SessionStatus;
+import com.example.lunch_picker.repository.ArchivedSessionRepository;
 import com.example.lunch_picker.repository.SessionRepository;
-import com.example.lunch_picker.repository.UserRepository;
+import com.example.lunch_picker.repository.SessionRepositoryCustom.SessionChoiceCount;
+import com.example.lunch_picker.repository.SessionSummaryView;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
@@ -15,11 +28,20 @@ import java.util.UUID;
 public class SessionService {
 
     private final SessionRepository sessionRepository;
-    private final UserRepository userRepository;
+    private final UserDirectory userDirectory;
+    private final ArchivedSessionRepository archivedSessionRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
+    @Value("${app.sessions.page.default-limit:20}")
+    private int defaultPageLimit;
+
+    @Value("${app.sessions.page.max-limit:100}")
+    private int maxPageLimit;
+
+    @Timed(value = "lunch.session.create", histogram = true)
     @Transactional
     public LunchSession createSession(String username) {
-        if (!userRepository.existsById(username)) {
+        if (!userDirectory.contains(username)) {
             throw new SecurityException("User '" + username + "' is not authorized to create sessions");
         }
 
@@ -29,12 +51,78 @@ public class SessionService {
                 .status(SessionStatus.OPEN)
                 .build();
 
-        return sessionRepository.save(session);
+        LunchSession saved = sessionRepository.save(session);
+        eventPublisher.publishEvent(new SessionCreatedEvent(saved.getId(), saved.getCreatedBy(), saved.getCreatedAt()));
+        return saved;
     }
 
+    /**
+     * Loads a session together with all of its restaurant choices.
+     * Sessions that have been archived are rebuilt from the archive.
+     */
+    @Timed(value = "lunch.session.get", histogram = true)
     @Transactional(readOnly = true)
     public LunchSession getSession(String sessionId) {
-        return sessionRepository.findById(sessionId)
+        return sessionRepository.findWithRestaurantChoicesById(sessionId)
+                .or(() -> findArchived(sessionId))
+                .orElseThrow(() -> new IllegalArgumentException("Session not found: " + sessionId));
+    }
+
+    /**
+     * Loads only the session row, with its number of choices counted at the version it was read at;
+     * its restaurant choices are left unloaded.
+     */
+    @Transactional(readOnly = true)
+    public SessionChoiceCount getSessionWithChoiceCount(String sessionId) {
+        return sessionRepository.findWithChoiceCount(sessionId)
+                .or(() -> archivedSessionRepository.findById(sessionId)
+                        .map(archive -> new SessionChoiceCount(archive.toLunchSession(), archive.getChoiceCount())))
                 .orElseThrow(() -> new IllegalArgumentException("Session not found: " + sessionId));
     }
+
+    /**
+     * Looks up only the version of a session, which changes with every submission and pick.
+     */
+    @Transactional(readOnly = true)
+    public Long getVersion(String sessionId) {
+        return sessionRepository.findVersionById(sessionId)
+                .or(() -> archivedSessionRepository.findVersionById(sessionId))
+                .orElseThrow(() -> new IllegalArgumentException("Session not found: " + sessionId));
+    }
+
+    /**
+     * Looks up only the status of a session, without loading its choices.
+     */
+    @Transactional(readOnly = true)
+    public SessionStatus getStatus(String sessionId) {
+        return sessionRepository.findStatusById(sessionId)
+                .or(() -> archivedSessionRepository.existsById(sessionId)
+                        ? Optional.of(SessionStatus.CLOSED) : Optional.empty())
+                .orElseThrow(() -> new IllegalArgumentException("Session not found: " + sessionId));
+    }
+
+    /**
+     * Lists sessions newest first, one keyset page at a time, without loading any choices.
+     * All filters are optional. Archived sessions are not listed.
+     */
+    @Timed(value = "lunch.session.list", histogram = true)
+    @Transactional(readOnly = true)
+    public SessionPageResponse listSessions(String createdBy, SessionStatus status, LocalDateTime since,
+                                            SessionCursor after, Integer limit) {
+        int pageSize = limit == null ? defaultPageLimit : Math.max(1, Math.min(limit, maxPageLimit));
+        // One extra row tells us whether another page follows
+        List<SessionSummaryView> rows = sessionRepository.findPage(createdBy, status, since,
+                after == null ? null : after.createdAt(), after == null ? null : after.id(), pageSize + 1);
+
+        boolean hasMore = rows.size() > pageSize;
+        List<SessionSummaryView> page = rows.subList(0, Math.min(pageSize, rows.size()));
+        return SessionPageResponse.builder()
+                .items(page.stream().map(SessionSummaryResponse::from).toList())
+                .nextAfter(hasMore ? SessionCursor.of(page.get(page.size() - 1)).encode() : null)
+                .build();
+    }
+
+    private Optional<LunchSession> findArchived(String sessionId) {
+        return archivedSessionRepository.findById(sessionId).map(ArchivedSession::toLunchSession);
+    }
 }
\ No newline at end of file
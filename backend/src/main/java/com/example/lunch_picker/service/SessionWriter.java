@@ -0,0 +1,30 @@
+package com.example.lunch_picker.service;
+
+import com.example.lunch_picker.dto.RestaurantSubmissionResult;
+import com.example.lunch_picker.dto.SubmitRestaurantRequest;
+import com.example.lunch_picker.model.RestaurantChoice;
+
+import java.util.List;
+
+/**
+ * The write operations on a session. Which implementation runs them is chosen by
+ * {@code app.execution.mode}: {@code direct} runs each request on its own thread against the
+ * database, {@code partitioned} funnels every write for a session through a single writer thread.
+ */
+public interface SessionWriter {
+
+    /**
+     * @see RestaurantService#submit(String, String, String)
+     */
+    RestaurantChoice submit(String sessionId, String restaurant, String user);
+
+    /**
+     * @see RestaurantService#submitAll(String, List)
+     */
+    List<RestaurantSubmissionResult> submitAll(String sessionId, List<SubmitRestaurantRequest> requests);
+
+    /**
+     * @see PickCoordinator#pick(String, String)
+     */
+    String pick(String sessionId, String user);
+}
@@ -0,0 +1,98 @@
+package com.example.lunch_picker.service;
+
+import com.example.lunch_picker.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * In-memory view of the pre-defined users, so authorization and user listing do not hit the database.
+ * <p>
+ * The user set only changes when the import job runs, so the directory is an immutable snapshot
+ * that is rebuilt and swapped in atomically after each successful import. Membership checks use an
+ * open-addressing hash table over the username strings themselves (no per-entry node objects),
+ * which keeps the footprint close to the strings alone for hundreds of thousands of users.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserDirectory {
+
+    private final UserRepository userRepository;
+
+    private volatile Snapshot snapshot = Snapshot.of(List.of());
+
+    public boolean contains(String username) {
+        return username != null && snapshot.contains(username);
+    }
+
+    /**
+     * All usernames in ascending order, as a read-only view of the current snapshot.
+     */
+    public List<String> usernames() {
+        return Collections.unmodifiableList(Arrays.asList(snapshot.sorted));
+    }
+
+    public int size() {
+        return snapshot.sorted.length;
+    }
+
+    /**
+     * Reloads the directory from the database and swaps it in.
+     */
+    @Transactional(readOnly = true)
+    public void refresh() {
+        snapshot = Snapshot.of(userRepository.findAllUsernames());
+        log.info("User directory refreshed with {} users", snapshot.sorted.length);
+    }
+
+    private static final class Snapshot {
+
+        private final String[] sorted;
+        private final String[] table;
+        private final int mask;
+
+        private Snapshot(String[] sorted, String[] table) {
+            this.sorted = sorted;
+            this.table = table;
+            this.mask = table.length - 1;
+        }
+
+        static Snapshot of(Collection<String> usernames) {
+            String[] sorted = usernames.stream().distinct().sorted().toArray(String[]::new);
+            // Power-of-two capacity at a load factor of at most 0.5 keeps probe sequences short
+            int capacity = Integer.highestOneBit(Math.max(2, sorted.length) * 2 - 1) << 1;
+            String[] table = new String[capacity];
+            for (String username : sorted) {
+                int slot = spread(username.hashCode()) & (capacity - 1);
+                while (table[slot] != null) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                table[slot] = username;
+            }
+            return new Snapshot(sorted, table);
+        }
+
+        boolean contains(String username) {
+            int slot = spread(username.hashCode()) & mask;
+            String candidate;
+            while ((candidate = table[slot]) != null) {
+                if (candidate.equals(username)) {
+                    return true;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return false;
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
@@ -1,29 +1,127 @@
 package com.example.lunch_picker;
 
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import ch.qos.logback.core.spi.FilterReply;
+import com.example.lunch_picker.batch.ImportThroughputListener;
+import com.example.lunch_picker.batch.LineRangeItemReader;
+import com.example.lunch_picker.batch.LineRangePartitioner;
+import com.example.lunch_picker.batch.RestaurantStatsRebuildScheduler;
+import com.example.lunch_picker.batch.SessionArchiveBatchConfig;
+import com.example.lunch_picker.batch.SessionArchiveScheduler;
+import com.example.lunch_picker.batch.UserBatchConfig;
+import com.example.lunch_picker.config.AotModeCheck;
+import com.example.lunch_picker.controller.GlobalExceptionHandler;
+import com.example.lunch_picker.dto.RestaurantSubmissionResult;
 import com.example.lunch_picker.dto.SubmitRestaurantRequest;
+import com.example.lunch_picker.engine.PartitionedSessionEngine;
+import com.example.lunch_picker.engine.SessionStateStore;
+import com.example.lunch_picker.event.RestaurantSubmittedEvent;
+import com.example.lunch_picker.event.SessionClosedEvent;
+import com.example.lunch_picker.eventlog.EventLogFormat;
+import com.example.lunch_picker.eventlog.EventLogRecorder;
+import com.example.lunch_picker.eventlog.EventLogSnapshotter;
+import com.example.lunch_picker.eventlog.EventLogWriter;
+import com.example.lunch_picker.eventlog.SessionLogState;
+import com.example.lunch_picker.logging.SessionTraceFilter;
+import com.example.lunch_picker.metrics.SessionMetrics;
 import com.example.lunch_picker.model.LunchSession;
+import com.example.lunch_picker.model.RestaurantChoice;
 import com.example.lunch_picker.model.SessionStatus;
 import com.example.lunch_picker.model.User;
+import com.example.lunch_picker.repository.ArchivedSessionRepository;
+import com.example.lunch_picker.repository.RestaurantRepository;
 import com.example.lunch_picker.repository.SessionRepository;
 import com.example.lunch_picker.repository.UserRepository;
+import com.example.lunch_picker.service.NearDuplicateDetector;
+import com.example.lunch_picker.service.NearDuplicateIndex;
+import com.example.lunch_picker.service.RestaurantService;
+import com.example.lunch_picker.service.RestaurantStatsCollector;
+import com.example.lunch_picker.service.RestaurantStatsService;
+import com.example.lunch_picker.service.SessionEventBroadcaster;
+import com.example.lunch_picker.service.SessionService;
+import com.example.lunch_picker.service.UserDirectory;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.Validator;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryBuilderCustomizer;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.json.JsonCompareMode;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.awaitility.Awaitility.await;
 import static org.hamcrest.Matchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@SpringBootTest
+// Exposes sessiontrace on the main port, as the trace profile does on its own management port
+@SpringBootTest(properties = "management.endpoints.web.exposure.include=health,info,metrics,prometheus,sessiontrace")
 @AutoConfigureMockMvc
+@AutoConfigureObservability
 class LunchPickerApplicationTests {
 
     @Autowired
@@ -38,14 +136,84 @@ class LunchPickerApplicationTests {
     @Autowired
     private SessionRepository sessionRepository;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Test
     void contextLoads() {
     }
 
+    /**
+     * Starts a second application next to the test context. Its logging system is turned off, since
+     * reconfiguring logback would drop the test context's log levels and session trace filter.
+     */
+    static ConfigurableApplicationContext startApplication(SpringApplicationBuilder application, String... args) {
+        System.setProperty(LoggingSystem.SYSTEM_PROPERTY, LoggingSystem.NONE);
+        try {
+            return application.run(args);
+        } finally {
+            System.clearProperty(LoggingSystem.SYSTEM_PROPERTY);
+        }
+    }
+
+    @Test
+    @DisplayName("A mode property or management port that does not match the beans built ahead of time is rejected")
+    void aotModeMismatchIsRejected(@Autowired ListableBeanFactory beanFactory) {
+        new AotModeCheck(beanFactory, new MockEnvironment()).verify();
+
+        MockEnvironment partitioned = new MockEnvironment().withProperty("app.execution.mode", "partitioned");
+        assertThatThrownBy(() -> new AotModeCheck(beanFactory, partitioned).verify())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("APP_EXECUTION_MODE=partitioned");
+
+        MockEnvironment trace = new MockEnvironment().withProperty("management.server.port", "8081");
+        trace.setActiveProfiles("trace");
+        assertThatThrownBy(() -> new AotModeCheck(beanFactory, trace).verify())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("AOT_PROFILES=trace");
+    }
+
     @Nested
     @DisplayName("User Loading (Spring Batch)")
     class UserBatchTests {
 
+        @Autowired
+        private JobExplorer jobExplorer;
+
+        @Autowired
+        private JobLauncher jobLauncher;
+
+        @Autowired
+        private Job loadUsersJob;
+
+        @Autowired
+        private UserDirectory userDirectory;
+
+        @TempDir
+        private Path directory;
+
+        @Test
+        @DisplayName("An unchanged users file is not imported again after a restart on a persistent database")
+        void unchangedFileIsSkippedAfterRestart() throws Exception {
+            String[] args = {
+                    "--spring.datasource.url=jdbc:h2:file:" + directory.resolve("lunchdb").toAbsolutePath(),
+                    "--app.users.import.skip-unchanged=true",
+                    "--app.stats.rebuild.on-startup=false",
+                    "--server.port=0"
+            };
+            try (ConfigurableApplicationContext first = startApplication(
+                    new SpringApplicationBuilder(LunchPickerApplication.class), args)) {
+                assertThat(first.getBean(JobExplorer.class).getJobInstanceCount("loadUsersJob")).isEqualTo(1);
+            }
+
+            try (ConfigurableApplicationContext restarted = startApplication(
+                    new SpringApplicationBuilder(LunchPickerApplication.class), args)) {
+                assertThat(restarted.getBean(JobExplorer.class).getJobInstanceCount("loadUsersJob")).isEqualTo(1);
+                assertThat(restarted.getBean(UserDirectory.class).usernames())
+                        .contains("alice", "bob", "charlie", "david", "eve");
+            }
+        }
+
         @Test
         @DisplayName("Pre-defined users are loaded from CSV on startup")
         void usersLoadedFromCsv() throws Exception {
@@ -55,6 +223,119 @@ class LunchPickerApplicationTests {
                     .andExpect(jsonPath("$[*].username",
                             hasItems("alice", "bob", "charlie", "david", "eve")));
         }
+
+        @Test
+        @DisplayName("Partitions split the file at line starts and cover every line exactly once")
+        void partitionsCoverEveryLine() throws Exception {
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < 37; i++) {
+                lines.add("user-" + "x".repeat(i % 7) + i + ",team");
+            }
+            Path file = directory.resolve("users.csv");
+            // CRLF endings and no newline after the last line
+            Files.writeString(file, "username,team\r\n" + String.join("\r\n", lines));
+            FileSystemResource resource = new FileSystemResource(file);
+
+            for (int gridSize : List.of(1, 2, 3, 5, 36, 37, 100)) {
+                Map<String, ExecutionContext> partitions = new LineRangePartitioner(resource, 1).partition(gridSize);
+                List<String> read = new ArrayList<>();
+                for (int i = 0; i < partitions.size(); i++) {
+                    ExecutionContext context = partitions.get("partition" + i);
+                    LineRangeItemReader<String> reader = new LineRangeItemReader<>(resource,
+                            context.getLong(LineRangePartitioner.START_OFFSET),
+                            context.getLong(LineRangePartitioner.END_OFFSET),
+                            (line, lineNumber) -> line);
+                    reader.setName("lineReader");
+                    reader.open(new ExecutionContext());
+                    String line;
+                    while ((line = reader.read()) != null) {
+                        read.add(line);
+                    }
+                    reader.close();
+                }
+                assertThat(partitions).hasSizeLessThanOrEqualTo(gridSize);
+                assertThat(read).as("grid size %d", gridSize).isEqualTo(lines);
+            }
+        }
+
+        @Test
+        @DisplayName("A file import writes only new users in delta mode and records its throughput")
+        void fileImportInDeltaMode() throws Exception {
+            List<String> newUsers = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                newUsers.add("imported-" + UUID.randomUUID());
+            }
+            Path file = directory.resolve("export.csv");
+            Files.writeString(file, "username\nalice\n" + String.join("\n", newUsers) + "\nbob\n");
+
+            JobExecution execution = jobLauncher.run(loadUsersJob, new JobParametersBuilder()
+                    .addString(UserBatchConfig.SOURCE, "file:" + file)
+                    .addLong("run.time", System.nanoTime())
+                    .toJobParameters());
+
+            assertThat(execution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+            List<StepExecution> partitions = execution.getStepExecutions().stream()
+                    .filter(step -> step.getStepName().startsWith("loadUsersPartitionStep"))
+                    .toList();
+            assertThat(partitions).hasSize(4);
+            assertThat(partitions.stream().mapToLong(StepExecution::getReadCount).sum()).isEqualTo(42);
+            assertThat(partitions.stream().mapToLong(StepExecution::getWriteCount).sum()).isEqualTo(40);
+            assertThat(partitions.stream().mapToLong(StepExecution::getFilterCount).sum()).isEqualTo(2);
+            for (StepExecution partition : partitions) {
+                assertThat(partition.getExecutionContext().containsKey(ImportThroughputListener.ELAPSED_MILLIS)).isTrue();
+                assertThat(partition.getExecutionContext().getDouble(ImportThroughputListener.ITEMS_PER_SECOND))
+                        .isNotNegative();
+            }
+            assertThat(newUsers).allMatch(userDirectory::contains);
+            assertThat(userRepository.findAllById(newUsers)).hasSize(40);
+        }
+    }
+
+    @Nested
+    @DisplayName("User Directory")
+    class UserDirectoryTests {
+
+        @Autowired
+        private UserDirectory userDirectory;
+
+        @Test
+        @DisplayName("Imported users are found and others are not")
+        void lookups() {
+            assertThat(userDirectory.contains("alice")).isTrue();
+            assertThat(userDirectory.contains("mallory")).isFalse();
+            assertThat(userDirectory.contains(null)).isFalse();
+        }
+
+        @Test
+        @DisplayName("Usernames are listed in ascending order and cannot be changed through the listing")
+        void listingIsSortedAndReadOnly() throws Exception {
+            List<String> usernames = userDirectory.usernames();
+
+            assertThat(usernames).isSorted().contains("alice", "bob", "charlie", "david", "eve");
+            assertThatThrownBy(() -> usernames.set(0, "zz-top"))
+                    .isInstanceOf(UnsupportedOperationException.class);
+            assertThat(userDirectory.contains(usernames.get(0))).isTrue();
+            mockMvc.perform(get("/api/users"))
+                    .andExpect(jsonPath("$[*].username", contains(usernames.toArray())));
+        }
+
+        @Test
+        @DisplayName("A refresh picks up users written since the last import")
+        void refreshPicksUpNewUsers() {
+            String username = "aaron-" + UUID.randomUUID();
+            userRepository.save(new User(username));
+            try {
+                assertThat(userDirectory.contains(username)).isFalse();
+
+                userDirectory.refresh();
+
+                assertThat(userDirectory.contains(username)).isTrue();
+                assertThat(userDirectory.usernames()).isSorted().contains(username);
+            } finally {
+                userRepository.deleteById(username);
+                userDirectory.refresh();
+            }
+        }
     }
 
     @Nested
@@ -100,10 +381,94 @@ class LunchPickerApplicationTests {
         }
     }
 
+    @Nested
+    @DisplayName("Conditional Session Reads")
+    class ConditionalReadTests {
+
+        private String sessionId;
+
+        @BeforeEach
+        void setup() throws Exception {
+            MvcResult result = mockMvc.perform(post("/api/sessions").param("user", "alice"))
+                    .andReturn();
+            sessionId = objectMapper.readTree(
+                    result.getResponse().getContentAsString()).get("id").asText();
+        }
+
+        @Test
+        @DisplayName("Unchanged session returns 304 for a matching If-None-Match")
+        void unchangedSessionNotModified() throws Exception {
+            String etag = mockMvc.perform(get("/api/sessions/" + sessionId))
+                    .andExpect(status().isOk())
+                    .andExpect(header().exists("ETag"))
+                    .andReturn().getResponse().getHeader("ETag");
+
+            mockMvc.perform(get("/api/sessions/" + sessionId).header("If-None-Match", etag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(content().string(""));
+        }
+
+        @Test
+        @DisplayName("A submission changes the ETag")
+        void submissionChangesEtag() throws Exception {
+            String etag = mockMvc.perform(get("/api/sessions/" + sessionId))
+                    .andReturn().getResponse().getHeader("ETag");
+
+            SubmitRestaurantRequest req = new SubmitRestaurantRequest();
+            req.setRestaurant("Jollibee");
+            req.setUser("alice");
+            mockMvc.perform(post("/api/sessions/" + sessionId + "/restaurants")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(req)));
+
+            mockMvc.perform(get("/api/sessions/" + sessionId).header("If-None-Match", etag))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", not(etag)))
+                    .andExpect(jsonPath("$.restaurants", hasSize(1)));
+        }
+
+        @Test
+        @DisplayName("Repeat reads are served from the response cache until the session changes")
+        void repeatReadsHitResponseCache() throws Exception {
+            double hitsBefore = responseCacheHits();
+            String first = mockMvc.perform(get("/api/sessions/" + sessionId))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            mockMvc.perform(get("/api/sessions/" + sessionId))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(content().string(first));
+            assertThat(responseCacheHits()).isEqualTo(hitsBefore + 1);
+
+            SubmitRestaurantRequest req = new SubmitRestaurantRequest();
+            req.setRestaurant("Satay Street");
+            req.setUser("alice");
+            mockMvc.perform(post("/api/sessions/" + sessionId + "/restaurants")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(req)));
+
+            mockMvc.perform(get("/api/sessions/" + sessionId))
+                    .andExpect(jsonPath("$.restaurants[0].restaurant").value("Satay Street"));
+            mockMvc.perform(get("/api/sessions/" + sessionId).param("view", "summary"))
+                    .andExpect(jsonPath("$.choiceCount").value(1))
+                    .andExpect(jsonPath("$.restaurants").doesNotExist());
+            assertThat(responseCacheHits()).isEqualTo(hitsBefore + 1);
+        }
+
+        private double responseCacheHits() {
+            return meterRegistry.get("cache.gets")
+                    .tags("cache", "session.responses", "result", "hit")
+                    .functionCounter().count();
+        }
+    }
+
     @Nested
     @DisplayName("Restaurant Submission")
     class RestaurantSubmissionTests {
 
+        @Autowired
+        private RestaurantService restaurantService;
+
         private String sessionId;
 
         @BeforeEach
@@ -129,6 +494,30 @@ class LunchPickerApplicationTests {
                     .andExpect(jsonPath("$.submittedBy").value("alice"));
         }
 
+        @Test
+        @DisplayName("An over-long name is invalid, and only unique violations are reported as conflicts")
+        void integrityErrorsAreNotConflicts() throws Exception {
+            SubmitRestaurantRequest req = new SubmitRestaurantRequest();
+            req.setRestaurant("x".repeat(256));
+            req.setUser("alice");
+
+            mockMvc.perform(post("/api/sessions/" + sessionId + "/restaurants")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(req)))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.message").value(containsString("at most 255")));
+
+            GlobalExceptionHandler handler = new GlobalExceptionHandler();
+            DataIntegrityViolationException unique = new DataIntegrityViolationException("unique",
+                    new ConstraintViolationException("unique", new SQLException(),
+                            ConstraintViolationException.ConstraintKind.UNIQUE, "UK_CHOICE"));
+            assertThat(handler.handleDuplicateKey(new DuplicateKeyException("duplicate")).getStatusCode())
+                    .isEqualTo(HttpStatus.CONFLICT);
+            assertThat(handler.handleConstraintViolation(unique).getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+            assertThat(handler.handleConstraintViolation(new DataIntegrityViolationException("too long"))
+                    .getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+
         @Test
         @DisplayName("Duplicate restaurant is rejected")
         void duplicateRestaurantRejected() throws Exception {
@@ -150,6 +539,26 @@ class LunchPickerApplicationTests {
                     .andExpect(status().isConflict());
         }
 
+        @Test
+        @DisplayName("Duplicate detection ignores case and extra whitespace")
+        void duplicateWithDifferentSpacingRejected() throws Exception {
+            SubmitRestaurantRequest req = new SubmitRestaurantRequest();
+            req.setRestaurant("Burger King");
+            req.setUser("alice");
+
+            mockMvc.perform(post("/api/sessions/" + sessionId + "/restaurants")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(req)))
+                    .andExpect(status().isCreated());
+
+            req.setRestaurant("  burger   KING ");
+            req.setUser("bob");
+            mockMvc.perform(post("/api/sessions/" + sessionId + "/restaurants")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(req)))
+                    .andExpect(status().isConflict());
+        }
+
         @Test
         @DisplayName("Empty restaurant name is rejected")
         void emptyRestaurantRejected() throws Exception {
@@ -163,6 +572,101 @@ class LunchPickerApplicationTests {
                     .andExpect(status().isBadRequest());
         }
 
+        @Test
+        @DisplayName("Submitting to a non-existent session returns 404")
+        void submitToUnknownSession() throws Exception {
+            SubmitRestaurantRequest req = new SubmitRestaurantRequest();
+            req.setRestaurant("Subway");
+            req.setUser("alice");
+
+            mockMvc.perform(post("/api/sessions/non-existent-id/restaurants")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(req)))
+                    .andExpect(status().isNotFound());
+        }
+
+        @Test
+        @DisplayName("A blank name for a non-existent session reports the missing session")
+        void blankNameToUnknownSession() {
+            assertThatThrownBy(() -> restaurantService.submit("non-existent-id", "   ", "alice"))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Session not found");
+        }
+
+        @Test
+        @DisplayName("Batch submission reports a result per item")
+        void batchSubmission() throws Exception {
+            SubmitRestaurantRequest existing = new SubmitRestaurantRequest();
+            existing.setRestaurant("Subway");
+            existing.setUser("alice");
+            mockMvc.perform(post("/api/sessions/" + sessionId + "/restaurants")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(existing)))
+                    .andExpect(status().isCreated());
+
+            List<SubmitRestaurantRequest> batch = new ArrayList<>();
+            for (String name : List.of("Sushi Tei", "sushi tei", " ", "SUBWAY", "Ramen Nagi")) {
+                SubmitRestaurantRequest req = new SubmitRestaurantRequest();
+                req.setRestaurant(name);
+                req.setUser("bot");
+                batch.add(req);
+            }
+
+            mockMvc.perform(post("/api/sessions/" + sessionId + "/restaurants:batch")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(batch)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].outcome",
+                            contains("CREATED", "DUPLICATE", "INVALID", "DUPLICATE", "CREATED")))
+                    .andExpect(jsonPath("$[0].choice.restaurant").value("Sushi Tei"))
+                    .andExpect(jsonPath("$[4].choice.id").isNumber());
+
+            mockMvc.perform(get("/api/sessions/" + sessionId))
+                    .andExpect(jsonPath("$.restaurants", hasSize(3)));
+        }
+
+        @Test
+        @DisplayName("A batch of only existing restaurants leaves the ETag unchanged")
+        void duplicateOnlyBatchKeepsEtag() throws Exception {
+            SubmitRestaurantRequest req = new SubmitRestaurantRequest();
+            req.setRestaurant("Hawker Chan");
+            req.setUser("alice");
+            mockMvc.perform(post("/api/sessions/" + sessionId + "/restaurants")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(req)))
+                    .andExpect(status().isCreated());
+            String etag = mockMvc.perform(get("/api/sessions/" + sessionId))
+                    .andReturn().getResponse().getHeader("ETag");
+
+            mockMvc.perform(post("/api/sessions/" + sessionId + "/restaurants:batch")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(List.of(req))))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].outcome").value("DUPLICATE"));
+
+            mockMvc.perform(get("/api/sessions/" + sessionId))
+                    .andExpect(header().string("ETag", etag));
+        }
+
+        @Test
+        @DisplayName("A batch larger than the configured maximum returns 400")
+        void oversizedBatchRejected() throws Exception {
+            List<SubmitRestaurantRequest> batch = new ArrayList<>();
+            for (int i = 0; i <= 500; i++) {
+                SubmitRestaurantRequest req = new SubmitRestaurantRequest();
+                req.setRestaurant("Stall " + i);
+                req.setUser("alice");
+                batch.add(req);
+            }
+
+            mockMvc.perform(post("/api/sessions/" + sessionId + "/restaurants:batch")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(batch)))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get("/api/sessions/" + sessionId))
+                    .andExpect(jsonPath("$.restaurants", hasSize(0)));
+        }
+
         @Test
         @DisplayName("Multiple users can submit different restaurants")
         void multipleUsersSubmit() throws Exception {
@@ -190,96 +694,1585 @@ class LunchPickerApplicationTests {
     }
 
     @Nested
-    @DisplayName("Random Pick")
-    class RandomPickTests {
+    @DisplayName("Session Listing")
+    class SessionListingTests {
 
-        private String sessionId;
+        private LocalDateTime since;
+        private final List<String> sessionIds = new ArrayList<>();
 
         @BeforeEach
         void setup() throws Exception {
-            MvcResult result = mockMvc.perform(post("/api/sessions").param("user", "alice"))
-                    .andReturn();
-            sessionId = objectMapper.readTree(
-                    result.getResponse().getContentAsString()).get("id").asText();
+            since = LocalDateTime.now().minusNanos(1_000);
+            for (String user : List.of("david", "david", "eve")) {
+                MvcResult result = mockMvc.perform(post("/api/sessions").param("user", user))
+                        .andReturn();
+                sessionIds.add(objectMapper.readTree(
+                        result.getResponse().getContentAsString()).get("id").asText());
+            }
 
-            SubmitRestaurantRequest req1 = new SubmitRestaurantRequest();
-            req1.setRestaurant("Restaurant A");
-            req1.setUser("alice");
-            mockMvc.perform(post("/api/sessions/" + sessionId + "/restaurants")
+            SubmitRestaurantRequest req = new SubmitRestaurantRequest();
+            req.setRestaurant("Closed Diner");
+            req.setUser("david");
+            mockMvc.perform(post("/api/sessions/" + sessionIds.get(0) + "/restaurants")
                     .contentType(MediaType.APPLICATION_JSON)
-                    .content(objectMapper.writeValueAsString(req1)));
+                    .content(objectMapper.writeValueAsString(req)));
+            mockMvc.perform(post("/api/sessions/" + sessionIds.get(0) + "/pick").param("user", "david"));
+        }
 
-            SubmitRestaurantRequest req2 = new SubmitRestaurantRequest();
-            req2.setRestaurant("Restaurant B");
-            req2.setUser("bob");
-            mockMvc.perform(post("/api/sessions/" + sessionId + "/restaurants")
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .content(objectMapper.writeValueAsString(req2)));
+        @Test
+        @DisplayName("Sessions are listed newest first and paged with an opaque cursor")
+        void keysetPagination() throws Exception {
+            MvcResult first = mockMvc.perform(get("/api/sessions")
+                            .param("since", since.toString())
+                            .param("limit", "2"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items[*].id", contains(sessionIds.get(2), sessionIds.get(1))))
+                    .andExpect(jsonPath("$.items[0].restaurants").doesNotExist())
+                    .andExpect(jsonPath("$.nextAfter").isString())
+                    .andReturn();
+            String nextAfter = objectMapper.readTree(
+                    first.getResponse().getContentAsString()).get("nextAfter").asText();
+
+            mockMvc.perform(get("/api/sessions")
+                            .param("since", since.toString())
+                            .param("after", nextAfter)
+                            .param("limit", "2"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items[*].id", contains(sessionIds.get(0))))
+                    .andExpect(jsonPath("$.nextAfter").doesNotExist());
         }
 
         @Test
-        @DisplayName("First submitter can pick a random restaurant")
-        void firstSubmitterCanPick() throws Exception {
-            mockMvc.perform(post("/api/sessions/" + sessionId + "/pick")
-                            .param("user", "alice"))
+        @DisplayName("Creator and status filters combine")
+        void filters() throws Exception {
+            mockMvc.perform(get("/api/sessions")
+                            .param("since", since.toString())
+                            .param("createdBy", "david")
+                            .param("status", "CLOSED"))
                     .andExpect(status().isOk())
-                    .andExpect(jsonPath("$.chosenRestaurant",
-                            anyOf(is("Restaurant A"), is("Restaurant B"))));
+                    .andExpect(jsonPath("$.items[*].id", contains(sessionIds.get(0))))
+                    .andExpect(jsonPath("$.items[0].chosenRestaurant").value("Closed Diner"));
+
+            mockMvc.perform(get("/api/sessions")
+                            .param("since", since.toString())
+                            .param("status", "OPEN"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items[*].id", contains(sessionIds.get(2), sessionIds.get(1))));
         }
 
         @Test
-        @DisplayName("Non-first submitter cannot pick")
-        void nonFirstSubmitterCannotPick() throws Exception {
-            mockMvc.perform(post("/api/sessions/" + sessionId + "/pick")
-                            .param("user", "bob"))
-                    .andExpect(status().isForbidden());
+        @DisplayName("A malformed cursor returns 400")
+        void malformedCursor() throws Exception {
+            mockMvc.perform(get("/api/sessions").param("after", "not-a-cursor"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Nested
+    @DisplayName("Near-Duplicate Detection")
+    class NearDuplicateTests {
+
+        private String sessionId;
+
+        @BeforeEach
+        void setup() throws Exception {
+            MvcResult result = mockMvc.perform(post("/api/sessions").param("user", "alice"))
+                    .andReturn();
+            sessionId = objectMapper.readTree(
+                    result.getResponse().getContentAsString()).get("id").asText();
         }
 
         @Test
-        @DisplayName("Session is closed after pick, no more submissions allowed")
-        void sessionClosedAfterPick() throws Exception {
-            mockMvc.perform(post("/api/sessions/" + sessionId + "/pick")
-                    .param("user", "alice"));
+        @DisplayName("Names spelled differently but meaning the same place are rejected")
+        void nearDuplicatesRejected() throws Exception {
+            submit("McDonald's").andExpect(status().isCreated());
 
-            SubmitRestaurantRequest req = new SubmitRestaurantRequest();
-            req.setRestaurant("Restaurant C");
-            req.setUser("charlie");
+            submit("McDonalds")
+                    .andExpect(status().isConflict())
+                    .andExpect(jsonPath("$.message").value(RestaurantService.similarMessage("McDonald's")));
+            submit("mc donalds").andExpect(status().isConflict());
+            submit("McDonald’s Café").andExpect(status().isCreated());
+        }
 
-            mockMvc.perform(post("/api/sessions/" + sessionId + "/restaurants")
-                            .contentType(MediaType.APPLICATION_JSON)
-                            .content(objectMapper.writeValueAsString(req)))
-                    .andExpect(status().isConflict());
+        @Test
+        @DisplayName("Names that differ in a letter at the end or in their digits are kept apart")
+        void distinctNamesAccepted() throws Exception {
+            submit("Restaurant A").andExpect(status().isCreated());
+            submit("Restaurant B").andExpect(status().isCreated());
+            submit("Pho 24").andExpect(status().isCreated());
+            submit("Pho 42").andExpect(status().isCreated());
         }
 
         @Test
-        @DisplayName("Picking on empty session fails")
-        void pickOnEmptySessionFails() throws Exception {
-            MvcResult result = mockMvc.perform(post("/api/sessions").param("user", "charlie"))
-                    .andReturn();
-            String emptySessionId = objectMapper.readTree(
-                    result.getResponse().getContentAsString()).get("id").asText();
+        @DisplayName("Batch items are checked against the session and each other")
+        void nearDuplicatesInBatch() throws Exception {
+            submit("Burger King").andExpect(status().isCreated());
 
-            mockMvc.perform(post("/api/sessions/" + emptySessionId + "/pick")
-                            .param("user", "charlie"))
-                    .andExpect(status().isConflict());
+            List<SubmitRestaurantRequest> batch = new ArrayList<>();
+            for (String name : List.of("Burger-King", "Nando's", "Nandos", "Toast Box")) {
+                SubmitRestaurantRequest req = new SubmitRestaurantRequest();
+                req.setRestaurant(name);
+                req.setUser("bob");
+                batch.add(req);
+            }
+            mockMvc.perform(post("/api/sessions/" + sessionId + "/restaurants:batch")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(batch)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].outcome", contains("DUPLICATE", "CREATED", "DUPLICATE", "CREATED")));
         }
 
         @Test
-        @DisplayName("Pick on already-closed session returns same result")
-        void pickOnClosedSessionReturnsSameResult() throws Exception {
-            MvcResult firstPick = mockMvc.perform(post("/api/sessions/" + sessionId + "/pick")
-                            .param("user", "alice"))
-                    .andReturn();
-            String firstChoice = objectMapper.readTree(
-                    firstPick.getResponse().getContentAsString()).get("chosenRestaurant").asText();
+        @DisplayName("The index finds near-duplicates among thousands of similar names")
+        void indexScalesToLargeSessions() {
+            NearDuplicateIndex index = new NearDuplicateIndex(0.85);
+            for (int i = 0; i < 5000; i++) {
+                index.add("Restaurant " + i);
+            }
+            index.add("Din Tai Fung");
 
-            MvcResult secondPick = mockMvc.perform(post("/api/sessions/" + sessionId + "/pick")
-                            .param("user", "alice"))
-                    .andReturn();
-            String secondChoice = objectMapper.readTree(
-                    secondPick.getResponse().getContentAsString()).get("chosenRestaurant").asText();
+            assertThat(index.findSimilar("Restaurant #4711")).isEqualTo("Restaurant 4711");
+            assertThat(index.findSimilar("Restaurant 5000")).isNull();
+            assertThat(index.findSimilar("DinTaiFung")).isEqualTo("Din Tai Fung");
+            assertThat(index.findSimilar("Din Tai Fung")).isNull();
 
-            assert firstChoice.equals(secondChoice);
+            index.remove("Din Tai Fung");
+            assertThat(index.findSimilar("DinTaiFung")).isNull();
+        }
+
+        private ResultActions submit(String restaurant) throws Exception {
+            SubmitRestaurantRequest req = new SubmitRestaurantRequest();
+            req.setRestaurant(restaurant);
+            req.setUser("alice");
+            return mockMvc.perform(post("/api/sessions/" + sessionId + "/restaurants")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(req)));
+        }
+    }
+
+    @Nested
+    @DisplayName("Restaurant Listing")
+    class RestaurantListingTests {
+
+        private String sessionId;
+
+        @BeforeEach
+        void setup() throws Exception {
+            MvcResult result = mockMvc.perform(post("/api/sessions").param("user", "alice"))
+                    .andReturn();
+            sessionId = objectMapper.readTree(
+                    result.getResponse().getContentAsString()).get("id").asText();
+
+            for (String name : List.of("Alpha", "Bravo", "Charlie")) {
+                SubmitRestaurantRequest req = new SubmitRestaurantRequest();
+                req.setRestaurant(name);
+                req.setUser("alice");
+                mockMvc.perform(post("/api/sessions/" + sessionId + "/restaurants")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)));
+            }
+        }
+
+        @Test
+        @DisplayName("Choices can be paged through with a keyset cursor")
+        void keysetPagination() throws Exception {
+            MvcResult first = mockMvc.perform(get("/api/sessions/" + sessionId + "/restaurants")
+                            .param("limit", "2"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items[*].restaurant", contains("Alpha", "Bravo")))
+                    .andExpect(jsonPath("$.nextAfter").isNumber())
+                    .andReturn();
+            long nextAfter = objectMapper.readTree(
+                    first.getResponse().getContentAsString()).get("nextAfter").asLong();
+
+            mockMvc.perform(get("/api/sessions/" + sessionId + "/restaurants")
+                            .param("after", String.valueOf(nextAfter))
+                            .param("limit", "2"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items[*].restaurant", contains("Charlie")))
+                    .andExpect(jsonPath("$.nextAfter").doesNotExist());
+        }
+
+        @Test
+        @DisplayName("Summary view carries the choice count without the choices")
+        void summaryView() throws Exception {
+            mockMvc.perform(get("/api/sessions/" + sessionId).param("view", "summary"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.choiceCount").value(3))
+                    .andExpect(jsonPath("$.restaurants").doesNotExist());
+        }
+
+        @Test
+        @DisplayName("Summary choice count always matches the version it is tagged with")
+        void summaryCountMatchesVersion() throws Exception {
+            ExecutorService pool = Executors.newSingleThreadExecutor();
+            try {
+                Future<?> submits = pool.submit(() -> {
+                    for (String name : List.of("Laksa", "Burgers", "Dim Sum", "Tacos", "Pho", "Biryani")) {
+                        SubmitRestaurantRequest req = new SubmitRestaurantRequest();
+                        req.setRestaurant(name);
+                        req.setUser("bob");
+                        mockMvc.perform(post("/api/sessions/" + sessionId + "/restaurants")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(req)));
+                    }
+                    return null;
+                });
+                do {
+                    MvcResult result = mockMvc.perform(get("/api/sessions/" + sessionId).param("view", "summary"))
+                            .andExpect(status().isOk())
+                            .andReturn();
+                    // Every submit bumps the version once, so the count must equal the tagged version
+                    assertThat(result.getResponse().getHeaders("ETag")).hasSize(1);
+                    long version = Long.parseLong(result.getResponse().getHeader("ETag").replace("\"", ""));
+                    assertThat(objectMapper.readTree(result.getResponse().getContentAsString())
+                            .get("choiceCount").asLong()).isEqualTo(version);
+                } while (!submits.isDone());
+                submits.get(30, TimeUnit.SECONDS);
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
+        @Test
+        @DisplayName("Listing a non-existent session returns 404")
+        void listingUnknownSession() throws Exception {
+            mockMvc.perform(get("/api/sessions/non-existent-id/restaurants"))
+                    .andExpect(status().isNotFound());
+        }
+    }
+
+    @Nested
+    @DisplayName("Restaurant Analytics")
+    class RestaurantStatsTests {
+
+        @Autowired
+        private RestaurantStatsCollector statsCollector;
+
+        @Autowired
+        private RestaurantStatsRebuildScheduler rebuildScheduler;
+
+        @Autowired
+        private RestaurantStatsService statsService;
+
+        private String noodles;
+        private String tacos;
+
+        @BeforeEach
+        void setup() throws Exception {
+            String suffix = UUID.randomUUID().toString().substring(0, 8);
+            noodles = "Stats Noodles " + suffix;
+            tacos = "Stats Tacos " + suffix;
+
+            // One session picks the noodles; another submits them again (differently spelled) with tacos
+            String picked = createSession("charlie");
+            submit(picked, noodles, "charlie");
+            mockMvc.perform(post("/api/sessions/" + picked + "/pick").param("user", "charlie"))
+                    .andExpect(status().isOk());
+
+            String open = createSession("charlie");
+            submit(open, "  " + noodles.toUpperCase() + " ", "bob");
+            submit(open, tacos, "charlie");
+        }
+
+        @Test
+        @DisplayName("Submissions and picks are counted per team once flushed")
+        void countsAreFlushedToSummary() throws Exception {
+            statsCollector.flush();
+
+            mockMvc.perform(get("/api/restaurants/top").param("team", "charlie").param("limit", "100"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[?(@.restaurant == '" + noodles + "')].submissions", contains(2)))
+                    .andExpect(jsonPath("$[?(@.restaurant == '" + noodles + "')].picks", contains(1)))
+                    .andExpect(jsonPath("$[?(@.restaurant == '" + noodles + "')].winRate", contains(0.5)))
+                    .andExpect(jsonPath("$[?(@.restaurant == '" + tacos + "')].picks", contains(0)));
+
+            mockMvc.perform(get("/api/restaurants/top").param("team", "eve"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[?(@.restaurant == '" + noodles + "')]", empty()));
+        }
+
+        @Test
+        @DisplayName("Rebuilding from history gives the same totals")
+        void rebuildMatchesIncrementalCounts() throws Exception {
+            assertThat(rebuildScheduler.rebuild().getStatus()).isEqualTo(BatchStatus.COMPLETED);
+
+            mockMvc.perform(get("/api/restaurants/top").param("team", "charlie").param("limit", "100"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[?(@.restaurant == '" + noodles + "')].submissions", contains(2)))
+                    .andExpect(jsonPath("$[?(@.restaurant == '" + noodles + "')].picks", contains(1)))
+                    .andExpect(jsonPath("$[?(@.restaurant == '" + tacos + "')].submissions", contains(1)));
+        }
+
+        @Test
+        @DisplayName("A rebuild counts each change once and serves the old summary until it swaps")
+        void rebuildCountsEachChangeOnce() throws Exception {
+            statsCollector.flush();
+            statsCollector.pause();
+            try {
+                // Counted before the scan, which sees it too, so the live count is set aside
+                submit(createSession("charlie"), noodles, "charlie");
+                List<String> teams = statsService.findTeams();
+                RestaurantStatsCollector.Watermark watermark = statsCollector.hold(teams);
+                // Committed after the hold but before the scan: above the watermark, so only the live count has it
+                String between = createSession("charlie");
+                submit(between, noodles, "charlie");
+                mockMvc.perform(post("/api/sessions/" + between + "/pick").param("user", "charlie"))
+                        .andExpect(status().isOk());
+                statsService.clearStaging();
+                statsService.rebuildTeams(teams, watermark);
+                // Committed after the scan, so only the live count has it
+                submit(createSession("charlie"), noodles, "charlie");
+
+                mockMvc.perform(get("/api/restaurants/top").param("team", "charlie").param("limit", "100"))
+                        .andExpect(jsonPath("$[?(@.restaurant == '" + noodles + "')].submissions", contains(2)));
+                statsService.publishStaging();
+            } finally {
+                statsCollector.resume(true);
+            }
+            statsCollector.flush();
+
+            mockMvc.perform(get("/api/restaurants/top").param("team", "charlie").param("limit", "100"))
+                    .andExpect(jsonPath("$[?(@.restaurant == '" + noodles + "')].submissions", contains(5)))
+                    .andExpect(jsonPath("$[?(@.restaurant == '" + noodles + "')].picks", contains(2)));
+        }
+
+        @Test
+        @DisplayName("Counts set aside for a rebuild that fails are flushed after all")
+        void failedRebuildKeepsCounts() throws Exception {
+            statsCollector.flush();
+            statsCollector.pause();
+            try {
+                submit(createSession("charlie"), noodles, "charlie");
+                statsCollector.hold(List.of("charlie"));
+            } finally {
+                statsCollector.resume(false);
+            }
+            statsCollector.flush();
+
+            mockMvc.perform(get("/api/restaurants/top").param("team", "charlie").param("limit", "100"))
+                    .andExpect(jsonPath("$[?(@.restaurant == '" + noodles + "')].submissions", contains(3)));
+        }
+
+        private String createSession(String user) throws Exception {
+            MvcResult result = mockMvc.perform(post("/api/sessions").param("user", user))
+                    .andReturn();
+            return objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asText();
+        }
+
+        private void submit(String sessionId, String restaurant, String user) throws Exception {
+            SubmitRestaurantRequest req = new SubmitRestaurantRequest();
+            req.setRestaurant(restaurant);
+            req.setUser(user);
+            mockMvc.perform(post("/api/sessions/" + sessionId + "/restaurants")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(req)))
+                    .andExpect(status().isCreated());
+        }
+    }
+
+    @Nested
+    @DisplayName("Restaurant Suggestions")
+    class SuggestTests {
+
+        @Autowired
+        private RestaurantStatsRebuildScheduler rebuildScheduler;
+
+        @Autowired
+        private RestaurantStatsCollector statsCollector;
+
+        @Autowired
+        private RestaurantStatsService statsService;
+
+        @Autowired
+        private JobExecutionListener restaurantStatsFlushPauser;
+
+        private String prefix;
+        private String ramen;
+        private String rice;
+
+        @BeforeEach
+        void setup() throws Exception {
+            prefix = "Suggest " + UUID.randomUUID().toString().substring(0, 8);
+            ramen = prefix + " Ramen";
+            rice = prefix + " Rice";
+
+            // Separate sessions, so the names are counted across sessions rather than rejected as duplicates
+            submit(createSession("david"), ramen);
+            submit(createSession("david"), ramen);
+            submit(createSession("eve"), rice);
+        }
+
+        @Test
+        @DisplayName("Names starting with the prefix are ranked by submissions")
+        void ranksByFrequency() throws Exception {
+            mockMvc.perform(get("/api/restaurants/suggest").param("prefix", "  " + prefix.toLowerCase().replace(" ", "   ")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].restaurant", contains(ramen, rice)))
+                    .andExpect(jsonPath("$[*].submissions", contains(2, 1)));
+
+            mockMvc.perform(get("/api/restaurants/suggest").param("prefix", prefix + " ri"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].restaurant", contains(rice)));
+
+            mockMvc.perform(get("/api/restaurants/suggest").param("prefix", prefix).param("limit", "1"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].restaurant", contains(ramen)));
+
+            mockMvc.perform(get("/api/restaurants/suggest").param("prefix", prefix + "x"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", empty()));
+        }
+
+        @Test
+        @DisplayName("Names submitted while a rebuild runs are kept by the reload after it")
+        void reloadKeepsSubmissionsDuringRebuild() throws Exception {
+            String late = prefix + " Laksa";
+            List<String> teams = statsService.findTeams();
+            restaurantStatsFlushPauser.beforeJob(new JobExecution(0L));
+            RestaurantStatsCollector.Watermark watermark = statsCollector.hold(teams);
+            statsService.clearStaging();
+            statsService.rebuildTeams(teams, watermark);
+            // After the scan, so only the live counts have it
+            submit(createSession("david"), late);
+            statsService.publishStaging();
+            JobExecution finished = new JobExecution(0L);
+            finished.setStatus(BatchStatus.COMPLETED);
+            restaurantStatsFlushPauser.afterJob(finished);
+
+            mockMvc.perform(get("/api/restaurants/suggest").param("prefix", prefix))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].restaurant", hasItem(late)));
+        }
+
+        @Test
+        @DisplayName("Suggestions are reloaded from history after a stats rebuild")
+        void reloadedAfterRebuild() throws Exception {
+            assertThat(rebuildScheduler.rebuild().getStatus()).isEqualTo(BatchStatus.COMPLETED);
+
+            mockMvc.perform(get("/api/restaurants/suggest").param("prefix", prefix))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].restaurant", contains(ramen, rice)))
+                    .andExpect(jsonPath("$[*].submissions", contains(2, 1)));
+        }
+
+        private String createSession(String user) throws Exception {
+            MvcResult result = mockMvc.perform(post("/api/sessions").param("user", user))
+                    .andReturn();
+            return objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asText();
+        }
+
+        private void submit(String sessionId, String restaurant) throws Exception {
+            SubmitRestaurantRequest req = new SubmitRestaurantRequest();
+            req.setRestaurant(restaurant);
+            req.setUser("frank");
+            mockMvc.perform(post("/api/sessions/" + sessionId + "/restaurants")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(req)))
+                    .andExpect(status().isCreated());
+        }
+    }
+
+    @Nested
+    @DisplayName("Random Pick")
+    class RandomPickTests {
+
+        @Autowired
+        private RestaurantRepository restaurantRepository;
+
+        @Autowired
+        private TransactionTemplate transactionTemplate;
+
+        private String sessionId;
+
+        @BeforeEach
+        void setup() throws Exception {
+            MvcResult result = mockMvc.perform(post("/api/sessions").param("user", "alice"))
+                    .andReturn();
+            sessionId = objectMapper.readTree(
+                    result.getResponse().getContentAsString()).get("id").asText();
+
+            SubmitRestaurantRequest req1 = new SubmitRestaurantRequest();
+            req1.setRestaurant("Restaurant A");
+            req1.setUser("alice");
+            mockMvc.perform(post("/api/sessions/" + sessionId + "/restaurants")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(req1)));
+
+            SubmitRestaurantRequest req2 = new SubmitRestaurantRequest();
+            req2.setRestaurant("Restaurant B");
+            req2.setUser("bob");
+            mockMvc.perform(post("/api/sessions/" + sessionId + "/restaurants")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(req2)));
+        }
+
+        @Test
+        @DisplayName("First submitter can pick a random restaurant")
+        void firstSubmitterCanPick() throws Exception {
+            mockMvc.perform(post("/api/sessions/" + sessionId + "/pick")
+                            .param("user", "alice"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.chosenRestaurant",
+                            anyOf(is("Restaurant A"), is("Restaurant B"))));
+        }
+
+        @Test
+        @DisplayName("Non-first submitter cannot pick")
+        void nonFirstSubmitterCannotPick() throws Exception {
+            mockMvc.perform(post("/api/sessions/" + sessionId + "/pick")
+                            .param("user", "bob"))
+                    .andExpect(status().isForbidden());
+        }
+
+        @Test
+        @DisplayName("The first submitter is stored on the session")
+        void firstSubmitterIsStored() {
+            assertThat(sessionRepository.findById(sessionId).orElseThrow().getFirstSubmitter()).isEqualTo("alice");
+        }
+
+        @Test
+        @DisplayName("A pick always returns one of the session's choices")
+        void pickReturnsAChoice() throws Exception {
+            List<String> names = List.of("Laksa", "Burgers", "Dim Sum", "Tacos", "Pho", "Biryani");
+            for (int round = 0; round < 5; round++) {
+                String id = createSession("bob");
+                Set<String> submitted = new HashSet<>();
+                for (String restaurant : names) {
+                    submit(id, restaurant, "bob");
+                    submitted.add(restaurant);
+                }
+
+                MvcResult pick = mockMvc.perform(post("/api/sessions/" + id + "/pick").param("user", "bob"))
+                        .andExpect(status().isOk())
+                        .andReturn();
+                assertThat(objectMapper.readTree(pick.getResponse().getContentAsString())
+                        .get("chosenRestaurant").asText()).isIn(submitted);
+            }
+        }
+
+        @Test
+        @DisplayName("Choices from before the first submitter was stored keep the earliest submitter first")
+        void legacyChoicesKeepEarliestSubmitter() throws Exception {
+            String id = createSession("charlie");
+            // Written without recording first_submitter, as choices from before the column existed
+            transactionTemplate.executeWithoutResult(status -> restaurantRepository.insertAll(id, List.of(
+                    RestaurantChoice.builder().restaurant("Legacy Noodles").submittedBy("david").build(),
+                    RestaurantChoice.builder().restaurant("Legacy Rice").submittedBy("eve").build())));
+            assertThat(sessionRepository.findById(id).orElseThrow().getFirstSubmitter()).isNull();
+
+            submit(id, "Newer Curry", "charlie");
+
+            mockMvc.perform(post("/api/sessions/" + id + "/pick").param("user", "charlie"))
+                    .andExpect(status().isForbidden());
+            mockMvc.perform(post("/api/sessions/" + id + "/pick").param("user", "david"))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @DisplayName("Simultaneous picks racing with submissions all get the same restaurant")
+        void concurrentPicksShareOneResult() throws Exception {
+            ExecutorService pool = Executors.newFixedThreadPool(8);
+            try {
+                List<Future<MvcResult>> picks = new ArrayList<>();
+                for (int i = 0; i < 8; i++) {
+                    String late = "Late " + i;
+                    pool.submit(() -> {
+                        SubmitRestaurantRequest req = new SubmitRestaurantRequest();
+                        req.setRestaurant(late);
+                        req.setUser("carol");
+                        return mockMvc.perform(post("/api/sessions/" + sessionId + "/restaurants")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(req))).andReturn();
+                    });
+                    picks.add(pool.submit(() -> mockMvc.perform(post("/api/sessions/" + sessionId + "/pick")
+                            .param("user", "alice")).andReturn()));
+                }
+
+                Set<String> chosen = new HashSet<>();
+                for (Future<MvcResult> pick : picks) {
+                    MvcResult result = pick.get(30, TimeUnit.SECONDS);
+                    assertThat(result.getResponse().getStatus()).isEqualTo(200);
+                    chosen.add(objectMapper.readTree(result.getResponse().getContentAsString())
+                            .get("chosenRestaurant").asText());
+                }
+                assertThat(chosen).hasSize(1);
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
+        @Test
+        @DisplayName("Session is closed after pick, no more submissions allowed")
+        void sessionClosedAfterPick() throws Exception {
+            mockMvc.perform(post("/api/sessions/" + sessionId + "/pick")
+                    .param("user", "alice"));
+
+            SubmitRestaurantRequest req = new SubmitRestaurantRequest();
+            req.setRestaurant("Restaurant C");
+            req.setUser("charlie");
+
+            mockMvc.perform(post("/api/sessions/" + sessionId + "/restaurants")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(req)))
+                    .andExpect(status().isConflict());
+        }
+
+        @Test
+        @DisplayName("Picking on empty session fails")
+        void pickOnEmptySessionFails() throws Exception {
+            MvcResult result = mockMvc.perform(post("/api/sessions").param("user", "charlie"))
+                    .andReturn();
+            String emptySessionId = objectMapper.readTree(
+                    result.getResponse().getContentAsString()).get("id").asText();
+
+            mockMvc.perform(post("/api/sessions/" + emptySessionId + "/pick")
+                            .param("user", "charlie"))
+                    .andExpect(status().isConflict());
+        }
+
+        @Test
+        @DisplayName("Pick on already-closed session returns same result")
+        void pickOnClosedSessionReturnsSameResult() throws Exception {
+            MvcResult firstPick = mockMvc.perform(post("/api/sessions/" + sessionId + "/pick")
+                            .param("user", "alice"))
+                    .andReturn();
+            String firstChoice = objectMapper.readTree(
+                    firstPick.getResponse().getContentAsString()).get("chosenRestaurant").asText();
+
+            MvcResult secondPick = mockMvc.perform(post("/api/sessions/" + sessionId + "/pick")
+                            .param("user", "alice"))
+                    .andReturn();
+            String secondChoice = objectMapper.readTree(
+                    secondPick.getResponse().getContentAsString()).get("chosenRestaurant").asText();
+
+            assert firstChoice.equals(secondChoice);
+        }
+
+        private String createSession(String user) throws Exception {
+            MvcResult result = mockMvc.perform(post("/api/sessions").param("user", user))
+                    .andReturn();
+            return objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asText();
+        }
+
+        private void submit(String id, String restaurant, String user) throws Exception {
+            SubmitRestaurantRequest req = new SubmitRestaurantRequest();
+            req.setRestaurant(restaurant);
+            req.setUser(user);
+            mockMvc.perform(post("/api/sessions/" + id + "/restaurants")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(req)))
+                    .andExpect(status().isCreated());
+        }
+    }
+
+    @Nested
+    @DisplayName("Idempotent Retries")
+    class IdempotencyTests {
+
+        private String sessionId;
+
+        @BeforeEach
+        void setup() throws Exception {
+            MvcResult result = mockMvc.perform(post("/api/sessions").param("user", "alice"))
+                    .andReturn();
+            sessionId = objectMapper.readTree(
+                    result.getResponse().getContentAsString()).get("id").asText();
+        }
+
+        private String submission(String restaurant, String user) throws Exception {
+            SubmitRestaurantRequest req = new SubmitRestaurantRequest();
+            req.setRestaurant(restaurant);
+            req.setUser(user);
+            return objectMapper.writeValueAsString(req);
+        }
+
+        @Test
+        @DisplayName("A retried submit with the same key replays the original response")
+        void retriedSubmitReplaysResponse() throws Exception {
+            String first = mockMvc.perform(post("/api/sessions/" + sessionId + "/restaurants")
+                            .header("Idempotency-Key", "submit-1")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(submission("Dim Sum", "alice")))
+                    .andExpect(status().isCreated())
+                    .andReturn().getResponse().getContentAsString();
+
+            mockMvc.perform(post("/api/sessions/" + sessionId + "/restaurants")
+                            .header("Idempotency-Key", "submit-1")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(submission("Dim Sum", "alice")))
+                    .andExpect(status().isCreated())
+                    .andExpect(content().json(first, JsonCompareMode.STRICT));
+
+            // Without the key the same request is a genuine duplicate
+            mockMvc.perform(post("/api/sessions/" + sessionId + "/restaurants")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(submission("Dim Sum", "alice")))
+                    .andExpect(status().isConflict());
+        }
+
+        @Test
+        @DisplayName("Reusing a key for a different submission is rejected")
+        void reusedKeyForDifferentRequestIsRejected() throws Exception {
+            mockMvc.perform(post("/api/sessions/" + sessionId + "/restaurants")
+                            .header("Idempotency-Key", "submit-2")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(submission("Tapas", "alice")))
+                    .andExpect(status().isCreated());
+
+            mockMvc.perform(post("/api/sessions/" + sessionId + "/restaurants")
+                            .header("Idempotency-Key", "submit-2")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(submission("Burgers", "alice")))
+                    .andExpect(status().isConflict())
+                    .andExpect(jsonPath("$.message", containsString("Idempotency-Key")));
+        }
+
+        @Test
+        @DisplayName("A retried pick with the same key returns the original choice")
+        void retriedPickReplaysResponse() throws Exception {
+            mockMvc.perform(post("/api/sessions/" + sessionId + "/restaurants")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(submission("Falafel", "alice")));
+
+            String first = mockMvc.perform(post("/api/sessions/" + sessionId + "/pick")
+                            .param("user", "alice")
+                            .header("Idempotency-Key", "pick-1"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+
+            mockMvc.perform(post("/api/sessions/" + sessionId + "/pick")
+                            .param("user", "alice")
+                            .header("Idempotency-Key", "pick-1"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().json(first, JsonCompareMode.STRICT));
+        }
+    }
+
+    @Nested
+    @DisplayName("Live Session Events")
+    class SessionEventTests {
+
+        @Autowired
+        private SessionEventBroadcaster eventBroadcaster;
+
+        @Test
+        @DisplayName("Subscribers receive new choices and the final pick")
+        void streamsChoicesAndPick() throws Exception {
+            MvcResult created = mockMvc.perform(post("/api/sessions").param("user", "alice"))
+                    .andReturn();
+            String sessionId = objectMapper.readTree(
+                    created.getResponse().getContentAsString()).get("id").asText();
+
+            MvcResult stream = mockMvc.perform(get("/api/sessions/" + sessionId + "/events"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            SubmitRestaurantRequest req = new SubmitRestaurantRequest();
+            req.setRestaurant("Din Tai Fung");
+            req.setUser("alice");
+            mockMvc.perform(post("/api/sessions/" + sessionId + "/restaurants")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(req)))
+                    .andExpect(status().isCreated());
+            mockMvc.perform(post("/api/sessions/" + sessionId + "/pick").param("user", "alice"))
+                    .andExpect(status().isOk());
+
+            await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+                String body = stream.getResponse().getContentAsString();
+                assertThat(body).contains("event:choice-added", "Din Tai Fung", "event:session-closed");
+            });
+        }
+
+        @Test
+        @DisplayName("Subscribing to a closed session reports the pick and ends the stream")
+        void closedSessionStream() throws Exception {
+            MvcResult created = mockMvc.perform(post("/api/sessions").param("user", "bob"))
+                    .andReturn();
+            String sessionId = objectMapper.readTree(
+                    created.getResponse().getContentAsString()).get("id").asText();
+
+            SubmitRestaurantRequest req = new SubmitRestaurantRequest();
+            req.setRestaurant("Toast Box");
+            req.setUser("bob");
+            mockMvc.perform(post("/api/sessions/" + sessionId + "/restaurants")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(req)));
+            mockMvc.perform(post("/api/sessions/" + sessionId + "/pick").param("user", "bob"));
+
+            MvcResult stream = mockMvc.perform(get("/api/sessions/" + sessionId + "/events"))
+                    .andReturn();
+            assertThat(stream.getResponse().getContentAsString())
+                    .contains("event:session-closed", "Toast Box");
+        }
+
+        @Test
+        @DisplayName("A stream that subscribed just after the pick still gets the close and ends")
+        void closeBeforeSubscriptionEndsStream() throws Exception {
+            MvcResult created = mockMvc.perform(post("/api/sessions").param("user", "alice"))
+                    .andReturn();
+            String sessionId = objectMapper.readTree(
+                    created.getResponse().getContentAsString()).get("id").asText();
+
+            // Registered after the pick's broadcast, as when the pick commits between the status check and subscribe
+            SseEmitter emitter = eventBroadcaster.subscribe(sessionId);
+            eventBroadcaster.sessionClosed(sessionId, emitter, "Ya Kun");
+
+            await().atMost(Duration.ofSeconds(5))
+                    .untilAsserted(() -> assertThat(eventBroadcaster.subscriberCount(sessionId)).isZero());
+        }
+
+        @Test
+        @DisplayName("Subscribing to a non-existent session returns 404")
+        void unknownSessionStream() throws Exception {
+            mockMvc.perform(get("/api/sessions/non-existent-id/events"))
+                    .andExpect(status().isNotFound());
+        }
+
+        @Test
+        @DisplayName("A close queued while a drain is running is still sent before the stream ends")
+        void closeDuringDrainIsSent() {
+            // The close lands while the dispatcher is still draining the choice; repeat to hit the window
+            for (int i = 0; i < 1000; i++) {
+                String sessionId = "drain-race-" + i;
+                RecordingEmitter emitter = new RecordingEmitter();
+                eventBroadcaster.subscribe(sessionId, emitter);
+
+                eventBroadcaster.onRestaurantSubmitted(
+                        new RestaurantSubmittedEvent(sessionId, (long) i, "Kopitiam", "alice", 1));
+                eventBroadcaster.onSessionClosed(new SessionClosedEvent(sessionId, "Kopitiam", LocalDateTime.now(), 2));
+
+                await().atMost(Duration.ofSeconds(5)).pollInterval(Duration.ofMillis(1))
+                        .until(() -> emitter.completed);
+                assertThat(emitter.sent).last().asString().contains("event:session-closed");
+            }
+        }
+
+        private static final class RecordingEmitter extends SseEmitter {
+
+            private final List<String> sent = new CopyOnWriteArrayList<>();
+            private volatile boolean completed;
+
+            @Override
+            public void send(SseEventBuilder builder) {
+                StringBuilder text = new StringBuilder();
+                builder.build().forEach(part -> text.append(part.getData()));
+                sent.add(text.toString());
+            }
+
+            @Override
+            public void complete() {
+                completed = true;
+                super.complete();
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Metrics")
+    class MetricsTests {
+
+        @Test
+        @DisplayName("Session lifecycle meters are published on the Prometheus endpoint")
+        void prometheusExposesDomainMeters() throws Exception {
+            MvcResult created = mockMvc.perform(post("/api/sessions").param("user", "alice"))
+                    .andReturn();
+            String sessionId = objectMapper.readTree(
+                    created.getResponse().getContentAsString()).get("id").asText();
+
+            SubmitRestaurantRequest req = new SubmitRestaurantRequest();
+            req.setRestaurant("Hawker Centre");
+            req.setUser("alice");
+            for (int i = 0; i < 2; i++) {
+                mockMvc.perform(post("/api/sessions/" + sessionId + "/restaurants")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)));
+            }
+
+            mockMvc.perform(get("/actuator/prometheus"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string(allOf(
+                            containsString("lunch_submit_seconds_bucket"),
+                            containsString("lunch_session_create_seconds_bucket"),
+                            containsString("lunch_submit_rejections_total{application=\"lunch-picker\",reason=\"duplicate\"}"),
+                            containsString("lunch_sessions_open"))));
+        }
+    }
+
+    @Nested
+    @DisplayName("Session Logging")
+    class SessionLoggingTests {
+
+        private final Logger serviceLogger = (Logger) LoggerFactory.getLogger(RestaurantService.class);
+        private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        private Level originalLevel;
+
+        @BeforeEach
+        void captureServiceLogs() {
+            originalLevel = serviceLogger.getLevel();
+            serviceLogger.setLevel(Level.INFO);
+            appender.start();
+            serviceLogger.addAppender(appender);
+        }
+
+        @AfterEach
+        void restoreServiceLogs() {
+            serviceLogger.detachAppender(appender);
+            serviceLogger.setLevel(originalLevel);
+        }
+
+        @Test
+        @DisplayName("Submit is logged as a structured event tagged with the session")
+        void submitLogsKeyValueEvent() throws Exception {
+            String sessionId = createSessionAs("alice");
+            submitAs(sessionId, "Laksa Stall", "alice");
+
+            ILoggingEvent submitted = appender.list.stream()
+                    .filter(event -> "Restaurant submitted".equals(event.getMessage()))
+                    .findFirst()
+                    .orElseThrow();
+            assertThat(submitted.getKeyValuePairs())
+                    .extracting(pair -> pair.key + "=" + pair.value)
+                    .contains("sessionId=" + sessionId, "restaurant=Laksa Stall", "user=alice");
+            assertThat(submitted.getMDCPropertyMap()).containsEntry("sessionId", sessionId);
+        }
+
+        @Test
+        @DisplayName("A session traced through the actuator logs debug output while others stay at INFO")
+        void tracedSessionLogsDebug() throws Exception {
+            String traced = createSessionAs("alice");
+            String untraced = createSessionAs("bob");
+
+            mockMvc.perform(post("/actuator/sessiontrace/" + traced)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"ttl\": \"5m\"}"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.sessionId").value(traced));
+            mockMvc.perform(get("/actuator/sessiontrace"))
+                    .andExpect(jsonPath("$.sessions", hasKey(traced)));
+            try {
+                submitAs(traced, "Traced Diner", "alice");
+                submitAs(untraced, "Quiet Diner", "bob");
+            } finally {
+                mockMvc.perform(delete("/actuator/sessiontrace/" + traced))
+                        .andExpect(jsonPath("$.traced").value(true));
+            }
+
+            assertThat(appender.list)
+                    .filteredOn(event -> event.getLevel() == Level.DEBUG)
+                    .isNotEmpty()
+                    .allSatisfy(event -> assertThat(event.getMDCPropertyMap()).containsEntry("sessionId", traced));
+        }
+
+        @Test
+        @DisplayName("The tracing endpoint rejects a bad TTL and is described in the API docs")
+        void traceEndpointIsDocumented() throws Exception {
+            mockMvc.perform(post("/actuator/sessiontrace/" + createSessionAs("alice"))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"ttl\": \"soon\"}"))
+                    .andExpect(status().isBadRequest());
+
+            mockMvc.perform(get("/v3/api-docs"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.paths", hasKey("/actuator/sessiontrace/{sessionId}")));
+        }
+
+        @Test
+        @DisplayName("Traces are capped in length and number and never log bind values")
+        void tracesAreBounded() throws Exception {
+            mockMvc.perform(post("/actuator/sessiontrace/" + createSessionAs("alice"))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"ttl\": \"7d\"}"))
+                    .andExpect(status().isBadRequest());
+
+            SessionTraceFilter tracing = new SessionTraceFilter(0, Duration.ofMinutes(5), Duration.ofHours(1), 2);
+            tracing.trace("s1", null);
+            tracing.trace("s2", Duration.ofMinutes(1));
+            tracing.trace("s2", Duration.ofMinutes(2));
+            assertThatThrownBy(() -> tracing.trace("s3", null)).isInstanceOf(IllegalStateException.class);
+
+            Logger binder = (Logger) LoggerFactory.getLogger("org.hibernate.orm.jdbc.bind");
+            MDC.put("sessionId", "s1");
+            try {
+                assertThat(tracing.decide(null, serviceLogger, Level.TRACE, "trace", null, null))
+                        .isEqualTo(FilterReply.ACCEPT);
+                assertThat(tracing.decide(null, binder, Level.TRACE, "binding", null, null))
+                        .isEqualTo(FilterReply.NEUTRAL);
+            } finally {
+                MDC.remove("sessionId");
+            }
+        }
+
+        @Test
+        @DisplayName("Sampling keeps debug logging for a stable share of sessions")
+        void samplingIsStablePerSession() {
+            SessionTraceFilter sampling = new SessionTraceFilter(0.25, Duration.ofMinutes(5), Duration.ofHours(1), 10);
+            int sampled = 0;
+            try {
+                for (int i = 0; i < 4000; i++) {
+                    String sessionId = UUID.randomUUID().toString();
+                    MDC.put("sessionId", sessionId);
+                    FilterReply reply = sampling.decide(null, serviceLogger, Level.DEBUG, "debug", null, null);
+                    assertThat(sampling.decide(null, serviceLogger, Level.DEBUG, "again", null, null)).isEqualTo(reply);
+                    assertThat(sampling.decide(null, serviceLogger, Level.INFO, "info", null, null))
+                            .isEqualTo(FilterReply.NEUTRAL);
+                    if (reply == FilterReply.ACCEPT) {
+                        sampled++;
+                    }
+                }
+            } finally {
+                MDC.remove("sessionId");
+            }
+            assertThat(sampled).isBetween(850, 1150);
+        }
+
+        private String createSessionAs(String user) throws Exception {
+            MvcResult created = mockMvc.perform(post("/api/sessions").param("user", user)).andReturn();
+            return objectMapper.readTree(created.getResponse().getContentAsString()).get("id").asText();
+        }
+
+        private void submitAs(String sessionId, String restaurant, String user) throws Exception {
+            SubmitRestaurantRequest req = new SubmitRestaurantRequest();
+            req.setRestaurant(restaurant);
+            req.setUser(user);
+            mockMvc.perform(post("/api/sessions/" + sessionId + "/restaurants")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(req)))
+                    .andExpect(status().isCreated());
+        }
+    }
+
+    @Nested
+    @DisplayName("Session Archival")
+    class SessionArchiveTests {
+
+        @Autowired
+        private SessionArchiveScheduler archiveScheduler;
+
+        @Test
+        @DisplayName("Archived sessions are removed from the live tables but still readable")
+        void archivedSessionStillReadable() throws Exception {
+            MvcResult result = mockMvc.perform(post("/api/sessions").param("user", "alice"))
+                    .andReturn();
+            String sessionId = objectMapper.readTree(
+                    result.getResponse().getContentAsString()).get("id").asText();
+            for (String[] submission : new String[][]{{"Restaurant A", "alice"}, {"Restaurant B", "bob"}}) {
+                SubmitRestaurantRequest req = new SubmitRestaurantRequest();
+                req.setRestaurant(submission[0]);
+                req.setUser(submission[1]);
+                mockMvc.perform(post("/api/sessions/" + sessionId + "/restaurants")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)));
+            }
+            String chosen = objectMapper.readTree(mockMvc.perform(post("/api/sessions/" + sessionId + "/pick")
+                            .param("user", "alice"))
+                    .andReturn().getResponse().getContentAsString()).get("chosenRestaurant").asText();
+            String etag = mockMvc.perform(get("/api/sessions/" + sessionId))
+                    .andReturn().getResponse().getHeader("ETag");
+
+            JobExecution execution = archiveScheduler.archiveClosedBefore(LocalDateTime.now().plusMinutes(1));
+
+            assertThat(execution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+            StepExecution step = execution.getStepExecutions().iterator().next();
+            assertThat(step.getExecutionContext().getLong(SessionArchiveBatchConfig.ARCHIVED_SESSIONS))
+                    .isGreaterThanOrEqualTo(1);
+            assertThat(sessionRepository.existsById(sessionId)).isFalse();
+
+            mockMvc.perform(get("/api/sessions/" + sessionId))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", etag))
+                    .andExpect(jsonPath("$.status").value("CLOSED"))
+                    .andExpect(jsonPath("$.chosenRestaurant").value(chosen))
+                    .andExpect(jsonPath("$.restaurants[*].restaurant",
+                            contains("Restaurant A", "Restaurant B")));
+            mockMvc.perform(get("/api/sessions/" + sessionId).param("view", "summary"))
+                    .andExpect(jsonPath("$.choiceCount").value(2));
+            mockMvc.perform(get("/api/sessions/" + sessionId + "/restaurants").param("limit", "1"))
+                    .andExpect(jsonPath("$.items", hasSize(1)))
+                    .andExpect(jsonPath("$.nextAfter").isNotEmpty());
+            mockMvc.perform(post("/api/sessions/" + sessionId + "/pick").param("user", "alice"))
+                    .andExpect(jsonPath("$.chosenRestaurant").value(chosen));
+
+            SubmitRestaurantRequest late = new SubmitRestaurantRequest();
+            late.setRestaurant("Restaurant C");
+            late.setUser("bob");
+            mockMvc.perform(post("/api/sessions/" + sessionId + "/restaurants")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(late)))
+                    .andExpect(status().isConflict());
+        }
+    }
+
+    @Nested
+    @DisplayName("Event Log Persistence")
+    class EventLogTests {
+
+        @TempDir
+        private Path directory;
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        @Autowired
+        private PlatformTransactionManager transactionManager;
+
+        @Test
+        @DisplayName("Replay rebuilds sessions from the log and ignores a torn tail")
+        void replayRebuildsSessionsFromLog() throws Exception {
+            EventLogWriter writer = new EventLogWriter(directory, 16);
+            writer.start();
+            writer.append(EventLogFormat.sessionCreated("s1", "alice", LocalDateTime.now()));
+            writer.append(EventLogFormat.restaurantSubmitted("s1", 11, "Pho", "bob", 2));
+            writer.append(EventLogFormat.restaurantSubmitted("s1", 10, "Sushi", "carol", 1));
+            writer.rotate().join();
+            writer.append(EventLogFormat.sessionClosed("s1", "Pho", LocalDateTime.now(), 3)).join();
+            writer.close();
+            Path lastSegment;
+            try (var segments = Files.list(directory)) {
+                lastSegment = segments.sorted().reduce((first, second) -> second).orElseThrow();
+            }
+            Files.write(lastSegment, new byte[]{0, 0, 0, 42, 1}, StandardOpenOption.APPEND);
+
+            SessionLogState state = SessionLogState.load(directory);
+
+            assertThat(state.getReplayedEvents()).isEqualTo(4);
+            LunchSession session = state.sessions().get(0);
+            assertThat(session.getStatus()).isEqualTo(SessionStatus.CLOSED);
+            assertThat(session.getChosenRestaurant()).isEqualTo("Pho");
+            assertThat(session.getFirstSubmitter()).isEqualTo("carol");
+            assertThat(session.getVersion()).isEqualTo(3);
+            assertThat(state.choices()).extracting(RestaurantChoice::getRestaurant).containsExactly("Sushi", "Pho");
+        }
+
+        @Test
+        @DisplayName("Writes after a failed group go to a new segment, and a close records its own time")
+        void failedWriteMovesToNewSegment() throws Exception {
+            Path full = Path.of("/dev/full");
+            assumeTrue(Files.exists(full), "needs /dev/full to fail writes");
+            EventLogWriter writer = new EventLogWriter(directory, 16);
+            writer.start();
+            EventLogRecorder recorder = new EventLogRecorder(writer, true, Duration.ofSeconds(5));
+            writer.append(EventLogFormat.sessionCreated("s1", "alice", LocalDateTime.now())).join();
+            // The next segment cannot be written or synced, so the group that rotates to it fails
+            Path failing = Files.createSymbolicLink(directory.resolve("events-000000000002.log"), full);
+            writer.rotate().join();
+            writer.append(EventLogFormat.restaurantSubmitted("s1", 1, "Pho", "bob", 1)).join();
+            LocalDateTime closedAt = LocalDateTime.of(2024, 5, 17, 12, 30, 15, 123_456_789);
+            recorder.onSessionClosed(new SessionClosedEvent("s1", "Laksa", closedAt, 2));
+            writer.close();
+            Files.delete(failing);
+
+            SessionLogState state = SessionLogState.load(directory);
+
+            assertThat(state.getReplayedEvents()).isEqualTo(3);
+            LunchSession session = state.sessions().get(0);
+            assertThat(session.getStatus()).isEqualTo(SessionStatus.CLOSED);
+            assertThat(session.getClosedAt()).isEqualTo(closedAt);
+            assertThat(state.choices()).extracting(RestaurantChoice::getRestaurant).containsExactly("Pho");
+        }
+
+        @Test
+        @DisplayName("Replay restores logged versions and keeps archived sessions archived")
+        void replayRestoresVersionsAndArchives() throws Exception {
+            EventLogWriter writer = new EventLogWriter(directory, 16);
+            writer.start();
+            writer.append(EventLogFormat.sessionCreated("s1", "alice", LocalDateTime.now()));
+            // One batch submit: a single version bump shared by all of its choices
+            writer.append(EventLogFormat.restaurantSubmitted("s1", 1, "Pho", "bob", 1));
+            writer.append(EventLogFormat.restaurantSubmitted("s1", 2, "Sushi", "bob", 1));
+            writer.append(EventLogFormat.restaurantSubmitted("s1", 3, "Tacos", "bob", 1));
+            writer.append(EventLogFormat.sessionCreated("s2", "alice", LocalDateTime.now()));
+            writer.append(EventLogFormat.restaurantSubmitted("s2", 4, "Laksa", "bob", 1));
+            writer.append(EventLogFormat.sessionClosed("s2", "Laksa", LocalDateTime.now(), 2));
+            writer.append(EventLogFormat.sessionArchived("s2", LocalDateTime.now())).join();
+            writer.close();
+
+            SessionLogState state = SessionLogState.load(directory);
+
+            assertThat(state.sessions()).extracting(LunchSession::getId).containsExactly("s1");
+            assertThat(state.sessions().get(0).getVersion()).isEqualTo(1);
+            assertThat(state.choices()).extracting(RestaurantChoice::getRestaurant)
+                    .containsExactly("Pho", "Sushi", "Tacos");
+            assertThat(state.archives()).singleElement().satisfies(archive -> {
+                assertThat(archive.getId()).isEqualTo("s2");
+                assertThat(archive.getVersion()).isEqualTo(2);
+                assertThat(archive.getChosenRestaurant()).isEqualTo("Laksa");
+                assertThat(archive.getChoiceCount()).isEqualTo(1);
+            });
+            // The archived session holds the highest ID, which must not be handed out again
+            assertThat(state.maxChoiceId()).isEqualTo(4);
+        }
+
+        @Test
+        @DisplayName("A snapshot captures the current sessions and replaces the segments it covers")
+        void snapshotCapturesCurrentSessions() throws Exception {
+            MvcResult result = mockMvc.perform(post("/api/sessions").param("user", "alice"))
+                    .andReturn();
+            String sessionId = objectMapper.readTree(
+                    result.getResponse().getContentAsString()).get("id").asText();
+            SubmitRestaurantRequest req = new SubmitRestaurantRequest();
+            req.setRestaurant("Ramen");
+            req.setUser("dave");
+            mockMvc.perform(post("/api/sessions/" + sessionId + "/restaurants")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(req)));
+
+            EventLogWriter writer = new EventLogWriter(directory, 16);
+            writer.start();
+            new EventLogSnapshotter(writer, jdbcTemplate, transactionManager, directory).snapshot();
+            writer.close();
+
+            SessionLogState state = SessionLogState.load(directory);
+
+            assertThat(state.sessions()).extracting(LunchSession::getId).contains(sessionId);
+            assertThat(state.choices())
+                    .filteredOn(choice -> choice.getSession().getId().equals(sessionId))
+                    .extracting(RestaurantChoice::getRestaurant)
+                    .containsExactly("Ramen");
+            try (var files = Files.list(directory)) {
+                assertThat(files.map(file -> file.getFileName().toString()))
+                        .containsExactlyInAnyOrder("snapshot.bin", "events-000000000002.log");
+            }
+        }
+
+        @Test
+        @DisplayName("Replay waits for JPA to create the schema when it bootstraps in the background")
+        void replayUnderFastProfile() throws Exception {
+            String sessionId;
+            try (ConfigurableApplicationContext first = startApplication(
+                    new SpringApplicationBuilder(LunchPickerApplication.class), fastEventLogArgs("fastfirst"))) {
+                sessionId = first.getBean(SessionService.class).createSession("alice").getId();
+            }
+
+            // Hold the background bootstrap back so the replay reliably starts before the schema exists
+            SimpleAsyncTaskExecutor slowBootstrap = new SimpleAsyncTaskExecutor("slow-jpa-");
+            slowBootstrap.setTaskDecorator(task -> () -> {
+                try {
+                    Thread.sleep(2000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                task.run();
+            });
+            try (ConfigurableApplicationContext restarted = startApplication(
+                    new SpringApplicationBuilder(LunchPickerApplication.class).initializers(context ->
+                            context.getBeanFactory().registerSingleton("slowBootstrap",
+                                    (EntityManagerFactoryBuilderCustomizer) builder ->
+                                            builder.setBootstrapExecutor(slowBootstrap))),
+                    fastEventLogArgs("fastrestarted"))) {
+                assertThat(restarted.getBean(JdbcTemplate.class).queryForList(
+                        "SELECT id FROM lunch_session", String.class)).containsExactly(sessionId);
+            }
+        }
+
+        @Test
+        @DisplayName("Partitioned writes are logged once per batch and replayed with their versions")
+        void partitionedWritesAreReplayed() throws Exception {
+            List<String> sessionIds = new ArrayList<>();
+            try (ConfigurableApplicationContext first = startApplication(
+                    new SpringApplicationBuilder(LunchPickerApplication.class),
+                    eventLogArgs("partitionedfirst", "--app.execution.mode=partitioned"))) {
+                SessionService sessions = first.getBean(SessionService.class);
+                PartitionedSessionEngine engine = first.getBean(PartitionedSessionEngine.class);
+                for (int i = 0; i < 3; i++) {
+                    sessionIds.add(sessions.createSession("alice").getId());
+                }
+                ExecutorService executor = Executors.newFixedThreadPool(6);
+                try {
+                    List<Future<?>> writers = new ArrayList<>();
+                    for (int t = 0; t < 6; t++) {
+                        int thread = t;
+                        writers.add(executor.submit(() -> {
+                            for (int k = 0; k < 10; k++) {
+                                for (String sessionId : sessionIds) {
+                                    engine.submit(sessionId, "Stall " + thread + "-" + k, "user" + thread);
+                                }
+                            }
+                        }));
+                    }
+                    for (Future<?> writer : writers) {
+                        writer.get(60, TimeUnit.SECONDS);
+                    }
+                } finally {
+                    executor.shutdownNow();
+                }
+                engine.pick(sessionIds.get(0), first.getBean(RestaurantRepository.class)
+                        .findFirstBySessionIdOrderByIdAsc(sessionIds.get(0)).orElseThrow().getSubmittedBy());
+            }
+
+            try (ConfigurableApplicationContext restarted = startApplication(
+                    new SpringApplicationBuilder(LunchPickerApplication.class),
+                    eventLogArgs("partitionedrestarted", "--app.execution.mode=partitioned"))) {
+                SessionRepository sessions = restarted.getBean(SessionRepository.class);
+                RestaurantRepository choices = restarted.getBean(RestaurantRepository.class);
+                for (String sessionId : sessionIds) {
+                    assertThat(choices.countBySessionId(sessionId)).isEqualTo(60);
+                }
+                assertThat(sessions.findVersionById(sessionIds.get(0))).contains(61L);
+                assertThat(sessions.findVersionById(sessionIds.get(1))).contains(60L);
+                assertThat(sessions.findById(sessionIds.get(0)).orElseThrow().getStatus())
+                        .isEqualTo(SessionStatus.CLOSED);
+            }
+        }
+
+        private String[] fastEventLogArgs(String database) {
+            return eventLogArgs(database, "--spring.profiles.active=fast");
+        }
+
+        private String[] eventLogArgs(String database, String... more) {
+            List<String> args = new ArrayList<>(List.of(
+                    "--app.persistence.mode=event-log",
+                    "--app.persistence.event-log.directory=" + directory.toAbsolutePath(),
+                    "--spring.datasource.url=jdbc:h2:mem:" + database,
+                    "--app.stats.rebuild.on-startup=false",
+                    "--server.port=0"));
+            args.addAll(List.of(more));
+            return args.toArray(String[]::new);
+        }
+    }
+
+    @Nested
+    @DisplayName("Partitioned Execution")
+    class PartitionedExecutionTests {
+
+        @Autowired
+        private RestaurantRepository restaurantRepository;
+
+        @Autowired
+        private ArchivedSessionRepository archivedSessionRepository;
+
+        @Autowired
+        private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+        @Autowired
+        private TransactionTemplate transactionTemplate;
+
+        @Autowired
+        private ApplicationEventPublisher eventPublisher;
+
+        @Autowired
+        private Validator validator;
+
+        @Autowired
+        private SessionMetrics metrics;
+
+        @Autowired
+        private NearDuplicateDetector nearDuplicates;
+
+        @Autowired
+        private ObjectProvider<EventLogRecorder> eventLogRecorder;
+
+        private PartitionedSessionEngine engine;
+
+        @BeforeEach
+        void startEngine() {
+            SessionStateStore store = new SessionStateStore(sessionRepository, restaurantRepository,
+                    archivedSessionRepository, namedJdbcTemplate, transactionTemplate, eventPublisher, nearDuplicates,
+                    eventLogRecorder);
+            engine = new PartitionedSessionEngine(store, validator, metrics, meterRegistry, 2, 1000, 64, 100);
+            engine.start();
+        }
+
+        @AfterEach
+        void stopEngine() throws InterruptedException {
+            engine.close();
+        }
+
+        @Test
+        @DisplayName("Concurrent submits to several sessions are applied once each without conflicts")
+        void concurrentSubmitsAcrossSessions() throws Exception {
+            List<String> sessionIds = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                MvcResult created = mockMvc.perform(post("/api/sessions").param("user", "alice")).andReturn();
+                sessionIds.add(objectMapper.readTree(created.getResponse().getContentAsString()).get("id").asText());
+            }
+
+            int threads = 8;
+            int perThread = 10;
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<Integer>> rejections = new ArrayList<>();
+            try {
+                for (int t = 0; t < threads; t++) {
+                    int thread = t;
+                    rejections.add(executor.submit(() -> {
+                        int rejected = 0;
+                        for (int k = 0; k < perThread; k++) {
+                            for (String sessionId : sessionIds) {
+                                engine.submit(sessionId, "Stall " + thread + "-" + k, "user" + thread);
+                                try {
+                                    engine.submit(sessionId, "Shared Stall", "user" + thread);
+                                } catch (IllegalStateException e) {
+                                    rejected++;
+                                }
+                            }
+                        }
+                        return rejected;
+                    }));
+                }
+                int rejected = 0;
+                for (Future<Integer> future : rejections) {
+                    rejected += future.get(60, TimeUnit.SECONDS);
+                }
+                assertThat(rejected).isEqualTo(sessionIds.size() * (threads * perThread - 1));
+            } finally {
+                executor.shutdownNow();
+            }
+
+            for (String sessionId : sessionIds) {
+                long expected = threads * perThread + 1;
+                assertThat(restaurantRepository.countBySessionId(sessionId)).isEqualTo(expected);
+                assertThat(sessionRepository.findVersionById(sessionId)).contains(expected);
+            }
+        }
+
+        @Test
+        @DisplayName("A write that cannot be persisted fails alone and keeps its database error")
+        void failedWriteDoesNotFailItsBatch() throws Exception {
+            String good = objectMapper.readTree(mockMvc.perform(post("/api/sessions").param("user", "alice"))
+                    .andReturn().getResponse().getContentAsString()).get("id").asText();
+            String bad = objectMapper.readTree(mockMvc.perform(post("/api/sessions").param("user", "alice"))
+                    .andReturn().getResponse().getContentAsString()).get("id").asText();
+            SessionStateStore store = new SessionStateStore(sessionRepository, restaurantRepository,
+                    archivedSessionRepository, namedJdbcTemplate, transactionTemplate, eventPublisher, nearDuplicates,
+                    eventLogRecorder);
+            // One partition, so both sessions' writes land in the same batches
+            PartitionedSessionEngine shared = new PartitionedSessionEngine(store, validator, metrics, meterRegistry,
+                    1, 1000, 64, 100);
+            shared.start();
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<?>> writers = new ArrayList<>();
+                for (int t = 0; t < 3; t++) {
+                    int thread = t;
+                    writers.add(executor.submit(() -> {
+                        for (int k = 0; k < 20; k++) {
+                            shared.submit(good, "Stall " + thread + "-" + k, "user" + thread);
+                        }
+                    }));
+                }
+                writers.add(executor.submit(() -> {
+                    for (int k = 0; k < 20; k++) {
+                        String tooLong = k + "x".repeat(300);
+                        assertThatThrownBy(() -> shared.submit(bad, tooLong, "mallory"))
+                                .isInstanceOf(DataIntegrityViolationException.class);
+                    }
+                }));
+                for (Future<?> writer : writers) {
+                    writer.get(60, TimeUnit.SECONDS);
+                }
+                // The failed writes left the session usable
+                assertThat(shared.submit(bad, "Stall", "mallory").getId()).isNotNull();
+            } finally {
+                executor.shutdownNow();
+                shared.close();
+            }
+
+            assertThat(restaurantRepository.countBySessionId(good)).isEqualTo(60);
+            assertThat(sessionRepository.findVersionById(good)).contains(60L);
+            assertThat(restaurantRepository.countBySessionId(bad)).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Pick is limited to the first submitter and closes the session")
+        void pickClosesSession() throws Exception {
+            MvcResult created = mockMvc.perform(post("/api/sessions").param("user", "bob")).andReturn();
+            String sessionId = objectMapper.readTree(created.getResponse().getContentAsString()).get("id").asText();
+
+            RestaurantChoice first = engine.submit(sessionId, "Dim Sum", "bob");
+            SubmitRestaurantRequest more = new SubmitRestaurantRequest();
+            more.setRestaurant("Chicken Rice");
+            more.setUser("carol");
+            SubmitRestaurantRequest repeat = new SubmitRestaurantRequest();
+            repeat.setRestaurant(" dim sum ");
+            repeat.setUser("carol");
+            assertThat(engine.submitAll(sessionId, List.of(more, repeat)))
+                    .extracting(RestaurantSubmissionResult::getOutcome)
+                    .containsExactly(RestaurantSubmissionResult.Outcome.CREATED,
+                            RestaurantSubmissionResult.Outcome.DUPLICATE);
+            assertThat(first.getId()).isNotNull();
+            assertThatThrownBy(() -> engine.submit(sessionId, "Dimsum", "carol"))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessage(RestaurantService.similarMessage("Dim Sum"));
+
+            assertThatThrownBy(() -> engine.pick(sessionId, "carol")).isInstanceOf(SecurityException.class);
+            String chosen = engine.pick(sessionId, "bob");
+            assertThat(chosen).isIn("Dim Sum", "Chicken Rice");
+            assertThat(engine.pick(sessionId, "bob")).isEqualTo(chosen);
+            assertThatThrownBy(() -> engine.submit(sessionId, "Late Lunch", "bob"))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessage(RestaurantService.CLOSED_MESSAGE);
+
+            mockMvc.perform(get("/api/sessions/" + sessionId))
+                    .andExpect(jsonPath("$.status").value("CLOSED"))
+                    .andExpect(jsonPath("$.chosenRestaurant").value(chosen))
+                    .andExpect(jsonPath("$.restaurants", hasSize(2)));
+        }
+
+        @Test
+        @DisplayName("Writes are logged from the partition thread with the caller's session MDC")
+        void partitionLogsCarryCallerMdc() throws Exception {
+            MvcResult created = mockMvc.perform(post("/api/sessions").param("user", "alice")).andReturn();
+            String sessionId = objectMapper.readTree(created.getResponse().getContentAsString()).get("id").asText();
+            Logger engineLogger = (Logger) LoggerFactory.getLogger(PartitionedSessionEngine.class);
+            ListAppender<ILoggingEvent> appender = new ListAppender<>();
+            appender.start();
+            engineLogger.addAppender(appender);
+            MDC.put("sessionId", sessionId);
+            try {
+                engine.submit(sessionId, "Kopi Tiam", "alice");
+                engine.pick(sessionId, "alice");
+            } finally {
+                MDC.remove("sessionId");
+                engineLogger.detachAppender(appender);
+            }
+
+            assertThat(appender.list)
+                    .extracting(ILoggingEvent::getMessage)
+                    .containsExactly("Restaurant submitted", "Restaurant picked");
+            assertThat(appender.list).allSatisfy(event -> {
+                assertThat(event.getThreadName()).startsWith("session-partition-");
+                assertThat(event.getMDCPropertyMap()).containsEntry("sessionId", sessionId);
+                assertThat(event.getKeyValuePairs())
+                        .extracting(pair -> pair.key + "=" + pair.value)
+                        .contains("sessionId=" + sessionId, "restaurant=Kopi Tiam", "user=alice");
+            });
+        }
+
+        @Test
+        @DisplayName("Writes racing a shutdown are applied or rejected, and no caller is left waiting")
+        void shutdownNeverStrandsWrites() throws Exception {
+            MvcResult created = mockMvc.perform(post("/api/sessions").param("user", "alice")).andReturn();
+            String sessionId = objectMapper.readTree(created.getResponse().getContentAsString()).get("id").asText();
+
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            List<Future<Integer>> writers = new ArrayList<>();
+            try {
+                for (int t = 0; t < 8; t++) {
+                    int thread = t;
+                    writers.add(executor.submit(() -> {
+                        int applied = 0;
+                        for (int k = 0; ; k++) {
+                            try {
+                                engine.submit(sessionId, "Shutdown " + thread + "-" + k, "alice");
+                                applied++;
+                            } catch (IllegalStateException e) {
+                                assertThat(e).hasMessage("Session writer is shutting down");
+                                return applied;
+                            }
+                        }
+                    }));
+                }
+                Thread.sleep(50);
+                engine.close();
+
+                int applied = 0;
+                for (Future<Integer> writer : writers) {
+                    applied += writer.get(10, TimeUnit.SECONDS);
+                }
+                assertThat(restaurantRepository.countBySessionId(sessionId)).isEqualTo(applied);
+            } finally {
+                executor.shutdownNow();
+            }
         }
     }
 
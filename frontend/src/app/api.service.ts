@@ -18,9 +18,15 @@ export interface Session {
   status: string;
   chosenRestaurant: string | null;
   createdAt: string;
+  choiceCount: number;
   restaurants: RestaurantChoice[];
 }
 
+export type SessionEvent =
+  | { type: 'choice-added'; choice: RestaurantChoice }
+  | { type: 'session-closed'; chosenRestaurant: string }
+  | { type: 'reconnected' };
+
 @Injectable({
   providedIn: 'root'
 })
@@ -44,6 +50,34 @@ export class ApiService {
     return this.http.get<Session>(`${this.baseUrl}/sessions/${sessionId}`);
   }
 
+  // Stream live session updates (Server-Sent Events)
+  sessionEvents(sessionId: string): Observable<SessionEvent> {
+    return new Observable<SessionEvent>(subscriber => {
+      const source = new EventSource(`${this.baseUrl}/sessions/${sessionId}/events`);
+      let dropped = false;
+
+      source.addEventListener('choice-added', (e) => {
+        subscriber.next({ type: 'choice-added', choice: JSON.parse((e as MessageEvent).data) });
+      });
+      source.addEventListener('session-closed', (e) => {
+        const data = JSON.parse((e as MessageEvent).data);
+        subscriber.next({ type: 'session-closed', chosenRestaurant: data.chosenRestaurant });
+        source.close();
+        subscriber.complete();
+      });
+      // EventSource reconnects by itself; events missed in between must be re-fetched
+      source.onerror = () => dropped = true;
+      source.onopen = () => {
+        if (dropped) {
+          dropped = false;
+          subscriber.next({ type: 'reconnected' });
+        }
+      };
+
+      return () => source.close();
+    });
+  }
+
   // Submit a restaurant
   submitRestaurant(sessionId: string, restaurant: string, user: string): Observable<RestaurantChoice> {
     return this.http.post<RestaurantChoice>(
@@ -1,7 +1,8 @@
-import { Component, OnInit } from '@angular/core';
+import { Component, OnDestroy, OnInit } from '@angular/core';
 import { CommonModule } from '@angular/common';
 import { FormsModule } from '@angular/forms';
-import { ApiService, User, Session, RestaurantChoice } from './api.service';
+import { Subscription } from 'rxjs';
+import { ApiService, User, Session, RestaurantChoice, SessionEvent } from './api.service';
 
 @Component({
   selector: 'app-root',
@@ -10,7 +11,7 @@ import { ApiService, User, Session, RestaurantChoice } from './api.service';
   templateUrl: './app.component.html',
   styleUrls: ['./app.component.css']
 })
-export class AppComponent implements OnInit {
+export class AppComponent implements OnInit, OnDestroy {
   // Available users from backend
   users: User[] = [];
   
@@ -28,12 +29,19 @@ export class AppComponent implements OnInit {
   success: string = '';
   loading: boolean = false;
 
+  // Live updates for the current session
+  private sessionEvents?: Subscription;
+
   constructor(private apiService: ApiService) {}
 
   ngOnInit() {
     this.loadUsers();
   }
 
+  ngOnDestroy() {
+    this.stopWatching();
+  }
+
   // Load all available users
   loadUsers() {
     this.apiService.getUsers().subscribe({
@@ -60,6 +68,7 @@ export class AppComponent implements OnInit {
     this.apiService.createSession(this.selectedUser).subscribe({
       next: (session) => {
         this.currentSession = session;
+        this.watchSession(session.id);
         this.success = `Session created! ID: ${session.id}`;
         this.loading = false;
       },
@@ -83,6 +92,7 @@ export class AppComponent implements OnInit {
     this.apiService.getSession(this.sessionIdInput).subscribe({
       next: (session) => {
         this.currentSession = session;
+        this.watchSession(session.id);
         this.success = 'Joined session successfully!';
         this.loading = false;
       },
@@ -121,7 +131,6 @@ export class AppComponent implements OnInit {
       next: () => {
         this.success = `Restaurant "${this.restaurantName}" submitted!`;
         this.restaurantName = '';
-        this.refreshSession();
         this.loading = false;
       },
       error: (err) => {
@@ -149,7 +158,6 @@ export class AppComponent implements OnInit {
     this.apiService.pickRandom(this.currentSession.id, this.submitterName).subscribe({
       next: (result) => {
         this.success = `Winner: ${result.chosenRestaurant}!`;
-        this.refreshSession();
         this.loading = false;
       },
       error: (err) => {
@@ -171,8 +179,42 @@ export class AppComponent implements OnInit {
     });
   }
 
+  // Apply pushed updates instead of re-fetching the whole session
+  private watchSession(sessionId: string) {
+    this.stopWatching();
+    this.sessionEvents = this.apiService.sessionEvents(sessionId).subscribe({
+      next: (event) => this.applyEvent(event),
+      error: (err) => console.error('Session event stream failed', err)
+    });
+  }
+
+  private applyEvent(event: SessionEvent) {
+    if (!this.currentSession) return;
+
+    switch (event.type) {
+      case 'choice-added':
+        if (!this.currentSession.restaurants.some(r => r.id === event.choice.id)) {
+          this.currentSession.restaurants = [...this.currentSession.restaurants, event.choice];
+        }
+        break;
+      case 'session-closed':
+        this.currentSession.status = 'CLOSED';
+        this.currentSession.chosenRestaurant = event.chosenRestaurant;
+        break;
+      case 'reconnected':
+        this.refreshSession();
+        break;
+    }
+  }
+
+  private stopWatching() {
+    this.sessionEvents?.unsubscribe();
+    this.sessionEvents = undefined;
+  }
+
   // Leave current session
   leaveSession() {
+    this.stopWatching();
     this.currentSession = null;
     this.restaurantName = '';
     this.submitterName = '';